@@ -16,15 +16,15 @@
 
 package groovyx.gpars
 
-import groovyx.gpars.scheduler.DefaultPool
 import groovyx.gpars.scheduler.Pool
+import java.util.concurrent.ExecutorService
 
 /**
  * AsyncEnhancer allows classes or instances to be enhanced with asynchronous variants of iterative methods,
  * like eachParallel(), collectParallel(), findAllParallel() and others. These operations split processing into multiple
  * concurrently executable tasks and perform them on the underlying instance of an ExecutorService.
- * The pool itself is stored in a final property threadPool and can be managed through static methods
- * on the AsyncEnhancer class.
+ * The pool is the async subsystem's pool of the GParsRuntime, shared with other parts of GPars,
+ * and can be retrieved through the threadPool property.
  * All enhanced classes and instances will share the underlying pool.
  *
  * @author Vaclav Pech
@@ -33,10 +33,11 @@ import groovyx.gpars.scheduler.Pool
 public final class AsyncEnhancer {
 
     /**
-     * Holds the internal ExecutorService instance wrapped into a DefaultPool
+     * Retrieves the executor service of the GParsRuntime's async subsystem
      */
-    @SuppressWarnings("GroovyConstantNamingConvention")
-    private final static DefaultPool threadPool = new DefaultPool(true)
+    private static ExecutorService retrieveExecutor() {
+        return GParsRuntime.getExecutorService(GParsRuntime.Subsystem.ASYNC)
+    }
 
     /**
      * Enhances a single instance by mixing-in an instance of AsyncEnhancer.
@@ -58,7 +59,7 @@ public final class AsyncEnhancer {
     /**
      * Retrieves the underlying pool
      */
-    public Pool getThreadPool() { return threadPool }
+    public Pool getThreadPool() { return GParsRuntime.getPool(GParsRuntime.Subsystem.ASYNC) }
 
     /**
      * Iterates over a collection/object with the <i>each()</i> method using an asynchronous variant of the supplied closure
@@ -69,7 +70,7 @@ public final class AsyncEnhancer {
      * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public def eachParallel(Closure cl) {
-        Asynchronizer.withExistingAsynchronizer(threadPool.executorService) {
+        Asynchronizer.withExistingAsynchronizer(retrieveExecutor()) {
             AsyncInvokerUtil.eachParallel(mixedIn[Object], cl)
         }
     }
@@ -83,7 +84,7 @@ public final class AsyncEnhancer {
      * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public def eachWithIndexParallel(Closure cl) {
-        Asynchronizer.withExistingAsynchronizer(threadPool.executorService) {
+        Asynchronizer.withExistingAsynchronizer(retrieveExecutor()) {
             AsyncInvokerUtil.eachWithIndexParallel(mixedIn[Object], cl)
         }
     }
@@ -96,7 +97,7 @@ public final class AsyncEnhancer {
      * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public def collectParallel(Closure cl) {
-        Asynchronizer.withExistingAsynchronizer(threadPool.executorService) {
+        Asynchronizer.withExistingAsynchronizer(retrieveExecutor()) {
             AsyncInvokerUtil.collectParallel(mixedIn[Object], cl)
         }
     }
@@ -109,7 +110,7 @@ public final class AsyncEnhancer {
      * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public def findAllParallel(Closure cl) {
-        Asynchronizer.withExistingAsynchronizer(threadPool.executorService) {
+        Asynchronizer.withExistingAsynchronizer(retrieveExecutor()) {
             AsyncInvokerUtil.findAllParallel(mixedIn[Object], cl)
         }
     }
@@ -122,7 +123,7 @@ public final class AsyncEnhancer {
      * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public def grepParallel(Closure cl) {
-        Asynchronizer.withExistingAsynchronizer(threadPool.executorService) {
+        Asynchronizer.withExistingAsynchronizer(retrieveExecutor()) {
             AsyncInvokerUtil.grepParallel(mixedIn[Object], cl)
         }
     }
@@ -135,7 +136,7 @@ public final class AsyncEnhancer {
      * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public def findParallel(Closure cl) {
-        Asynchronizer.withExistingAsynchronizer(threadPool.executorService) {
+        Asynchronizer.withExistingAsynchronizer(retrieveExecutor()) {
             AsyncInvokerUtil.findParallel(mixedIn[Object], cl)
         }
     }
@@ -148,7 +149,7 @@ public final class AsyncEnhancer {
      * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public boolean everyParallel(Closure cl) {
-        Asynchronizer.withExistingAsynchronizer(threadPool.executorService) {
+        Asynchronizer.withExistingAsynchronizer(retrieveExecutor()) {
             AsyncInvokerUtil.everyParallel(mixedIn[Object], cl)
         }
     }
@@ -161,7 +162,7 @@ public final class AsyncEnhancer {
      * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public boolean anyParallel(Closure cl) {
-        Asynchronizer.withExistingAsynchronizer(threadPool.executorService) {
+        Asynchronizer.withExistingAsynchronizer(retrieveExecutor()) {
             AsyncInvokerUtil.anyParallel(mixedIn[Object], cl)
         }
     }
@@ -174,8 +175,31 @@ public final class AsyncEnhancer {
      * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public def groupByParallel(Closure cl) {
-        Asynchronizer.withExistingAsynchronizer(threadPool.executorService) {
+        Asynchronizer.withExistingAsynchronizer(retrieveExecutor()) {
             AsyncInvokerUtil.groupByParallel(mixedIn[Object], cl)
         }
     }
+
+    /**
+     * Groups the elements concurrently by the results of the supplied closure and reduces the elements of each group
+     * using the supplied reducer, without building lists of elements.
+     * It's important to protect any shared resources used by the supplied closures from race conditions caused by multi-threaded access.
+     * @throws AsyncException If any of the collection's elements causes the closures to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
+     */
+    public def groupByParallel(Closure cl, Closure reducer) {
+        Asynchronizer.withExistingAsynchronizer(retrieveExecutor()) {
+            AsyncInvokerUtil.groupByParallel(mixedIn[Object], cl, reducer)
+        }
+    }
+
+    /**
+     * Counts concurrently the elements in each of the groups determined by the results of the supplied closure.
+     * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
+     * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
+     */
+    public def countByParallel(Closure cl) {
+        Asynchronizer.withExistingAsynchronizer(retrieveExecutor()) {
+            AsyncInvokerUtil.countByParallel(mixedIn[Object], cl)
+        }
+    }
 }
@@ -16,8 +16,11 @@
 
 package groovyx.gpars
 
+import groovyx.gpars.util.PoolUtils
 import java.util.concurrent.Callable
-import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CompletionService
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorCompletionService
 import java.util.concurrent.ExecutorService
 import java.util.concurrent.Future
 import java.util.concurrent.Semaphore
@@ -33,13 +36,23 @@ import java.util.concurrent.atomic.AtomicBoolean
  * Date: Oct 23, 2008
  */
 public class AsyncInvokerUtil {
+
+    /**
+     * The number of chunks per thread the groupBy and search operations split the elements into
+     */
+    private static final int CHUNKS_PER_THREAD = 4
+
     /**
      * schedules the supplied closure for processing in the underlying thread pool.
      */
     private static Future callParallel(Closure task) {
+        return retrievePool().submit(task as Callable)
+    }
+
+    private static ExecutorService retrievePool() {
         final ExecutorService pool = Asynchronizer.retrieveCurrentPool()
         if (!pool) throw new IllegalStateException("No ExecutorService available for the current thread.")
-        return pool.submit(task as Callable)
+        return pool
     }
 
     /**
@@ -205,7 +218,8 @@ public class AsyncInvokerUtil {
     /**
      * Performs the <i>find()</i> operation using an asynchronous variant of the supplied closure
      * to evaluate each collection's/object's element.
-     * After this method returns, all the closures have been finished and the caller can safely use the result.
+     * The search stops as soon as the result is known and the remaining elements get skipped, however, closures already running
+     * on other elements may still be finishing after this method returns.
      * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
      * Asynchronizer.withAsynchronizer(5) {ExecutorService service ->
      *     def result = service.findParallel([1, 2, 3, 4, 5]){Number number -> number > 2}*     assert result in [3, 4, 5]
@@ -217,13 +231,14 @@ public class AsyncInvokerUtil {
      *}* @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public static def findParallel(Object collection, Closure cl) {
-        collectParallel(collection, {if (cl(it)) return it else return null}).find {it != null}
+        searchChunks(collection, cl)?.get(0)
     }
 
     /**
      * Performs the <i>all()</i> operation using an asynchronous variant of the supplied closure
      * to evaluate each collection's/object's element.
-     * After this method returns, all the closures have been finished and the caller can safely use the result.
+     * The search stops as soon as the result is known and the remaining elements get skipped, however, closures already running
+     * on other elements may still be finishing after this method returns.
      * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
      * Asynchronizer.withAsynchronizer(5) {ExecutorService service ->
      *     assert service.everyParallel([1, 2, 3, 4, 5]){Number number -> number > 0}*     assert !service.everyParallel([1, 2, 3, 4, 5]){Number number -> number > 2}*}*
@@ -233,15 +248,14 @@ public class AsyncInvokerUtil {
      *     assert [1, 2, 3, 4, 5].everyParallel{Number number -> number > 0}*     assert ![1, 2, 3, 4, 5].everyParallel{Number number -> number > 2}*}* @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public static boolean everyParallel(Object collection, Closure cl) {
-        final AtomicBoolean flag = new AtomicBoolean(true)
-        eachParallel(collection, {value -> if (!cl(value)) flag.set(false)})
-        return flag.get()
+        searchChunks(collection, {!cl(it)}) == null
     }
 
     /**
      * Performs the <i>any()</i> operation using an asynchronous variant of the supplied closure
      * to evaluate each collection's/object's element.
-     * After this method returns, all the closures have been finished and the caller can safely use the result.
+     * The search stops as soon as the result is known and the remaining elements get skipped, however, closures already running
+     * on other elements may still be finishing after this method returns.
      * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
      * Asynchronizer.withAsynchronizer(5) {ExecutorService service ->
      *     assert service.anyParallel([1, 2, 3, 4, 5]){Number number -> number > 2}*     assert !service.anyParallel([1, 2, 3, 4, 5]){Number number -> number > 6}*}*
@@ -251,9 +265,7 @@ public class AsyncInvokerUtil {
      *     assert [1, 2, 3, 4, 5].anyParallel{Number number -> number > 2}*     assert ![1, 2, 3, 4, 5].anyParallel{Number number -> number > 6}*}* @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public static boolean anyParallel(Object collection, Closure cl) {
-        final AtomicBoolean flag = new AtomicBoolean(false)
-        eachParallel(collection, {if (cl(it)) flag.set(true)})
-        return flag.get()
+        searchChunks(collection, cl) != null
     }
 
     /**
@@ -267,16 +279,130 @@ public class AsyncInvokerUtil {
      * have a new <i>groupByParallel(Closure cl)</i> method, which delegates to the <i>AsyncInvokerUtil</i> class.
      * Asynchronizer.withAsynchronizer(5) {ExecutorService service ->
      *     assert ([1, 2, 3, 4, 5].groupByParallel{Number number -> number % 2}).size() == 2
+     * The elements are split into chunks, each of which gets grouped into a private map by a separate task.
+     * The partial maps are merged once all the tasks finish, so no synchronization is needed and the groups keep the order
+     * of the original collection.
+     * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public static Map groupByParallel(Object collection, Closure cl) {
-        final def map = new ConcurrentHashMap()
-        eachParallel(collection, {
-            def result = cl(it)
-            final def myList = [it].asSynchronized()
-            def list = map.putIfAbsent(result, myList)
-            if (list != null) list.add(it)
-        })
-        return map
+        final Map result = new LinkedHashMap()
+        for (Map partial in processChunks(collection, {List chunk -> chunk.groupBy(cl)})) {
+            partial.each {key, List group ->
+                final List existing = result[key]
+                if (existing == null) result[key] = group
+                else existing.addAll(group)
+            }
+        }
+        return result
+    }
+
+    /**
+     * Performs the <i>groupBy()</i> operation using an asynchronous variant of the supplied closure
+     * and reduces the elements of each group using the supplied reducer, so no lists of elements get built.
+     * The elements are split into chunks, each of which gets reduced into a private map by a separate task.
+     * The partial maps are merged once all the tasks finish.
+     * It's important to protect any shared resources used by the supplied closures from race conditions caused by multi-threaded access.
+     * Asynchronizer.withAsynchronizer(5) {ExecutorService service ->
+     *     assert [0: 6, 1: 9] == [1, 2, 3, 4, 5].groupByParallel({it % 2}, {a, b -> a + b})
+     *}* @param cl A closure calculating the group key of an element
+     * @param reducer An associative two-argument closure merging two elements of the same group into one
+     * @throws AsyncException If any of the collection's elements causes the closures to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
+     */
+    public static Map groupByParallel(Object collection, Closure cl, Closure reducer) {
+        final Closure reduceChunk = {List chunk ->
+            final Map values = new LinkedHashMap()
+            for (element in chunk) {
+                final def key = cl(element)
+                values[key] = values.containsKey(key) ? reducer(values[key], element) : element
+            }
+            return values
+        }
+        final Map result = new LinkedHashMap()
+        for (Map partial in processChunks(collection, reduceChunk)) {
+            partial.each {key, value -> result[key] = result.containsKey(key) ? reducer(result[key], value) : value}
+        }
+        return result
+    }
+
+    /**
+     * Counts the elements in each of the groups determined by the results of the supplied closure, using an asynchronous variant of the closure.
+     * The elements are split into chunks, each of which gets counted into a private map by a separate task.
+     * The partial maps are merged once all the tasks finish.
+     * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
+     * Asynchronizer.withAsynchronizer(5) {ExecutorService service ->
+     *     assert [1: 3, 0: 2] == [1, 2, 3, 4, 5].countByParallel {it % 2}
+     *}* @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
+     */
+    public static Map countByParallel(Object collection, Closure cl) {
+        final Closure countChunk = {List chunk ->
+            final Map counts = new LinkedHashMap()
+            for (element in chunk) {
+                final def key = cl(element)
+                counts[key] = (counts[key] ?: 0) + 1
+            }
+            return counts
+        }
+        final Map result = new LinkedHashMap()
+        for (Map partial in processChunks(collection, countChunk)) {
+            partial.each {key, count -> result[key] = (result[key] ?: 0) + count}
+        }
+        return result
+    }
+
+    /**
+     * Splits the elements of the collection into chunks and processes each chunk by a separate asynchronous task
+     * @return The results of the chunks in the order of the chunks
+     */
+    private static List processChunks(Object collection, Closure chunkHandler) {
+        final List elements = ParallelArrayUtil.createCollection(collection)
+        final int size = elements.size()
+        final int chunks = Math.min(size, PoolUtils.retrieveDefaultPoolSize() * CHUNKS_PER_THREAD)
+        if (chunks == 0) return []
+        final List<Future<Object>> futures = (0..<chunks).collect {int index ->
+            final List chunk = elements.subList((int) (index * size / chunks), (int) ((index + 1) * size / chunks))
+            callParallel {-> chunkHandler(chunk)}
+        }
+        return processResult(futures)
+    }
+
+    /**
+     * Splits the elements of the collection into chunks and searches the chunks concurrently for an element satisfying the closure.
+     * Once an element has been found or a chunk has failed, the unfinished chunks stop at their next element
+     * and the chunks still waiting in the pool's queue get cancelled.
+     * @return A single-element list holding the found element, null if no element satisfies the closure
+     */
+    private static List searchChunks(Object collection, Closure cl) {
+        final List elements = ParallelArrayUtil.createCollection(collection)
+        final int size = elements.size()
+        final int chunks = Math.min(size, PoolUtils.retrieveDefaultPoolSize() * CHUNKS_PER_THREAD)
+        if (chunks == 0) return null
+        final AtomicBoolean finished = new AtomicBoolean(false)
+        final CompletionService service = new ExecutorCompletionService(retrievePool())
+        final List<Future> futures = (0..<chunks).collect {int index ->
+            final List chunk = elements.subList((int) (index * size / chunks), (int) ((index + 1) * size / chunks))
+            service.submit({->
+                for (element in chunk) {
+                    if (finished.get()) return null
+                    if (cl(element)) return [element]
+                }
+                return null
+            } as Callable)
+        }
+        try {
+            for (int i = 0; i < chunks; i++) {
+                final List result
+                try {
+                    result = service.take().get()
+                } catch (ExecutionException e) {
+                    throw new AsyncException("Some asynchronous operations failed. ${[e]}", [e])
+                }
+                if (result != null) return result
+            }
+            return null
+        } finally {
+            finished.set(true)
+            futures*.cancel(false)
+        }
     }
 
     static List<Object> processResult(List<Future<Object>> futures) {
@@ -58,6 +58,15 @@ class Asynchronizer {
         currentPoolStack.current
     }
 
+    /**
+     * Retrieves the pool assigned to the current thread or the executor of the GParsRuntime's async subsystem,
+     * if no pool has been assigned. The latter runs the closures passed to executeAsync(), doInParallel()
+     * and startInParallel() outside of an Asynchronizer block.
+     */
+    private static ExecutorService retrieveExecutor() {
+        retrieveCurrentPool() ?: GParsRuntime.getExecutorService(GParsRuntime.Subsystem.ASYNC)
+    }
+
     /**
      * Creates a new pool with the default size()
      */
@@ -269,51 +278,84 @@ class Asynchronizer {
 
     /**
      * Starts multiple closures in separate threads, collecting their return values
+     * The closures run in the pool of the current Asynchronizer block or in a shared executor, the calling thread helps processing them.
      * If an exception is thrown from the closure when called on any of the collection's elements,
      * it will be re-thrown in the calling thread when it calls the Future.get() method.
      * @return The result values of all closures
      * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public static List<Object> doInParallel(Closure ... closures) {
-        return AsyncInvokerUtil.processResult(executeAsync(closures))
+        return doInParallel(Math.max(1, closures.size()), closures)
+    }
+
+    /**
+     * Starts multiple closures in separate threads, collecting their return values.
+     * At most maxConcurrency closures run at the same time, the calling thread included.
+     * The closures run in the pool of the current Asynchronizer block or in a shared executor, the calling thread helps processing them.
+     * @param maxConcurrency The maximum number of closures to run concurrently
+     * @return The result values of all closures
+     * @throws AsyncException If any of the collection's elements causes the closure to throw an exception. The original exceptions will be stored in the AsyncException's concurrentExceptions field.
+     */
+    public static List<Object> doInParallel(int maxConcurrency, Closure ... closures) {
+        return runInParallel(retrieveExecutor(), maxConcurrency, closures)
     }
 
     /**
      * Starts multiple closures in separate threads, collecting Futures for their return values
+     * The closures run in the pool of the current Asynchronizer block or in a shared executor.
      * If an exception is thrown from the closure when called on any of the collection's elements,
      * it will be re-thrown in the calling thread when it calls the Future.get() method.
      * @return Futures for the result values or exceptions of all closures
     */
     public static List<Future<Object>> executeAsync(Closure ... closures) {
-        Asynchronizer.withAsynchronizer(closures.size()) {ExecutorService executorService ->
-            List<Future<Object>> result = closures.collect {cl ->
-                executorService.submit({
-                    cl.call()
-                } as Callable<Object>)
-            }
-            result
-        }
+        return executeAsync(Math.max(1, closures.size()), closures)
     }
 
     /**
-     * Starts multiple closures in separate threads, using a new thread for the startup.
+     * Starts multiple closures in separate threads, collecting Futures for their return values.
+     * At most maxConcurrency closures run at the same time.
+     * The closures run in the pool of the current Asynchronizer block or in a shared executor.
+     * @param maxConcurrency The maximum number of closures to run concurrently
+     * @return Futures for the result values or exceptions of all closures
+     */
+    public static List<Future<Object>> executeAsync(int maxConcurrency, Closure ... closures) {
+        checkConcurrency(maxConcurrency)
+        return new ThrottledExecution(closures, null).start(retrieveExecutor(), maxConcurrency)
+    }
+
+    /**
+     * Starts multiple closures in separate threads without waiting for them to finish.
+     * The closures run in the pool of the current Asynchronizer block or in a shared executor.
      * If any of the collection's elements causes the closure to throw an exception, an AsyncException is reported using System.err.
      * The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      */
     public static void startInParallel(Closure ... closures) {
-        startInParallel(createDefaultUncaughtExceptionHandler(), closures)
+        if (closures.size() == 0) return
+        final UncaughtExceptionHandler handler = createDefaultUncaughtExceptionHandler()
+        ThrottledExecution execution = null
+        execution = new ThrottledExecution(closures, {
+            try {
+                AsyncInvokerUtil.processResult(execution.futures)
+            } catch (AsyncException e) {
+                handler.uncaughtException(Thread.currentThread(), e)
+            }
+        } as Runnable)
+        execution.start(retrieveExecutor(), closures.size())
     }
 
     /**
      * Starts multiple closures in separate threads, using a new thread for the startup.
+     * The closures themselves run in the pool of the current Asynchronizer block or in a shared executor,
+     * the returned thread only waits for them to finish, so that the caller can join it.
      * If any of the collection's elements causes the closure to throw an exception, an AsyncException is reported to the supplied instance of UncaughtExceptionHandler.
      * The original exceptions will be stored in the AsyncException's concurrentExceptions field.
      * Unwraps potential InvokerInvocationException before control is passed to the UncaughtExceptionHandler instance.
      * @return The thread that submits the closures to the thread executor service so that the caller can take ownership of it and e.g. call <i>join()</i> on it to wait for all the closures to finish processing.
      */
     public static Thread startInParallel(java.lang.Thread.UncaughtExceptionHandler uncaughtExceptionHandler, Closure ... closures) {
+        final ExecutorService executor = retrieveExecutor()
         final Thread thread = new Thread({
-            doInParallel(closures)
+            runInParallel(executor, Math.max(1, closures.size()), closures)
         } as Runnable)
         thread.daemon = false
         thread.uncaughtExceptionHandler = {Thread t, Throwable throwable ->
@@ -326,6 +368,19 @@ class Asynchronizer {
         return thread
     }
 
+    private static List<Object> runInParallel(ExecutorService executor, int maxConcurrency, Closure[] closures) {
+        checkConcurrency(maxConcurrency)
+        final ThrottledExecution execution = new ThrottledExecution(closures, null)
+        //the calling thread takes part in the processing, so one thread less is needed from the executor
+        if (maxConcurrency > 1) execution.start(executor, maxConcurrency - 1)
+        execution.help()
+        return AsyncInvokerUtil.processResult(execution.futures)
+    }
+
+    private static void checkConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("Invalid value $maxConcurrency for the maximum concurrency has been specified. Please supply a positive int number.")
+    }
+
     private static UncaughtExceptionHandler createDefaultUncaughtExceptionHandler() {
         return {Thread failedThread, Throwable throwable ->
             System.err.println "Error processing background thread ${failedThread.name}: ${throwable.message}"
@@ -0,0 +1,313 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars;
+
+import jsr166y.forkjoin.ForkJoinPool;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps idle ForkJoinPools created by Parallelizer.withParallelizer() and Parallelizer.doParallel() for later reuse,
+ * so that repeated parallel blocks run on warm worker threads instead of starting new ones each time.
+ * Pools are cached by their size and uncaught exception handler and are lent to a single caller at a time.
+ * The total number of threads in idle pools is capped, pools released the longest time ago get shut down to make room
+ * for newly released ones, so that pools cached for short-lived handlers cannot pile up.
+ * A pool returned to the registry with tasks still running is shut down and waited for, just like before caching was introduced.
+ * Pools left idle for longer than the idle timeout are shut down by a background daemon thread.
+ *
+ * @author agent
+ */
+public final class ForkJoinPoolRegistry {
+
+    /**
+     * The maximum number of idle pools kept for a single size and handler
+     */
+    private static final int MAX_IDLE_POOLS_PER_KEY = 4;
+
+    private static final long EVICTION_PERIOD = 1000L;
+
+    private static final Map<Key, LinkedList<IdlePool>> idlePools = new HashMap<Key, LinkedList<IdlePool>>();
+
+    private static volatile long idleTimeout = 60000L;
+
+    private static int maxIdleThreads = Math.max(64, 8 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The total number of threads in the idle pools, guarded by the idlePools lock
+     */
+    private static int idleThreadCount = 0;
+
+    private static Timer evictor = null;
+
+    private ForkJoinPoolRegistry() {
+    }
+
+    /**
+     * Retrieves the time after which unused pools get shut down
+     *
+     * @return The timeout in milliseconds
+     */
+    public static long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Sets the time after which unused pools get shut down
+     *
+     * @param timeout The timeout in milliseconds, 0 disables caching of pools altogether
+     */
+    public static void setIdleTimeout(final long timeout) {
+        if (timeout < 0L) throw new IllegalArgumentException("The idle timeout must not be negative, got " + timeout);
+        idleTimeout = timeout;
+        if (timeout == 0L) clear();
+    }
+
+    /**
+     * Retrieves the maximum total number of threads in idle pools kept by the registry
+     *
+     * @return The maximum number of idle threads
+     */
+    public static int getMaxIdleThreads() {
+        synchronized (idlePools) {
+            return maxIdleThreads;
+        }
+    }
+
+    /**
+     * Sets the maximum total number of threads in idle pools kept by the registry.
+     * Pools released the longest time ago get shut down, should the registry currently hold more idle threads.
+     *
+     * @param maxThreads The maximum number of idle threads
+     */
+    public static void setMaxIdleThreads(final int maxThreads) {
+        if (maxThreads < 0) throw new IllegalArgumentException("The maximum number of idle threads must not be negative, got " + maxThreads);
+        final List<ForkJoinPool> evicted;
+        synchronized (idlePools) {
+            maxIdleThreads = maxThreads;
+            evicted = evictOverCapacity();
+        }
+        for (final ForkJoinPool pool : evicted) pool.shutdown();
+    }
+
+    /**
+     * Lends a pool of the given size and handler, either an idle one from the cache or a newly created one.
+     * The pool must be returned through release() once the caller is done with it.
+     *
+     * @param poolSize The required number of threads
+     * @param handler  The uncaught exception handler of the pool
+     * @return The pool to use
+     */
+    static ForkJoinPool acquire(final int poolSize, final UncaughtExceptionHandler handler) {
+        if (poolSize < 1) throw new IllegalArgumentException("Invalid value " + poolSize + " for the pool size has been specified. Please supply a positive int number.");
+        final Key key = new Key(poolSize, handler);
+        synchronized (idlePools) {
+            final LinkedList<IdlePool> pools = idlePools.get(key);
+            while (pools != null && !pools.isEmpty()) {
+                final ForkJoinPool pool = pools.removeFirst().pool;
+                idleThreadCount -= poolSize;
+                if (!pool.isShutdown()) return pool;
+            }
+        }
+        final ForkJoinPool pool = new ForkJoinPool(poolSize);
+        pool.setUncaughtExceptionHandler(handler);
+        return pool;
+    }
+
+    /**
+     * Returns a pool obtained through acquire() to the cache.
+     * Pools, which are still busy, have been shut down by the user or exceed the cache capacity, get shut down
+     * and waited for instead. Should the idle pools exceed the maximum number of idle threads, the pools released
+     * the longest time ago get shut down.
+     *
+     * @param pool     The pool to return
+     * @param poolSize The size the pool has been acquired with
+     * @param handler  The handler the pool has been acquired with
+     * @throws InterruptedException If interrupted while waiting for a busy pool to terminate
+     */
+    static void release(final ForkJoinPool pool, final int poolSize, final UncaughtExceptionHandler handler) throws InterruptedException {
+        if (idleTimeout > 0L && !pool.isShutdown() && hasNoPendingWork(pool)) {
+            final Key key = new Key(poolSize, handler);
+            List<ForkJoinPool> evicted = null;
+            synchronized (idlePools) {
+                if (poolSize <= maxIdleThreads) {
+                    LinkedList<IdlePool> pools = idlePools.get(key);
+                    if (pools == null) {
+                        pools = new LinkedList<IdlePool>();
+                        idlePools.put(key, pools);
+                    }
+                    if (pools.size() < MAX_IDLE_POOLS_PER_KEY) {
+                        pools.addFirst(new IdlePool(pool, poolSize, System.currentTimeMillis()));
+                        idleThreadCount += poolSize;
+                        evicted = evictOverCapacity();
+                        startEvictor();
+                    }
+                }
+            }
+            if (evicted != null) {
+                for (final ForkJoinPool evictedPool : evicted) evictedPool.shutdown();
+                return;
+            }
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks for submissions still queued or running in the pool.
+     * Unlike isQuiescent() this is not affected by worker threads, which are still starting up.
+     */
+    private static boolean hasNoPendingWork(final ForkJoinPool pool) {
+        return pool.getActiveSubmissionCount() == 0 && !pool.hasQueuedSubmissions();
+    }
+
+    /**
+     * Shuts down all idle pools held by the registry
+     */
+    public static void clear() {
+        final List<ForkJoinPool> evicted = new ArrayList<ForkJoinPool>();
+        synchronized (idlePools) {
+            for (final LinkedList<IdlePool> pools : idlePools.values()) {
+                for (final IdlePool idlePool : pools) evicted.add(idlePool.pool);
+            }
+            idlePools.clear();
+            idleThreadCount = 0;
+        }
+        for (final ForkJoinPool pool : evicted) pool.shutdown();
+    }
+
+    /**
+     * Counts the idle pools currently held by the registry
+     *
+     * @return The number of idle pools
+     */
+    public static int getIdlePoolCount() {
+        synchronized (idlePools) {
+            int count = 0;
+            for (final LinkedList<IdlePool> pools : idlePools.values()) count += pools.size();
+            return count;
+        }
+    }
+
+    /**
+     * Shuts down the pools, which have been idle for longer than the idle timeout
+     */
+    static void evictIdlePools() {
+        final long limit = System.currentTimeMillis() - idleTimeout;
+        final List<ForkJoinPool> evicted = new ArrayList<ForkJoinPool>();
+        synchronized (idlePools) {
+            final Iterator<LinkedList<IdlePool>> iterator = idlePools.values().iterator();
+            while (iterator.hasNext()) {
+                final LinkedList<IdlePool> pools = iterator.next();
+                //the most recently returned pools are kept at the head of the list
+                while (!pools.isEmpty() && pools.getLast().releaseTime <= limit) {
+                    final IdlePool idlePool = pools.removeLast();
+                    idleThreadCount -= idlePool.poolSize;
+                    evicted.add(idlePool.pool);
+                }
+                if (pools.isEmpty()) iterator.remove();
+            }
+            if (idlePools.isEmpty() && evictor != null) {
+                evictor.cancel();
+                evictor = null;
+            }
+        }
+        for (final ForkJoinPool pool : evicted) pool.shutdown();
+    }
+
+    /**
+     * Removes the pools released the longest time ago, until the idle pools fit the maximum number of idle threads.
+     * Must be called while holding the idlePools lock.
+     *
+     * @return The removed pools, to be shut down by the caller outside of the lock
+     */
+    private static List<ForkJoinPool> evictOverCapacity() {
+        final List<ForkJoinPool> evicted = new ArrayList<ForkJoinPool>();
+        while (idleThreadCount > maxIdleThreads) {
+            LinkedList<IdlePool> oldest = null;
+            for (final LinkedList<IdlePool> pools : idlePools.values()) {
+                if (!pools.isEmpty() && (oldest == null || pools.getLast().releaseTime < oldest.getLast().releaseTime)) {
+                    oldest = pools;
+                }
+            }
+            final IdlePool idlePool = oldest.removeLast();
+            idleThreadCount -= idlePool.poolSize;
+            evicted.add(idlePool.pool);
+        }
+        return evicted;
+    }
+
+    /**
+     * Starts the background eviction, must be called while holding the idlePools lock
+     */
+    private static void startEvictor() {
+        if (evictor != null) return;
+        evictor = new Timer("ForkJoinPoolRegistry evictor", true);
+        evictor.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                evictIdlePools();
+            }
+        }, EVICTION_PERIOD, EVICTION_PERIOD);
+    }
+
+    private static final class IdlePool {
+        private final ForkJoinPool pool;
+        private final int poolSize;
+        private final long releaseTime;
+
+        private IdlePool(final ForkJoinPool pool, final int poolSize, final long releaseTime) {
+            this.pool = pool;
+            this.poolSize = poolSize;
+            this.releaseTime = releaseTime;
+        }
+    }
+
+    /**
+     * Identifies pools by their size and the identity of their handler
+     */
+    private static final class Key {
+        private final int poolSize;
+        private final UncaughtExceptionHandler handler;
+
+        private Key(final int poolSize, final UncaughtExceptionHandler handler) {
+            this.poolSize = poolSize;
+            this.handler = handler;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key key = (Key) o;
+            return poolSize == key.poolSize && handler == key.handler;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * poolSize + System.identityHashCode(handler);
+        }
+    }
+}
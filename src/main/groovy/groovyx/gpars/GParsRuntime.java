@@ -0,0 +1,427 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars;
+
+import groovyx.gpars.scheduler.FJPool;
+import groovyx.gpars.scheduler.FairPool;
+import groovyx.gpars.scheduler.Pool;
+import groovyx.gpars.scheduler.PoolStatistics;
+import groovyx.gpars.scheduler.ResizeablePool;
+import groovyx.gpars.util.PoolUtils;
+import jsr166y.forkjoin.ForkJoinPool;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the thread pools shared by all the default entry points of GPars, so that a mixed workload doesn't end up
+ * with a separate pool per subsystem oversubscribing the CPU.
+ * The default actor group, the default dataflow group, AsyncEnhancer and the Asynchronizer methods called outside
+ * of an Asynchronizer block all run their tasks on a shared resizeable pool. Tasks of unlimited subsystems go straight
+ * to the shared pool, once a subsystem gets limited or the parallelism is set, its tasks go through its own share
+ * of a FairPool. ParallelArray-based operations need a ForkJoinPool, so ParallelEnhancer and Parallelizer blocks
+ * without an explicit pool size use a single shared ForkJoinPool.
+ * Subsystems using daemon threads share one pool, subsystems using non-daemon threads share another one.
+ * By default only the dataflow subsystem uses non-daemon threads, just like the dataflow group always did,
+ * so that a script doesn't exit before its dataflow tasks have run.
+ * Each subsystem can be limited to a maximum number of concurrently running tasks. The limit of the parallel subsystem
+ * sets the size of the shared ForkJoinPool.
+ * <pre>
+ * GParsRuntime.parallelism = 16
+ * GParsRuntime.setLimit(GParsRuntime.Subsystem.ASYNC, 4)
+ * GParsRuntime.setLimit(GParsRuntime.Subsystem.PARALLEL, 8)
+ * </pre>
+ * The daemon flags and the parallelism can only be configured before the runtime gets used for the first time.
+ * By default the parallelism is unlimited, since actors blocked in receive() hold their threads
+ * and limiting the number of concurrent tasks could then prevent the actors they wait for from running.
+ * Pools created explicitly, e.g. for custom actor groups, Asynchronizer blocks or Parallelizer blocks with an explicit
+ * pool size, are not affected.
+ *
+ * @author agent
+ */
+public final class GParsRuntime {
+
+    /**
+     * The parts of GPars drawing threads from the runtime
+     */
+    public enum Subsystem {
+        ACTORS, DATAFLOW, ASYNC, PARALLEL
+    }
+
+    private static final Object lock = new Object();
+
+    private static final Map<Subsystem, Boolean> daemonFlags = new EnumMap<Subsystem, Boolean>(Subsystem.class);
+    private static int parallelism = Integer.MAX_VALUE;
+    private static final Map<Subsystem, Integer> limits = new EnumMap<Subsystem, Integer>(Subsystem.class);
+
+    private static boolean started = false;
+
+    /**
+     * The shared pools and the fair pools on top of them, keyed by the daemon flag of their threads
+     */
+    private static final Map<Boolean, ResizeablePool> sharedPools = new HashMap<Boolean, ResizeablePool>(4);
+    private static final Map<Boolean, FairPool> fairPools = new HashMap<Boolean, FairPool>(4);
+    private static final Map<Subsystem, FairPool.Share> shares = new EnumMap<Subsystem, FairPool.Share>(Subsystem.class);
+    private static final Map<Subsystem, Pool> pools = new EnumMap<Subsystem, Pool>(Subsystem.class);
+    private static final Map<Subsystem, ExecutorService> executors = new EnumMap<Subsystem, ExecutorService>(Subsystem.class);
+    private static FJPool parallelPool = null;
+
+    static {
+        daemonFlags.put(Subsystem.ACTORS, Boolean.TRUE);
+        daemonFlags.put(Subsystem.DATAFLOW, Boolean.FALSE);
+        daemonFlags.put(Subsystem.ASYNC, Boolean.TRUE);
+    }
+
+    private GParsRuntime() {
+    }
+
+    /**
+     * Indicates whether the subsystem runs its tasks on daemon threads
+     *
+     * @param subsystem The actors, dataflow or async subsystem, the parallel subsystem always uses daemon threads
+     * @return True, if the threads do not prevent the JVM from exiting
+     */
+    public static boolean isDaemon(final Subsystem subsystem) {
+        synchronized (lock) {
+            return subsystem == Subsystem.PARALLEL || daemonFlags.get(subsystem);
+        }
+    }
+
+    /**
+     * Sets the daemon flag of the threads the subsystem runs its tasks on
+     *
+     * @param subsystem The actors, dataflow or async subsystem
+     * @param value     True, if the threads should not prevent the JVM from exiting
+     */
+    public static void setDaemon(final Subsystem subsystem, final boolean value) {
+        if (subsystem == Subsystem.PARALLEL) throw new IllegalArgumentException("The parallel subsystem always uses daemon threads.");
+        synchronized (lock) {
+            checkNotStarted();
+            daemonFlags.put(subsystem, value);
+        }
+    }
+
+    /**
+     * Sets the daemon flag of the threads of the actors, dataflow and async subsystems
+     *
+     * @param value True, if the threads should not prevent the JVM from exiting
+     */
+    public static void setDaemon(final boolean value) {
+        synchronized (lock) {
+            checkNotStarted();
+            for (final Subsystem subsystem : daemonFlags.keySet()) daemonFlags.put(subsystem, value);
+        }
+    }
+
+    public static int getParallelism() {
+        synchronized (lock) {
+            return parallelism;
+        }
+    }
+
+    /**
+     * Sets the maximum number of tasks the actors, dataflow and async subsystems may run concurrently in total.
+     * Subsystems using daemon threads and subsystems using non-daemon threads are limited separately.
+     *
+     * @param value The parallelism, Integer.MAX_VALUE for no limit
+     */
+    public static void setParallelism(final int value) {
+        if (value < 1) throw new IllegalArgumentException("The parallelism must be a positive number, got " + value);
+        synchronized (lock) {
+            checkNotStarted();
+            parallelism = value;
+        }
+    }
+
+    /**
+     * Retrieves the maximum number of tasks the subsystem may run concurrently
+     *
+     * @param subsystem The subsystem
+     * @return The limit, 0 if the subsystem is not limited
+     */
+    public static int getLimit(final Subsystem subsystem) {
+        synchronized (lock) {
+            final Integer limit = limits.get(subsystem);
+            return limit != null ? limit : 0;
+        }
+    }
+
+    /**
+     * Sets the maximum number of tasks the subsystem may run concurrently. Can be changed at any time.
+     * For the parallel subsystem the limit sets the size of the shared ForkJoinPool.
+     *
+     * @param subsystem The subsystem
+     * @param limit     The limit, 0 to remove the limit
+     */
+    public static void setLimit(final Subsystem subsystem, final int limit) {
+        if (limit < 0) throw new IllegalArgumentException("The limit must not be negative, got " + limit);
+        synchronized (lock) {
+            limits.put(subsystem, limit);
+            if (subsystem == Subsystem.PARALLEL) {
+                if (parallelPool != null) parallelPool.resize(parallelPoolSize());
+            } else {
+                final SubsystemPool pool = (SubsystemPool) pools.get(subsystem);
+                if (pool != null && pool.sharedPool != null) configureShare(pool, pool.sharedPool);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the pool the subsystem runs its tasks on. The runtime only gets started once the pool is used,
+     * so the default groups can be created before the runtime gets configured.
+     * Resizing the pool of the actors, dataflow or async subsystem resizes the shared pool, use setLimit() to limit
+     * the subsystem. Shutting the pool down makes it reject new tasks, without affecting other subsystems.
+     *
+     * @param subsystem The subsystem
+     * @return The pool
+     */
+    public static Pool getPool(final Subsystem subsystem) {
+        synchronized (lock) {
+            if (subsystem == Subsystem.PARALLEL) {
+                if (parallelPool == null) parallelPool = new FJPool(parallelPoolSize());
+                return parallelPool;
+            }
+            Pool pool = pools.get(subsystem);
+            if (pool == null) {
+                pool = new SubsystemPool(subsystem);
+                pools.put(subsystem, pool);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Binds the subsystem's pool to the shared pool matching the subsystem's daemon flag, starting the runtime if needed
+     *
+     * @param pool The subsystem's pool
+     * @return The shared pool
+     */
+    private static ResizeablePool startSharedPool(final SubsystemPool pool) {
+        synchronized (lock) {
+            if (pool.sharedPool == null) {
+                final Boolean daemon = daemonFlags.get(pool.subsystem);
+                ResizeablePool sharedPool = sharedPools.get(daemon);
+                if (sharedPool == null) {
+                    started = true;
+                    sharedPool = new ResizeablePool(daemon);
+                    sharedPools.put(daemon, sharedPool);
+                }
+                configureShare(pool, sharedPool);
+                pool.sharedPool = sharedPool;
+            }
+            return pool.sharedPool;
+        }
+    }
+
+    /**
+     * Routes the subsystem's tasks through its share of a FairPool, if the subsystem or the total parallelism is limited.
+     * Unlimited subsystems submit their tasks directly to the shared pool. Must be called while holding the lock.
+     */
+    private static void configureShare(final SubsystemPool pool, final ResizeablePool sharedPool) {
+        final Subsystem subsystem = pool.subsystem;
+        final int limit = getLimit(subsystem);
+        if (limit == 0 && parallelism == Integer.MAX_VALUE) {
+            pool.share = null;
+            return;
+        }
+        FairPool.Share share = shares.get(subsystem);
+        if (share == null) {
+            final Boolean daemon = daemonFlags.get(subsystem);
+            FairPool fairPool = fairPools.get(daemon);
+            if (fairPool == null) {
+                fairPool = new FairPool(sharedPool, parallelism);
+                fairPools.put(daemon, fairPool);
+            }
+            share = fairPool.createShare(subsystem.name(), 1, limit > 0 ? limit : parallelism);
+            shares.put(subsystem, share);
+        } else if (limit > 0) share.resize(limit);
+        else share.resetDefaultSize();
+        pool.share = share;
+    }
+
+    /**
+     * Retrieves an ExecutorService view of the subsystem's pool. Shutting it down only affects the view itself.
+     *
+     * @param subsystem The subsystem
+     * @return The executor service
+     */
+    public static ExecutorService getExecutorService(final Subsystem subsystem) {
+        synchronized (lock) {
+            ExecutorService executor = executors.get(subsystem);
+            if (executor == null) {
+                executor = new PoolExecutorService(getPool(subsystem));
+                executors.put(subsystem, executor);
+            }
+            return executor;
+        }
+    }
+
+    /**
+     * Retrieves the ForkJoinPool shared by the parallel subsystem
+     *
+     * @return The pool
+     */
+    public static ForkJoinPool getForkJoinPool() {
+        return ((FJPool) getPool(Subsystem.PARALLEL)).getForkJoinPool();
+    }
+
+    /**
+     * Retrieves the statistics of the shared pool the actors subsystem runs on
+     *
+     * @return The statistics view
+     */
+    public static PoolStatistics getStatistics() {
+        return getStatistics(Subsystem.ACTORS);
+    }
+
+    /**
+     * Retrieves the statistics of the shared pool the subsystem runs on, starting the runtime if needed
+     *
+     * @param subsystem The actors, dataflow or async subsystem
+     * @return The statistics view
+     */
+    public static PoolStatistics getStatistics(final Subsystem subsystem) {
+        if (subsystem == Subsystem.PARALLEL) throw new IllegalArgumentException("The parallel subsystem doesn't collect statistics.");
+        return ((SubsystemPool) getPool(subsystem)).getSharedPool().getStatistics();
+    }
+
+    private static int parallelPoolSize() {
+        final int limit = getLimit(Subsystem.PARALLEL);
+        return limit > 0 ? limit : PoolUtils.retrieveDefaultPoolSize();
+    }
+
+    private static void checkNotStarted() {
+        if (started) throw new IllegalStateException("The runtime has already been started and cannot be reconfigured.");
+    }
+
+    /**
+     * The pool of a subsystem. Tasks go through the subsystem's share, if it has one, or directly to the shared pool.
+     * Sizing applies to the shared pool. The shared pool is bound on first use.
+     */
+    private static final class SubsystemPool implements Pool {
+        private final Subsystem subsystem;
+        private volatile ResizeablePool sharedPool = null;
+        private volatile FairPool.Share share = null;
+        private volatile boolean shutdown = false;
+
+        private SubsystemPool(final Subsystem subsystem) {
+            this.subsystem = subsystem;
+        }
+
+        private ResizeablePool getSharedPool() {
+            final ResizeablePool pool = sharedPool;
+            return pool != null ? pool : startSharedPool(this);
+        }
+
+        public int prestart() {
+            return getSharedPool().prestart();
+        }
+
+        public void resize(final int poolSize) {
+            getSharedPool().resize(poolSize);
+        }
+
+        public void resetDefaultSize() {
+            getSharedPool().resetDefaultSize();
+        }
+
+        public void execute(final Runnable task) {
+            if (shutdown) throw new IllegalStateException("The pool of the " + subsystem + " subsystem has been shut down.");
+            final ResizeablePool pool = getSharedPool();
+            final FairPool.Share currentShare = share;
+            if (currentShare != null) currentShare.execute(task);
+            else pool.execute(task);
+        }
+
+        public void shutdown() {
+            shutdown = true;
+        }
+    }
+
+    /**
+     * Adapts a pool to the ExecutorService interface, keeping track of the running tasks to support termination
+     */
+    private static final class PoolExecutorService extends AbstractExecutorService {
+        private final Pool pool;
+        private boolean shutdown = false;
+        private int runningTasks = 0;
+
+        private PoolExecutorService(final Pool pool) {
+            this.pool = pool;
+        }
+
+        public void execute(final Runnable command) {
+            synchronized (this) {
+                if (shutdown) throw new RejectedExecutionException("The executor service has been shut down.");
+                runningTasks++;
+            }
+            try {
+                pool.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            command.run();
+                        } finally {
+                            taskFinished();
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                taskFinished();
+                throw e;
+            }
+        }
+
+        private synchronized void taskFinished() {
+            runningTasks--;
+            if (runningTasks == 0) notifyAll();
+        }
+
+        public synchronized void shutdown() {
+            shutdown = true;
+        }
+
+        public List<Runnable> shutdownNow() {
+            shutdown();
+            return Collections.emptyList();
+        }
+
+        public synchronized boolean isShutdown() {
+            return shutdown;
+        }
+
+        public synchronized boolean isTerminated() {
+            return shutdown && runningTasks == 0;
+        }
+
+        public synchronized boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!isTerminated()) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) return false;
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        }
+    }
+}
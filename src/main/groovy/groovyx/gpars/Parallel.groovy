@@ -175,6 +175,29 @@ final class Parallel {
         }
     }
 
+    /**
+     * Groups the elements concurrently by the results of the supplied closure and reduces the elements of each group
+     * using the supplied reducer, without building lists of elements.
+     * It's important to protect any shared resources used by the supplied closures from race conditions caused by multi-threaded access.
+     * If any of the collection's elements causes the closures to throw an exception, the exception is re-thrown.
+     */
+    public def groupByParallel(Closure cl, Closure reducer) {
+        Parallelizer.ensurePool(ParallelEnhancer.threadPool.forkJoinPool) {
+            ParallelArrayUtil.groupByParallel(mixedIn[Object], cl, reducer)
+        }
+    }
+
+    /**
+     * Counts concurrently the elements in each of the groups determined by the results of the supplied closure.
+     * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
+     * If any of the collection's elements causes the closure to throw an exception, the exception is re-thrown.
+     */
+    public def countByParallel(Closure cl) {
+        Parallelizer.ensurePool(ParallelEnhancer.threadPool.forkJoinPool) {
+            ParallelArrayUtil.countByParallel(mixedIn[Object], cl)
+        }
+    }
+
     /**
      * Creates a Parallel Array out of the supplied collection/object and invokes its min() method using the supplied
      * closure as the comparator.
@@ -237,6 +260,48 @@ final class Parallel {
         }
     }
 
+    /**
+     * Sorts concurrently the elements of the collection using the supplied closure as the comparator.
+     * If the supplied closure takes two arguments it is used directly as a comparator.
+     * If the supplied closure takes one argument, the values returned by the supplied closure for individual elements are used for comparison by the implicit comparator.
+     * The original collection stays unchanged, a new sorted list gets returned.
+     * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
+     */
+    public def sortParallel(Closure cl) {
+        Parallelizer.ensurePool(ParallelEnhancer.threadPool.forkJoinPool) {
+            enhance(ParallelArrayUtil.sortParallel(mixedIn[Object], cl))
+        }
+    }
+
+    /**
+     * Sorts concurrently the elements of the collection in their natural order.
+     * The original collection stays unchanged, a new sorted list gets returned.
+     */
+    public def sortParallel() {
+        Parallelizer.ensurePool(ParallelEnhancer.threadPool.forkJoinPool) {
+            enhance(ParallelArrayUtil.sortParallel(mixedIn[Object]))
+        }
+    }
+
+    /**
+     * Merges concurrently the sorted collection with another collection sorted by the same comparator closure into a new sorted list.
+     * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
+     */
+    public def mergeSortedParallel(Object other, Closure cl) {
+        Parallelizer.ensurePool(ParallelEnhancer.threadPool.forkJoinPool) {
+            enhance(ParallelArrayUtil.mergeSortedParallel(mixedIn[Object], other, cl))
+        }
+    }
+
+    /**
+     * Merges concurrently the sorted collection with another collection sorted in the natural order into a new sorted list.
+     */
+    public def mergeSortedParallel(Object other) {
+        Parallelizer.ensurePool(ParallelEnhancer.threadPool.forkJoinPool) {
+            enhance(ParallelArrayUtil.mergeSortedParallel(mixedIn[Object], other))
+        }
+    }
+
     /**
      * Creates a Parallel Array out of the supplied collection/object and summarizes its elements using the foldParallel()
      * method with the + operator and the reduction operation.
@@ -266,6 +331,39 @@ final class Parallel {
         }
     }
 
+    /**
+     * Folds concurrently the elements into containers created from the seed, one container per fork/join leaf task,
+     * using the accumulator closure and merges the containers using the combiner closure.
+     * A closure seed gets invoked to create each of the containers, any other seed gets shared and so must be immutable.
+     * It's important to protect any shared resources used by the supplied closures from race conditions caused by multi-threaded access.
+     * If any of the collection's elements causes the closures to throw an exception, the exception is re-thrown.
+     */
+    public def foldParallel(Object seed, Closure accumulator, Closure combiner) {
+        Parallelizer.ensurePool(ParallelEnhancer.threadPool.forkJoinPool) {
+            ParallelArrayUtil.foldParallel(mixedIn[Object], seed, accumulator, combiner)
+        }
+    }
+
+    /**
+     * Calculates concurrently the running reductions of the elements using the supplied associative two-argument closure.
+     * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
+     * If any of the collection's elements causes the closure to throw an exception, the exception is re-thrown.
+     */
+    public def scanParallel(Closure cl) {
+        Parallelizer.ensurePool(ParallelEnhancer.threadPool.forkJoinPool) {
+            enhance(ParallelArrayUtil.scanParallel(mixedIn[Object], cl))
+        }
+    }
+
+    /**
+     * Calculates concurrently the running sums of the elements using the + operator.
+     */
+    public def cumulateParallel() {
+        Parallelizer.ensurePool(ParallelEnhancer.threadPool.forkJoinPool) {
+            enhance(ParallelArrayUtil.cumulateParallel(mixedIn[Object]))
+        }
+    }
+
     /**
      * Creates a ParallelCollection around a ParallelArray wrapping te elements of the original collection.
      * This allows further parallel processing operations on the collection to chain and so effectively leverage the underlying
@@ -277,6 +375,37 @@ final class Parallel {
         }
     }
 
+    /**
+     * Creates a lazy ParallelPipeline view of the elements of the original collection.
+     * The map(), filter() and flatMap() operations chained on the view get fused and run together in a single
+     * fork/join pass over the elements, once a terminal operation like reduce(), sum() or getCollection() is invoked.
+     */
+    public ParallelPipeline getLazyParallel() {
+        Parallelizer.ensurePool(ParallelEnhancer.threadPool.forkJoinPool) {
+            ParallelArrayUtil.getLazyParallel(mixedIn[Object])
+        }
+    }
+
+    /**
+     * Creates a ParallelLongCollection holding the values of the original array, range or collection of numbers.
+     * The values stay unboxed, so operations like sum(), min(), max(), sort() or cumulate() avoid boxing altogether.
+     */
+    public ParallelLongCollection getLongParallel() {
+        Parallelizer.ensurePool(ParallelEnhancer.threadPool.forkJoinPool) {
+            ParallelArrayUtil.getLongParallel(mixedIn[Object])
+        }
+    }
+
+    /**
+     * Creates a ParallelDoubleCollection holding the values of the original array or collection of numbers.
+     * The values stay unboxed, so operations like sum(), min(), max(), sort() or cumulate() avoid boxing altogether.
+     */
+    public ParallelDoubleCollection getDoubleParallel() {
+        Parallelizer.ensurePool(ParallelEnhancer.threadPool.forkJoinPool) {
+            ParallelArrayUtil.getDoubleParallel(mixedIn[Object])
+        }
+    }
+
     /**
      * Indicates, whether the iterative methods like each() or collect() have been made parallel.
      */
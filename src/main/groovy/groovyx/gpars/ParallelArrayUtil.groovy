@@ -16,7 +16,6 @@
 
 package groovyx.gpars
 
-import java.util.concurrent.ConcurrentHashMap
 import jsr166y.forkjoin.ForkJoinExecutor
 import jsr166y.forkjoin.ForkJoinPool
 import jsr166y.forkjoin.Ops.Mapper
@@ -209,10 +208,10 @@ public class ParallelArrayUtil {
     }
 
     /**
-     * Creates a Parallel Array out of the supplied collection/object and invokes the withFilter() method using the supplied
-     * closure as the filter predicate.
+     * Concurrently looks for an element of the supplied collection/object, for which the supplied closure returns true.
      * The closure will be effectively invoked concurrently on the elements of the collection.
-     * After all the elements have been processed, the method returns a random value from the resulting Parallel Array.
+     * As soon as a matching element has been found, the remaining elements are skipped and the element gets returned.
+     * Any of the matching elements may be returned, not necessarily the first one.
      * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
      * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
      * have a new <i>findParallel(Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
@@ -220,14 +219,14 @@ public class ParallelArrayUtil {
      * Parallelizer.withParallelizer {*     def result = [1, 2, 3, 4, 5].findParallel {Number number -> number > 3}*     assert (result in [4, 5])
      *}*/
     public static <T> Object findParallel(Collection<T> collection, Closure cl) {
-        createPA(collection, retrievePool()).withFilter({cl(it)} as Predicate).any()
+        new ParallelPipeline(collection, retrievePool()).find(cl)
     }
 
     /**
-     * Creates a Parallel Array out of the supplied collection/object and invokes the withFilter() method using the supplied
-     * closure as the filter predicate.
+     * Concurrently looks for an element of the supplied collection/object, for which the supplied closure returns true.
      * The closure will be effectively invoked concurrently on the elements of the collection.
-     * After all the elements have been processed, the method returns a random value from the resulting Parallel Array.
+     * As soon as a matching element has been found, the remaining elements are skipped and the element gets returned.
+     * Any of the matching elements may be returned, not necessarily the first one.
      * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
      * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
      * have a new <i>findParallel(Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
@@ -339,26 +338,22 @@ public class ParallelArrayUtil {
     }
 
     /**
-     * Creates a Parallel Array out of the supplied collection/object and invokes the withFilter() method using the supplied
-     * closure as the filter predicate.
+     * Concurrently checks, whether the supplied closure returns true for at least one element of the collection/object.
      * The closure will be effectively invoked concurrently on the elements of the collection.
-     * After all the elements have been processed, the method returns a boolean value indicating, whether at least
-     * one element of the collection meets the predicate.
+     * As soon as a matching element has been found, the remaining elements are skipped and true gets returned.
      * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
      * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
      * have a new <i>anyParallel(Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
      * Example:
      * Parallelizer.withParallelizer {*     assert [1, 2, 3, 4, 5].anyParallel {Number number -> number > 3}*     assert ![1, 2, 3].anyParallel {Number number -> number > 3}*}*/
     public static <T> boolean anyParallel(Collection<T> collection, Closure cl) {
-        createPA(collection, retrievePool()).withFilter({cl(it)} as Predicate).any() != null
+        new ParallelPipeline(collection, retrievePool()).any(cl)
     }
 
     /**
-     * Creates a Parallel Array out of the supplied collection/object and invokes the withFilter() method using the supplied
-     * closure as the filter predicate.
+     * Concurrently checks, whether the supplied closure returns true for at least one element of the collection/object.
      * The closure will be effectively invoked concurrently on the elements of the collection.
-     * After all the elements have been processed, the method returns a boolean value indicating, whether at least
-     * one element of the collection meets the predicate.
+     * As soon as a matching element has been found, the remaining elements are skipped and true gets returned.
      * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
      * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
      * have a new <i>anyParallel(Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
@@ -369,26 +364,22 @@ public class ParallelArrayUtil {
     }
 
     /**
-     * Creates a Parallel Array out of the supplied collection/object and invokes the withFilter() method using the supplied
-     * closure as the filter predicate.
+     * Concurrently checks, whether the supplied closure returns true for all the elements of the collection/object.
      * The closure will be effectively invoked concurrently on the elements of the collection.
-     * After all the elements have been processed, the method returns a boolean value indicating, whether all the elements
-     * of the collection meet the predicate.
+     * As soon as an element failing the closure has been found, the remaining elements are skipped and false gets returned.
      * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
      * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
      * have a new <i>everyParallel(Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
      * Example:
      * Parallelizer.withParallelizer(5) {*     assert ![1, 2, 3, 4, 5].everyParallel {Number number -> number > 3}*     assert [1, 2, 3].everyParallel() {Number number -> number <= 3}*}*/
     public static <T> boolean everyParallel(Collection<T> collection, Closure cl) {
-        createPA(collection, retrievePool()).withFilter({cl(it)} as Predicate).all().size() == collection.size()
+        new ParallelPipeline(collection, retrievePool()).every(cl)
     }
 
     /**
-     * Creates a Parallel Array out of the supplied collection/object and invokes the withFilter() method using the supplied
-     * closure as the filter predicate.
+     * Concurrently checks, whether the supplied closure returns true for all the elements of the collection/object.
      * The closure will be effectively invoked concurrently on the elements of the collection.
-     * After all the elements have been processed, the method returns a boolean value indicating, whether all the elements
-     * of the collection meet the predicate.
+     * As soon as an element failing the closure has been found, the remaining elements are skipped and false gets returned.
      * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
      * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
      * have a new <i>everyParallel(Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
@@ -404,6 +395,8 @@ public class ParallelArrayUtil {
      * The closure will be effectively invoked concurrently on the elements of the collection.
      * After all the elements have been processed, the method returns a list of groups of the original elements.
      * Elements in the same group gave identical results when the supplied closure was invoked on them.
+     * Each fork/join task groups its part of the elements into a private map, the partial maps get merged when joining the tasks,
+     * so no synchronization is needed and the groups keep the order of the original collection.
      * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
      * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
      * have a new <i>groupByParallel(Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
@@ -411,15 +404,7 @@ public class ParallelArrayUtil {
      * Parallelizer.withParallelizer {*     assert ([1, 2, 3, 4, 5].groupByParallel {Number number -> number % 2}).size() == 2
      *}*/
     public static <T> Map groupByParallel(Collection<T> collection, Closure cl) {
-        final def map = new ConcurrentHashMap()
-        eachParallel(collection, {
-            def result = cl(it)
-            final def myList = [it].asSynchronized()
-            def list = map.putIfAbsent(result, myList)
-            if (list != null) list.add(it)
-        })
-        return map
-
+        new ParallelPipeline(collection, retrievePool()).groupBy(cl)
     }
 
     /**
@@ -428,6 +413,8 @@ public class ParallelArrayUtil {
      * The closure will be effectively invoked concurrently on the elements of the collection.
      * After all the elements have been processed, the method returns a list of groups of the original elements.
      * Elements in the same group gave identical results when the supplied closure was invoked on them.
+     * Each fork/join task groups its part of the elements into a private map, the partial maps get merged when joining the tasks,
+     * so no synchronization is needed and the groups keep the order of the original collection.
      * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
      * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
      * have a new <i>groupByParallel(Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
@@ -438,6 +425,56 @@ public class ParallelArrayUtil {
         return groupByParallel(createCollection(collection), cl)
     }
 
+    /**
+     * Groups the elements of the supplied collection/object concurrently by the results of the supplied closure
+     * and reduces the elements of each group using the supplied reducer.
+     * Each fork/join task reduces its part of the elements into a private map, the partial maps get merged when joining the tasks,
+     * so no lists of elements are ever built.
+     * It's important to protect any shared resources used by the supplied closures from race conditions caused by multi-threaded access.
+     * Example:
+     * Parallelizer.withParallelizer {*     assert [0: 6, 1: 9] == [1, 2, 3, 4, 5].groupByParallel({it % 2}, {a, b -> a + b})
+     *}* @param cl A closure calculating the group key of an element
+     * @param reducer An associative two-argument closure merging two elements of the same group into one
+     */
+    public static <T> Map groupByParallel(Collection<T> collection, Closure cl, Closure reducer) {
+        new ParallelPipeline(collection, retrievePool()).groupBy(cl, reducer)
+    }
+
+    /**
+     * Groups the elements of the supplied collection/object concurrently by the results of the supplied closure
+     * and reduces the elements of each group using the supplied reducer.
+     * Each fork/join task reduces its part of the elements into a private map, the partial maps get merged when joining the tasks,
+     * so no lists of elements are ever built.
+     * It's important to protect any shared resources used by the supplied closures from race conditions caused by multi-threaded access.
+     * @param cl A closure calculating the group key of an element
+     * @param reducer An associative two-argument closure merging two elements of the same group into one
+     */
+    public static Map groupByParallel(Object collection, Closure cl, Closure reducer) {
+        return groupByParallel(createCollection(collection), cl, reducer)
+    }
+
+    /**
+     * Counts concurrently the elements of the supplied collection/object in each of the groups determined
+     * by the results of the supplied closure.
+     * Each fork/join task counts its part of the elements into a private map, the partial maps get merged when joining the tasks.
+     * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
+     * Example:
+     * Parallelizer.withParallelizer {*     assert [1: 3, 0: 2] == [1, 2, 3, 4, 5].countByParallel {it % 2}
+     *}*/
+    public static <T> Map countByParallel(Collection<T> collection, Closure cl) {
+        new ParallelPipeline(collection, retrievePool()).countBy(cl)
+    }
+
+    /**
+     * Counts concurrently the elements of the supplied collection/object in each of the groups determined
+     * by the results of the supplied closure.
+     * Each fork/join task counts its part of the elements into a private map, the partial maps get merged when joining the tasks.
+     * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
+     */
+    public static Map countByParallel(Object collection, Closure cl) {
+        return countByParallel(createCollection(collection), cl)
+    }
+
     /**
      * Creates a Parallel Array out of the supplied collection/object and invokes its min() method using the supplied
      * closure as the comparator.
@@ -546,6 +583,128 @@ public class ParallelArrayUtil {
         return maxParallel(createCollection(collection))
     }
 
+    /**
+     * Creates a Parallel Array out of the supplied collection/object and sorts it concurrently using the supplied
+     * closure as the comparator.
+     * The sort is a parallel merge sort, the original collection stays unchanged.
+     * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>sortParallel(Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * If the supplied closure takes two arguments it is used directly as a comparator.
+     * If the supplied closure takes one argument, the values returned by the supplied closure for individual elements are used for comparison by the implicit comparator.
+     * Example:
+     * Parallelizer.withParallelizer {*     assert [5, 4, 3, 2, 1] == [3, 1, 5, 2, 4].sortParallel {a, b -> b <=> a}*}* @param cl A one or two-argument closure
+     * @return A new list holding the sorted elements
+     */
+    public static <T> List<T> sortParallel(Collection<T> collection, Closure cl) {
+        final ParallelArray<T> pa = createPA(collection, retrievePool())
+        pa.sort(createComparator(cl) as Comparator)
+        return pa.asList()
+    }
+
+    /**
+     * Creates a Parallel Array out of the supplied collection/object and sorts it concurrently using the supplied
+     * closure as the comparator.
+     * The sort is a parallel merge sort, the original collection stays unchanged.
+     * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>sortParallel(Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * If the supplied closure takes two arguments it is used directly as a comparator.
+     * If the supplied closure takes one argument, the values returned by the supplied closure for individual elements are used for comparison by the implicit comparator.
+     * @param cl A one or two-argument closure
+     * @return A new list holding the sorted elements
+     */
+    public static Object sortParallel(Object collection, Closure cl) {
+        return sortParallel(createCollection(collection), cl)
+    }
+
+    /**
+     * Creates a Parallel Array out of the supplied collection/object and sorts it concurrently in the natural order of the elements.
+     * The sort is a parallel merge sort, the original collection stays unchanged.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>sortParallel()</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * Example:
+     * Parallelizer.withParallelizer {*     assert [1, 2, 3, 4, 5] == [3, 1, 5, 2, 4].sortParallel()
+     *}* @return A new list holding the sorted elements
+     */
+    public static <T> List<T> sortParallel(Collection<T> collection) {
+        final ParallelArray<T> pa = createPA(collection, retrievePool())
+        pa.sort()
+        return pa.asList()
+    }
+
+    /**
+     * Creates a Parallel Array out of the supplied collection/object and sorts it concurrently in the natural order of the elements.
+     * The sort is a parallel merge sort, the original collection stays unchanged.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>sortParallel()</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * @return A new list holding the sorted elements
+     */
+    public static Object sortParallel(Object collection) {
+        return sortParallel(createCollection(collection))
+    }
+
+    /**
+     * Merges concurrently two collections/objects, both sorted by the supplied closure, into a new sorted list.
+     * The longer of the two sorted sequences gets split in the middle, the other one at the matching position,
+     * and the pairs of halves get merged concurrently. Of two equal elements the one from the first collection comes first.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>mergeSortedParallel(Object other, Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * If the supplied closure takes two arguments it is used directly as a comparator.
+     * If the supplied closure takes one argument, the values returned by the supplied closure for individual elements are used for comparison by the implicit comparator.
+     * Example:
+     * Parallelizer.withParallelizer {*     assert [5, 4, 3, 2, 1] == [5, 3, 1].mergeSortedParallel([4, 2]) {a, b -> b <=> a}*}* @param other The collection to merge with, sorted by the same comparator
+     * @param cl A one or two-argument closure
+     * @return A new list holding the elements of both collections in sorted order
+     */
+    public static <T> List<T> mergeSortedParallel(Collection<T> collection, Collection<T> other, Closure cl) {
+        return ParallelMerge.merge(collection.toArray(), other.toArray(), createComparator(cl) as Comparator, retrievePool()) as ArrayList
+    }
+
+    /**
+     * Merges concurrently two collections/objects, both sorted by the supplied closure, into a new sorted list.
+     * The longer of the two sorted sequences gets split in the middle, the other one at the matching position,
+     * and the pairs of halves get merged concurrently. Of two equal elements the one from the first collection comes first.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>mergeSortedParallel(Object other, Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * If the supplied closure takes two arguments it is used directly as a comparator.
+     * If the supplied closure takes one argument, the values returned by the supplied closure for individual elements are used for comparison by the implicit comparator.
+     * @param other The collection/object to merge with, sorted by the same comparator
+     * @param cl A one or two-argument closure
+     * @return A new list holding the elements of both collections in sorted order
+     */
+    public static Object mergeSortedParallel(Object collection, Object other, Closure cl) {
+        return mergeSortedParallel(createCollection(collection), createCollection(other), cl)
+    }
+
+    /**
+     * Merges concurrently two collections/objects, both sorted in the natural order of their elements, into a new sorted list.
+     * The longer of the two sorted sequences gets split in the middle, the other one at the matching position,
+     * and the pairs of halves get merged concurrently. Of two equal elements the one from the first collection comes first.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>mergeSortedParallel(Object other)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * Example:
+     * Parallelizer.withParallelizer {*     assert [1, 2, 3, 4, 5] == [1, 3, 5].mergeSortedParallel([2, 4])
+     *}* @param other The collection to merge with, sorted in the natural order
+     * @return A new list holding the elements of both collections in sorted order
+     */
+    public static <T> List<T> mergeSortedParallel(Collection<T> collection, Collection<T> other) {
+        return mergeSortedParallel(collection, other, {a, b -> a <=> b})
+    }
+
+    /**
+     * Merges concurrently two collections/objects, both sorted in the natural order of their elements, into a new sorted list.
+     * The longer of the two sorted sequences gets split in the middle, the other one at the matching position,
+     * and the pairs of halves get merged concurrently. Of two equal elements the one from the first collection comes first.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>mergeSortedParallel(Object other)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * @param other The collection/object to merge with, sorted in the natural order
+     * @return A new list holding the elements of both collections in sorted order
+     */
+    public static Object mergeSortedParallel(Object collection, Object other) {
+        return mergeSortedParallel(createCollection(collection), createCollection(other))
+    }
+
     /**
      * Creates a Parallel Array out of the supplied collection/object and summarizes its elements using the foldParallel()
      * method with the + operator and the reduction operation.
@@ -596,6 +755,105 @@ public class ParallelArrayUtil {
         return foldParallel(createCollection(collection), cl)
     }
 
+    /**
+     * Folds concurrently the elements of the supplied collection/object into containers, which may be of a different type
+     * than the elements, such as a StringBuilder, a histogram array or a custom statistics object.
+     * Each fork/join leaf task creates its own container from the seed and folds its elements into it using the accumulator closure,
+     * so a mutable container can be updated in place without locking and without allocating anything per element.
+     * The containers of the leaf tasks then get merged pairwise using the combiner closure.
+     * It's important to protect any shared resources used by the supplied closures from race conditions caused by multi-threaded access.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>foldParallel(Object seed, Closure accumulator, Closure combiner)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * Example:
+     * Parallelizer.withParallelizer {*     def histogram = (1..1000).foldParallel({new int[10]}, {int[] counts, value -> counts[value % 10]++; counts}) {int[] a, int[] b ->
+     *         (0..<10).each {a[it] += b[it]}; a
+     *}*     assert histogram.every {it == 100}
+     *}* @param seed A closure creating a new empty container, invoked once for each leaf task,
+     * or an immutable initial value shared by all leaf tasks, such as 0 or an empty string
+     * @param accumulator A two-argument closure folding an element (second argument) into a container (first argument), returning the updated container
+     * @param combiner An associative two-argument closure merging two containers, returning the merged container
+     * @return The container holding all the elements
+     */
+    public static <T> Object foldParallel(Collection<T> collection, Object seed, Closure accumulator, Closure combiner) {
+        new ParallelPipeline(collection, retrievePool()).fold(seed, accumulator, combiner)
+    }
+
+    /**
+     * Folds concurrently the elements of the supplied collection/object into containers, which may be of a different type
+     * than the elements, such as a StringBuilder, a histogram array or a custom statistics object.
+     * Each fork/join leaf task creates its own container from the seed and folds its elements into it using the accumulator closure,
+     * so a mutable container can be updated in place without locking and without allocating anything per element.
+     * The containers of the leaf tasks then get merged pairwise using the combiner closure.
+     * It's important to protect any shared resources used by the supplied closures from race conditions caused by multi-threaded access.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>foldParallel(Object seed, Closure accumulator, Closure combiner)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * @param seed A closure creating a new empty container, invoked once for each leaf task,
+     * or an immutable initial value shared by all leaf tasks, such as 0 or an empty string
+     * @param accumulator A two-argument closure folding an element (second argument) into a container (first argument), returning the updated container
+     * @param combiner An associative two-argument closure merging two containers, returning the merged container
+     * @return The container holding all the elements
+     */
+    public static Object foldParallel(Object collection, Object seed, Closure accumulator, Closure combiner) {
+        return foldParallel(createCollection(collection), seed, accumulator, combiner)
+    }
+
+    /**
+     * Calculates concurrently the running reductions of the elements of the supplied collection/object using the supplied
+     * closure as an associative reduction operation, such as running sums, running maximums or composed operators.
+     * The elements are split into blocks. The first pass reduces the blocks concurrently, the second pass scans
+     * the blocks concurrently, each starting from the reduction of all the preceding blocks.
+     * The closure thus gets invoked about twice per element and must be associative, however, no identity element is needed.
+     * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>scanParallel(Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * Example:
+     * Parallelizer.withParallelizer {*     assert [3, 3, 4, 4, 5] == [3, 1, 4, 1, 5].scanParallel {a, b -> Math.max(a, b)}*}* @param cl An associative two-argument closure
+     * @return A new list, each element of which holds the reduction of the original elements up to and including the same position
+     */
+    public static <T> List<T> scanParallel(Collection<T> collection, Closure cl) {
+        final Object[] values = collection.toArray()
+        ParallelScan.scan(values, values.length, cl, retrievePool())
+        return values as ArrayList
+    }
+
+    /**
+     * Calculates concurrently the running reductions of the elements of the supplied collection/object using the supplied
+     * closure as an associative reduction operation, such as running sums, running maximums or composed operators.
+     * The elements are split into blocks. The first pass reduces the blocks concurrently, the second pass scans
+     * the blocks concurrently, each starting from the reduction of all the preceding blocks.
+     * The closure thus gets invoked about twice per element and must be associative, however, no identity element is needed.
+     * It's important to protect any shared resources used by the supplied closure from race conditions caused by multi-threaded access.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>scanParallel(Closure cl)</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * @param cl An associative two-argument closure
+     * @return A new list, each element of which holds the reduction of the original elements up to and including the same position
+     */
+    public static Object scanParallel(Object collection, Closure cl) {
+        return scanParallel(createCollection(collection), cl)
+    }
+
+    /**
+     * Calculates concurrently the running sums of the elements of the supplied collection/object using the + operator.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>cumulateParallel()</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * Example:
+     * Parallelizer.withParallelizer {*     assert [1, 3, 6, 10] == [1, 2, 3, 4].cumulateParallel()
+     *}* @return A new list, each element of which holds the sum of the original elements up to and including the same position
+     */
+    public static <T> List<T> cumulateParallel(Collection<T> collection) {
+        return scanParallel(collection, {a, b -> a + b})
+    }
+
+    /**
+     * Calculates concurrently the running sums of the elements of the supplied collection/object using the + operator.
+     * Alternatively a DSL can be used to simplify the code. All collections/objects within the <i>withParallelizer</i> block
+     * have a new <i>cumulateParallel()</i> method, which delegates to the <i>ParallelArrayUtil</i> class.
+     * @return A new list, each element of which holds the sum of the original elements up to and including the same position
+     */
+    public static Object cumulateParallel(Object collection) {
+        return cumulateParallel(createCollection(collection))
+    }
+
     /**
      * Creates a ParallelCollection around a ParallelArray wrapping te elements of the original collection.
      * This allows further parallel processing operations on the collection to chain and so effectively leverage the underlying
@@ -614,6 +872,91 @@ public class ParallelArrayUtil {
         return getParallel(createCollection(collection))
     }
 
+    /**
+     * Creates a lazy ParallelPipeline view of the elements of the original collection.
+     * The map(), filter() and flatMap() operations chained on the view get fused and run together in a single
+     * fork/join pass over the elements, once a terminal operation like reduce(), sum() or getCollection() is invoked.
+     * Unlike the methods of the ParallelArrayUtil class, the chain copies the collection only once and builds no intermediate collections.
+     * Example:
+     * Parallelizer.withParallelizer {*     assert 14 == [1, 2, 3, 4, 5].lazyParallel.filter {it > 2}.map {it * 2}.filter {it < 10}.sum()
+     *}*/
+    public static <T> ParallelPipeline<T> getLazyParallel(Collection<T> collection) {
+        new ParallelPipeline(collection, retrievePool())
+    }
+
+    /**
+     * Creates a lazy ParallelPipeline view of the elements of the original collection.
+     * The map(), filter() and flatMap() operations chained on the view get fused and run together in a single
+     * fork/join pass over the elements, once a terminal operation like reduce(), sum() or getCollection() is invoked.
+     * Unlike the methods of the ParallelArrayUtil class, the chain copies the collection only once and builds no intermediate collections.
+     */
+    public static Object getLazyParallel(Object collection) {
+        return getLazyParallel(createCollection(collection))
+    }
+
+    /**
+     * Creates a ParallelLongCollection holding the values of the supplied array.
+     * The values stay unboxed, so operations like sum(), min(), max(), sort() or cumulate() avoid boxing altogether.
+     * Example:
+     * Parallelizer.withParallelizer {*     assert 10 == ([1, 2, 3, 4] as int[]).longParallel.sum()
+     *}*/
+    public static ParallelLongCollection getLongParallel(int[] array) {
+        ParallelLongCollection.create(array, retrievePool())
+    }
+
+    /**
+     * Creates a ParallelLongCollection holding the values of the supplied array.
+     * The values stay unboxed, so operations like sum(), min(), max(), sort() or cumulate() avoid boxing altogether.
+     */
+    public static ParallelLongCollection getLongParallel(long[] array) {
+        ParallelLongCollection.create(array, retrievePool())
+    }
+
+    /**
+     * Creates a ParallelLongCollection holding the values of the supplied range, generating them in parallel without boxing.
+     * Example:
+     * Parallelizer.withParallelizer {*     assert 5050 == (1..100).longParallel.sum()
+     *}*/
+    public static ParallelLongCollection getLongParallel(IntRange range) {
+        final int size = range.size()
+        if (size == 0) return ParallelLongCollection.create(new long[0], retrievePool())
+        ParallelLongCollection.createSequence(range.get(0), range.reverse ? -1L : 1L, size, retrievePool())
+    }
+
+    /**
+     * Creates a ParallelLongCollection holding the values of the supplied collection/object, which must all be numbers.
+     * The values are unboxed once, when creating the collection.
+     */
+    public static ParallelLongCollection getLongParallel(Object collection) {
+        final Collection values = createCollection(collection)
+        final long[] array = new long[values.size()]
+        int index = 0
+        for (element in values) array[index++] = ((Number) element).longValue()
+        return ParallelLongCollection.create(array, retrievePool())
+    }
+
+    /**
+     * Creates a ParallelDoubleCollection holding the values of the supplied array.
+     * The values stay unboxed, so operations like sum(), min(), max(), sort() or cumulate() avoid boxing altogether.
+     * Example:
+     * Parallelizer.withParallelizer {*     assert 4.5d == ([1.5, 3.0] as double[]).doubleParallel.sum()
+     *}*/
+    public static ParallelDoubleCollection getDoubleParallel(double[] array) {
+        ParallelDoubleCollection.create(array, retrievePool())
+    }
+
+    /**
+     * Creates a ParallelDoubleCollection holding the values of the supplied collection/object, which must all be numbers.
+     * The values are unboxed once, when creating the collection.
+     */
+    public static ParallelDoubleCollection getDoubleParallel(Object collection) {
+        final Collection values = createCollection(collection)
+        final double[] array = new double[values.size()]
+        int index = 0
+        for (element in values) array[index++] = ((Number) element).doubleValue()
+        return ParallelDoubleCollection.create(array, retrievePool())
+    }
+
     /**
      * Builds a comparator depending on the number of arguments accepted by the supplied closure.
      */
@@ -746,7 +1089,7 @@ final class ParallelCollection<T> extends AbstractParallelCollection {
      */
     public ParallelCollection filter(Closure cl) {
         //We have to do it this way since WithFilter doesn't allow all of the operations we may need later
-        pa.withFilter({cl(it)} as Predicate).all().parallel
+        new ParallelCollection(pa.withFilter({cl(it)} as Predicate).all())
     }
 }
 
@@ -765,7 +1108,7 @@ final class MappedCollection<T> extends AbstractParallelCollection {
      * @return A collection holding the allowed values
      */
     public ParallelCollection filter(Closure cl) {
-        //We have to do it this suboptimal way since WithMapper doesn't support filter()
-        collection.parallel.filter(cl)
+        //WithMapping doesn't support filter(), so the mapped values get materialized into a ParallelArray first
+        new ParallelCollection(pa.all().withFilter({cl(it)} as Predicate).all())
     }
 }
@@ -0,0 +1,299 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars;
+
+import groovy.lang.Closure;
+import jsr166y.forkjoin.ForkJoinExecutor;
+import jsr166y.forkjoin.Ops;
+import jsr166y.forkjoin.ParallelDoubleArray;
+import org.codehaus.groovy.runtime.typehandling.DefaultTypeTransformation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Wraps a ParallelDoubleArray holding the values of a primitive double array or of a numeric collection.
+ * The values are kept unboxed. The sum(), min(), max(), sort() and cumulate() operations never box them,
+ * map(), filter(), reduce() and cumulate() avoid boxing when given the corresponding Ops interface implementation,
+ * the closure variants box the values passed to and returned from the closure.
+ * Consecutive map() and filter() operations get chained on the underlying ParallelDoubleArray without materializing
+ * intermediate arrays, wherever the ParallelDoubleArray API allows it.
+ * Instances are immutable, operations return new collections.
+ * <pre>
+ * Parallelizer.doParallel {
+ *     final double[] values = [0.5, 1.5, 2.5]
+ *     assert 4.0d == values.doubleParallel.filter {it > 1}.sum()
+ *     assert [0.5d, 2.0d, 4.5d] == values.doubleParallel.cumulate().collection
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class ParallelDoubleCollection {
+
+    /**
+     * The elements with all the pending map and filter operations applied
+     */
+    private final ParallelDoubleArray.WithDoubleMapping pa;
+
+    private ParallelDoubleCollection(final ParallelDoubleArray.WithDoubleMapping pa) {
+        this.pa = pa;
+    }
+
+    private ParallelDoubleCollection(final ParallelDoubleArray array) {
+        this(array.withBounds(0, array.size()));
+    }
+
+    /**
+     * Creates a collection holding a copy of the supplied values
+     *
+     * @param values The values to copy
+     * @param pool   The pool to perform the operations in
+     * @return The new collection
+     */
+    public static ParallelDoubleCollection create(final double[] values, final ForkJoinExecutor pool) {
+        return new ParallelDoubleCollection(ParallelDoubleArray.createFromCopy(values, pool));
+    }
+
+    /**
+     * Creates a collection holding an arithmetic sequence of values, generated in parallel
+     *
+     * @param from The first value
+     * @param step The difference between two consecutive values
+     * @param size The number of values
+     * @param pool The pool to perform the operations in
+     * @return The new collection
+     */
+    public static ParallelDoubleCollection createSequence(final double from, final double step, final int size, final ForkJoinExecutor pool) {
+        if (size < 0) throw new IllegalArgumentException("The size must not be negative, got " + size);
+        final ParallelDoubleArray array = ParallelDoubleArray.create(size, pool);
+        array.replaceWithMappedIndex(new Ops.MapperFromIntToDouble() {
+            public double map(final int index) {
+                return from + step * (double) index;
+            }
+        });
+        return new ParallelDoubleCollection(array);
+    }
+
+    /**
+     * Applies concurrently the supplied function to all elements in the collection
+     *
+     * @param mapper The function calculating a transformed value from the original one
+     * @return A collection holding the new values
+     */
+    public ParallelDoubleCollection map(final Ops.DoubleMapper mapper) {
+        return new ParallelDoubleCollection(pa.withMapping(mapper));
+    }
+
+    /**
+     * Applies concurrently the supplied closure to all elements in the collection
+     *
+     * @param cl A closure calculating a transformed value from the original one, the result gets converted to double
+     * @return A collection holding the new values
+     */
+    public ParallelDoubleCollection map(final Closure cl) {
+        return map(new Ops.DoubleMapper() {
+            public double map(final double value) {
+                return DefaultTypeTransformation.doubleUnbox(cl.call(value));
+            }
+        });
+    }
+
+    /**
+     * Filters concurrently elements in the collection based on the outcome of the supplied predicate on each of the elements
+     *
+     * @param predicate The predicate indicating whether to keep the given element
+     * @return A collection holding the allowed values
+     */
+    public ParallelDoubleCollection filter(final Ops.DoublePredicate predicate) {
+        if (pa instanceof ParallelDoubleArray.WithFilter)
+            return new ParallelDoubleCollection(((ParallelDoubleArray.WithFilter) pa).withFilter(predicate));
+        //WithDoubleMapping doesn't support filters, so the mapped values get materialized first
+        return new ParallelDoubleCollection(pa.all().withFilter(predicate));
+    }
+
+    /**
+     * Filters concurrently elements in the collection based on the outcome of the supplied closure on each of the elements
+     *
+     * @param cl A closure indicating whether to keep the given element
+     * @return A collection holding the allowed values
+     */
+    public ParallelDoubleCollection filter(final Closure cl) {
+        return filter(new Ops.DoublePredicate() {
+            public boolean evaluate(final double value) {
+                return DefaultTypeTransformation.castToBoolean(cl.call(value));
+            }
+        });
+    }
+
+    /**
+     * Performs a parallel reduce operation
+     *
+     * @param reducer An associative function merging two elements into one
+     * @param base    The identity of the reducer, such as 0 for addition, also the result for an empty collection
+     * @return The product of reduction
+     */
+    public double reduce(final Ops.DoubleReducer reducer, final double base) {
+        return pa.reduce(reducer, base);
+    }
+
+    /**
+     * Performs a parallel reduce operation using the supplied two-argument closure
+     *
+     * @param cl   An associative closure merging two elements into one
+     * @param base The identity of the closure, such as 0 for addition, also the result for an empty collection
+     * @return The product of reduction
+     */
+    public double reduce(final Closure cl, final double base) {
+        return reduce(createReducer(cl), base);
+    }
+
+    /**
+     * Performs a parallel reduce operation using the supplied two-argument closure, which needs no identity.
+     * Each task starts its reduction from its first element, so the values get boxed.
+     *
+     * @param cl An associative closure merging two elements into one
+     * @return The product of reduction, null for an empty collection
+     */
+    public Double reduce(final Closure cl) {
+        final Ops.DoubleReducer reducer = createReducer(cl);
+        return pa.withMapping(new Ops.MapperFromDouble<Double>() {
+            public Double map(final double value) {
+                return Double.valueOf(value);
+            }
+        }).reduce(new Ops.Reducer<Double>() {
+            public Double combine(final Double x, final Double y) {
+                if (x == null) return y;
+                if (y == null) return x;
+                return reducer.combine(x, y);
+            }
+        }, null);
+    }
+
+    /**
+     * @return The sum of all the elements, 0 for an empty collection
+     */
+    public double sum() {
+        return pa.sum();
+    }
+
+    /**
+     * @return The minimum of all the elements, Double.POSITIVE_INFINITY for an empty collection
+     */
+    public double min() {
+        return pa.min();
+    }
+
+    /**
+     * @return The maximum of all the elements, Double.NEGATIVE_INFINITY for an empty collection
+     */
+    public double max() {
+        return pa.max();
+    }
+
+    /**
+     * @return The number of elements in the collection
+     */
+    public int size() {
+        return pa.size();
+    }
+
+    /**
+     * Sorts the elements in parallel in their natural order
+     *
+     * @return A new collection holding the sorted values
+     */
+    public ParallelDoubleCollection sort() {
+        final ParallelDoubleArray array = pa.all();
+        array.sort();
+        return new ParallelDoubleCollection(array);
+    }
+
+    /**
+     * Sorts the elements in parallel using the supplied two-argument closure as the comparator
+     *
+     * @param cl The comparator closure
+     * @return A new collection holding the sorted values
+     */
+    public ParallelDoubleCollection sort(final Closure cl) {
+        final ParallelDoubleArray array = pa.all();
+        array.sort(new Ops.DoubleComparator() {
+            public int compare(final double x, final double y) {
+                return DefaultTypeTransformation.intUnbox(cl.call(new Object[]{x, y}));
+            }
+        });
+        return new ParallelDoubleCollection(array);
+    }
+
+    /**
+     * Calculates the running sums of the elements in parallel
+     *
+     * @return A new collection, each element of which holds the sum of the original elements up to and including the same position
+     */
+    public ParallelDoubleCollection cumulate() {
+        final ParallelDoubleArray array = pa.all();
+        array.cumulateSum();
+        return new ParallelDoubleCollection(array);
+    }
+
+    /**
+     * Calculates in parallel the running reductions of the elements using the supplied associative reducer,
+     * such as running sums, running maximums or composed operations
+     *
+     * @param reducer An associative function merging two elements into one, no identity is needed
+     * @return A new collection, each element of which holds the reduction of the original elements up to and including the same position
+     */
+    public ParallelDoubleCollection cumulate(final Ops.DoubleReducer reducer) {
+        final ParallelDoubleArray array = pa.all();
+        ParallelScan.scan(array.getArray(), array.size(), reducer, array.getExecutor());
+        return new ParallelDoubleCollection(array);
+    }
+
+    /**
+     * Calculates in parallel the running reductions of the elements using the supplied associative two-argument closure
+     *
+     * @param cl An associative closure merging two elements into one, the result gets converted to double
+     * @return A new collection, each element of which holds the reduction of the original elements up to and including the same position
+     */
+    public ParallelDoubleCollection cumulate(final Closure cl) {
+        return cumulate(createReducer(cl));
+    }
+
+    /**
+     * @return A new array holding the elements of the collection
+     */
+    public double[] toArray() {
+        final ParallelDoubleArray array = pa.all();
+        final double[] values = array.getArray();
+        return values.length == array.size() ? values : Arrays.copyOf(values, array.size());
+    }
+
+    /**
+     * @return A list of boxed elements of the collection
+     */
+    public List<Double> getCollection() {
+        return pa.all().asList();
+    }
+
+    private static Ops.DoubleReducer createReducer(final Closure cl) {
+        return new Ops.DoubleReducer() {
+            public double combine(final double x, final double y) {
+                return DefaultTypeTransformation.doubleUnbox(cl.call(new Object[]{x, y}));
+            }
+        };
+    }
+}
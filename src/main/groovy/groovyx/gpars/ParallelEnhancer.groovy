@@ -16,14 +16,13 @@
 
 package groovyx.gpars
 
-import groovyx.gpars.scheduler.FJPool
 import groovyx.gpars.scheduler.Pool
 
 /**
  * ParallelEnhancer allows classes or instances to be enhanced with parallel variants of iterative methods,
  * like eachParallel(), collectParallel(), findAllParallel() and others. These operations split processing into multiple
  * concurrently executable tasks and perform them on the underlying instance of the ForkJoinPool class from JSR-166y.
- * The pool itself is stored in a final property threadPool and can be managed through static methods
+ * The pool is the ForkJoinPool of the GParsRuntime, shared with other parts of GPars, and can be retrieved through static methods
  * on the ParallelEnhancer class.
  * All enhanced classes and instances will share the underlying pool. Use the getThreadPool() method to get hold of the thread pool.
  *
@@ -32,11 +31,6 @@ import groovyx.gpars.scheduler.Pool
  */
 public final class ParallelEnhancer {
 
-    /**
-     * Holds the internal ForkJoinPool instance wrapped into a FJPool
-     */
-    private final static FJPool threadPool = new FJPool()
-
     /**
      * Enhances a single instance by mixing-in an instance of Parallel.
      */
@@ -58,5 +52,7 @@ public final class ParallelEnhancer {
     /**
      * Retrieves the underlying pool
      */
-    public static Pool getThreadPool() { return threadPool }
+    public static Pool getThreadPool() {
+        return GParsRuntime.getPool(GParsRuntime.Subsystem.PARALLEL)
+    }
 }
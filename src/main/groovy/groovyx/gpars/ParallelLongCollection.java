@@ -0,0 +1,315 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars;
+
+import groovy.lang.Closure;
+import jsr166y.forkjoin.ForkJoinExecutor;
+import jsr166y.forkjoin.Ops;
+import jsr166y.forkjoin.ParallelLongArray;
+import org.codehaus.groovy.runtime.typehandling.DefaultTypeTransformation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Wraps a ParallelLongArray holding the values of a primitive int or long array or of a numeric range.
+ * The values are kept unboxed. The sum(), min(), max(), sort() and cumulate() operations never box them,
+ * map(), filter(), reduce() and cumulate() avoid boxing when given the corresponding Ops interface implementation,
+ * the closure variants box the values passed to and returned from the closure.
+ * Consecutive map() and filter() operations get chained on the underlying ParallelLongArray without materializing
+ * intermediate arrays, wherever the ParallelLongArray API allows it.
+ * Instances are immutable, operations return new collections.
+ * <pre>
+ * Parallelizer.doParallel {
+ *     assert 2500 == (1..100).longParallel.filter {it % 2 == 1}.sum()
+ *     assert [1, 3, 6, 10] == ([1, 2, 3, 4] as int[]).longParallel.cumulate().collection
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class ParallelLongCollection {
+
+    /**
+     * The elements with all the pending map and filter operations applied
+     */
+    private final ParallelLongArray.WithLongMapping pa;
+
+    private ParallelLongCollection(final ParallelLongArray.WithLongMapping pa) {
+        this.pa = pa;
+    }
+
+    private ParallelLongCollection(final ParallelLongArray array) {
+        this(array.withBounds(0, array.size()));
+    }
+
+    /**
+     * Creates a collection holding a copy of the supplied values
+     *
+     * @param values The values to copy
+     * @param pool   The pool to perform the operations in
+     * @return The new collection
+     */
+    public static ParallelLongCollection create(final long[] values, final ForkJoinExecutor pool) {
+        return new ParallelLongCollection(ParallelLongArray.createFromCopy(values, pool));
+    }
+
+    /**
+     * Creates a collection holding the widened values of the supplied int array
+     *
+     * @param values The values to copy
+     * @param pool   The pool to perform the operations in
+     * @return The new collection
+     */
+    public static ParallelLongCollection create(final int[] values, final ForkJoinExecutor pool) {
+        final ParallelLongArray array = ParallelLongArray.create(values.length, pool);
+        array.replaceWithMappedIndex(new Ops.MapperFromIntToLong() {
+            public long map(final int index) {
+                return (long) values[index];
+            }
+        });
+        return new ParallelLongCollection(array);
+    }
+
+    /**
+     * Creates a collection holding an arithmetic sequence of values, generated in parallel
+     *
+     * @param from The first value
+     * @param step The difference between two consecutive values
+     * @param size The number of values
+     * @param pool The pool to perform the operations in
+     * @return The new collection
+     */
+    public static ParallelLongCollection createSequence(final long from, final long step, final int size, final ForkJoinExecutor pool) {
+        if (size < 0) throw new IllegalArgumentException("The size must not be negative, got " + size);
+        final ParallelLongArray array = ParallelLongArray.create(size, pool);
+        array.replaceWithMappedIndex(new Ops.MapperFromIntToLong() {
+            public long map(final int index) {
+                return from + step * (long) index;
+            }
+        });
+        return new ParallelLongCollection(array);
+    }
+
+    /**
+     * Applies concurrently the supplied function to all elements in the collection
+     *
+     * @param mapper The function calculating a transformed value from the original one
+     * @return A collection holding the new values
+     */
+    public ParallelLongCollection map(final Ops.LongMapper mapper) {
+        return new ParallelLongCollection(pa.withMapping(mapper));
+    }
+
+    /**
+     * Applies concurrently the supplied closure to all elements in the collection
+     *
+     * @param cl A closure calculating a transformed value from the original one, the result gets converted to long
+     * @return A collection holding the new values
+     */
+    public ParallelLongCollection map(final Closure cl) {
+        return map(new Ops.LongMapper() {
+            public long map(final long value) {
+                return DefaultTypeTransformation.longUnbox(cl.call(value));
+            }
+        });
+    }
+
+    /**
+     * Filters concurrently elements in the collection based on the outcome of the supplied predicate on each of the elements
+     *
+     * @param predicate The predicate indicating whether to keep the given element
+     * @return A collection holding the allowed values
+     */
+    public ParallelLongCollection filter(final Ops.LongPredicate predicate) {
+        if (pa instanceof ParallelLongArray.WithFilter)
+            return new ParallelLongCollection(((ParallelLongArray.WithFilter) pa).withFilter(predicate));
+        //WithLongMapping doesn't support filters, so the mapped values get materialized first
+        return new ParallelLongCollection(pa.all().withFilter(predicate));
+    }
+
+    /**
+     * Filters concurrently elements in the collection based on the outcome of the supplied closure on each of the elements
+     *
+     * @param cl A closure indicating whether to keep the given element
+     * @return A collection holding the allowed values
+     */
+    public ParallelLongCollection filter(final Closure cl) {
+        return filter(new Ops.LongPredicate() {
+            public boolean evaluate(final long value) {
+                return DefaultTypeTransformation.castToBoolean(cl.call(value));
+            }
+        });
+    }
+
+    /**
+     * Performs a parallel reduce operation
+     *
+     * @param reducer An associative function merging two elements into one
+     * @param base    The identity of the reducer, such as 0 for addition, also the result for an empty collection
+     * @return The product of reduction
+     */
+    public long reduce(final Ops.LongReducer reducer, final long base) {
+        return pa.reduce(reducer, base);
+    }
+
+    /**
+     * Performs a parallel reduce operation using the supplied two-argument closure
+     *
+     * @param cl   An associative closure merging two elements into one
+     * @param base The identity of the closure, such as 0 for addition, also the result for an empty collection
+     * @return The product of reduction
+     */
+    public long reduce(final Closure cl, final long base) {
+        return reduce(createReducer(cl), base);
+    }
+
+    /**
+     * Performs a parallel reduce operation using the supplied two-argument closure, which needs no identity.
+     * Each task starts its reduction from its first element, so the values get boxed.
+     *
+     * @param cl An associative closure merging two elements into one
+     * @return The product of reduction, null for an empty collection
+     */
+    public Long reduce(final Closure cl) {
+        final Ops.LongReducer reducer = createReducer(cl);
+        return pa.withMapping(new Ops.MapperFromLong<Long>() {
+            public Long map(final long value) {
+                return Long.valueOf(value);
+            }
+        }).reduce(new Ops.Reducer<Long>() {
+            public Long combine(final Long x, final Long y) {
+                if (x == null) return y;
+                if (y == null) return x;
+                return reducer.combine(x, y);
+            }
+        }, null);
+    }
+
+    /**
+     * @return The sum of all the elements, 0 for an empty collection
+     */
+    public long sum() {
+        return pa.sum();
+    }
+
+    /**
+     * @return The minimum of all the elements, Long.MAX_VALUE for an empty collection
+     */
+    public long min() {
+        return pa.min();
+    }
+
+    /**
+     * @return The maximum of all the elements, Long.MIN_VALUE for an empty collection
+     */
+    public long max() {
+        return pa.max();
+    }
+
+    /**
+     * @return The number of elements in the collection
+     */
+    public int size() {
+        return pa.size();
+    }
+
+    /**
+     * Sorts the elements in parallel in their natural order
+     *
+     * @return A new collection holding the sorted values
+     */
+    public ParallelLongCollection sort() {
+        final ParallelLongArray array = pa.all();
+        array.sort();
+        return new ParallelLongCollection(array);
+    }
+
+    /**
+     * Sorts the elements in parallel using the supplied two-argument closure as the comparator
+     *
+     * @param cl The comparator closure
+     * @return A new collection holding the sorted values
+     */
+    public ParallelLongCollection sort(final Closure cl) {
+        final ParallelLongArray array = pa.all();
+        array.sort(new Ops.LongComparator() {
+            public int compare(final long x, final long y) {
+                return DefaultTypeTransformation.intUnbox(cl.call(new Object[]{x, y}));
+            }
+        });
+        return new ParallelLongCollection(array);
+    }
+
+    /**
+     * Calculates the running sums of the elements in parallel
+     *
+     * @return A new collection, each element of which holds the sum of the original elements up to and including the same position
+     */
+    public ParallelLongCollection cumulate() {
+        final ParallelLongArray array = pa.all();
+        array.cumulateSum();
+        return new ParallelLongCollection(array);
+    }
+
+    /**
+     * Calculates in parallel the running reductions of the elements using the supplied associative reducer,
+     * such as running sums, running maximums or composed operations
+     *
+     * @param reducer An associative function merging two elements into one, no identity is needed
+     * @return A new collection, each element of which holds the reduction of the original elements up to and including the same position
+     */
+    public ParallelLongCollection cumulate(final Ops.LongReducer reducer) {
+        final ParallelLongArray array = pa.all();
+        ParallelScan.scan(array.getArray(), array.size(), reducer, array.getExecutor());
+        return new ParallelLongCollection(array);
+    }
+
+    /**
+     * Calculates in parallel the running reductions of the elements using the supplied associative two-argument closure
+     *
+     * @param cl An associative closure merging two elements into one, the result gets converted to long
+     * @return A new collection, each element of which holds the reduction of the original elements up to and including the same position
+     */
+    public ParallelLongCollection cumulate(final Closure cl) {
+        return cumulate(createReducer(cl));
+    }
+
+    /**
+     * @return A new array holding the elements of the collection
+     */
+    public long[] toArray() {
+        final ParallelLongArray array = pa.all();
+        final long[] values = array.getArray();
+        return values.length == array.size() ? values : Arrays.copyOf(values, array.size());
+    }
+
+    /**
+     * @return A list of boxed elements of the collection
+     */
+    public List<Long> getCollection() {
+        return pa.all().asList();
+    }
+
+    private static Ops.LongReducer createReducer(final Closure cl) {
+        return new Ops.LongReducer() {
+            public long combine(final long x, final long y) {
+                return DefaultTypeTransformation.longUnbox(cl.call(new Object[]{x, y}));
+            }
+        };
+    }
+}
@@ -0,0 +1,150 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars;
+
+import jsr166y.forkjoin.ForkJoinExecutor;
+import jsr166y.forkjoin.RecursiveAction;
+
+import java.util.Comparator;
+
+/**
+ * Merges two sorted arrays into a single sorted array in a fork/join pool.
+ * The middle element of the longer of the two arrays splits it into halves, the other array is split at the position
+ * the middle element would be inserted at, and the two pairs of halves then get merged concurrently into the two disjoint
+ * parts of the target array.
+ * The merge is stable - of two equal elements the one from the first array comes first.
+ *
+ * @author agent
+ */
+final class ParallelMerge {
+
+    /**
+     * The number of merge tasks to create for each thread in the pool, to balance the load among the threads
+     */
+    private static final int TASKS_PER_THREAD = 8;
+
+    private ParallelMerge() {
+    }
+
+    /**
+     * Merges the two sorted arrays
+     *
+     * @param first      The first sorted array
+     * @param second     The second sorted array
+     * @param comparator The comparator the two arrays have been sorted with
+     * @param pool       The pool to perform the merge in
+     * @return A new sorted array holding the elements of both arrays
+     */
+    static Object[] merge(final Object[] first, final Object[] second, final Comparator<Object> comparator, final ForkJoinExecutor pool) {
+        final Object[] target = new Object[first.length + second.length];
+        if (target.length == 0) return target;
+        final int threshold = Math.max(1, target.length / (pool.getParallelismLevel() * TASKS_PER_THREAD));
+        pool.invoke(new MergeTask(first, 0, first.length, second, 0, second.length, target, 0, comparator, threshold));
+        return target;
+    }
+
+    private static final class MergeTask extends RecursiveAction {
+        private final Object[] first;
+        private final int firstFrom;
+        private final int firstTo;
+        private final Object[] second;
+        private final int secondFrom;
+        private final int secondTo;
+        private final Object[] target;
+        private final int targetFrom;
+        private final Comparator<Object> comparator;
+        private final int threshold;
+
+        @SuppressWarnings({"ConstructorWithTooManyParameters"})
+        private MergeTask(final Object[] first, final int firstFrom, final int firstTo,
+                          final Object[] second, final int secondFrom, final int secondTo,
+                          final Object[] target, final int targetFrom, final Comparator<Object> comparator, final int threshold) {
+            this.first = first;
+            this.firstFrom = firstFrom;
+            this.firstTo = firstTo;
+            this.second = second;
+            this.secondFrom = secondFrom;
+            this.secondTo = secondTo;
+            this.target = target;
+            this.targetFrom = targetFrom;
+            this.comparator = comparator;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            final int firstLength = firstTo - firstFrom;
+            final int secondLength = secondTo - secondFrom;
+            if (firstLength + secondLength <= threshold) {
+                mergeSequentially();
+                return;
+            }
+
+            final int firstSplit;
+            final int secondSplit;
+            final Object pivot;
+            if (firstLength >= secondLength) {
+                firstSplit = (firstFrom + firstTo) >>> 1;
+                pivot = first[firstSplit];
+                secondSplit = search(second, secondFrom, secondTo, pivot, false);
+            } else {
+                secondSplit = (secondFrom + secondTo) >>> 1;
+                pivot = second[secondSplit];
+                firstSplit = search(first, firstFrom, firstTo, pivot, true);
+            }
+            final int pivotPosition = targetFrom + firstSplit - firstFrom + secondSplit - secondFrom;
+            target[pivotPosition] = pivot;
+
+            //the pivot itself is excluded from the half it has been taken from
+            final boolean pivotFromFirst = firstLength >= secondLength;
+            forkJoin(
+                    new MergeTask(first, firstFrom, firstSplit, second, secondFrom, secondSplit, target, targetFrom, comparator, threshold),
+                    new MergeTask(first, pivotFromFirst ? firstSplit + 1 : firstSplit, firstTo,
+                            second, pivotFromFirst ? secondSplit : secondSplit + 1, secondTo,
+                            target, pivotPosition + 1, comparator, threshold));
+        }
+
+        private void mergeSequentially() {
+            int i = firstFrom;
+            int j = secondFrom;
+            int k = targetFrom;
+            while (i < firstTo && j < secondTo) {
+                if (comparator.compare(first[i], second[j]) <= 0) target[k++] = first[i++];
+                else target[k++] = second[j++];
+            }
+            while (i < firstTo) target[k++] = first[i++];
+            while (j < secondTo) target[k++] = second[j++];
+        }
+
+        /**
+         * Finds the position to split the sorted range at.
+         *
+         * @param inclusive If true, elements equal to the pivot stay below the returned position, otherwise they get above it
+         */
+        private int search(final Object[] array, final int from, final int to, final Object pivot, final boolean inclusive) {
+            int low = from;
+            int high = to;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                final int result = comparator.compare(array[middle], pivot);
+                if (result < 0 || (inclusive && result == 0)) low = middle + 1;
+                else high = middle;
+            }
+            return low;
+        }
+    }
+}
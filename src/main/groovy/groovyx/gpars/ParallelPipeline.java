@@ -0,0 +1,714 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars;
+
+import groovy.lang.Closure;
+import jsr166y.forkjoin.ForkJoinExecutor;
+import jsr166y.forkjoin.RecursiveTask;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.codehaus.groovy.runtime.typehandling.DefaultTypeTransformation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A lazy parallel view of a collection. The map(), filter() and flatMap() operations only record a new stage
+ * of the pipeline and return a new view, the source collection is not touched until a terminal operation,
+ * like reduce(), sum(), min(), groupBy(), fold() or getCollection(), gets invoked.
+ * The terminal operation then runs all the recorded stages as a single fork/join pass over the elements,
+ * each element flowing through the whole chain of stages at once. The source collection is copied only once,
+ * when the view is created, and no intermediate collections get built between the stages.
+ * The find(), any() and every() operations stop processing the remaining elements as soon as the answer is known.
+ * Views are immutable and can be shared among threads. The relative order of elements is preserved by getCollection().
+ * <pre>
+ * Parallelizer.doParallel {
+ *     assert 14 == [1, 2, 3, 4, 5].lazyParallel.filter {it > 2}.map {it * 2}.filter {it < 10}.sum()
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class ParallelPipeline<T> {
+
+    /**
+     * The number of leaf tasks to create per thread of the pool, to balance the load of uneven stages
+     */
+    private static final int TASKS_PER_THREAD = 8;
+
+    private final Object[] source;
+    private final ForkJoinExecutor pool;
+    private final Stage[] stages;
+
+    /**
+     * Creates a view over the elements of the collection
+     *
+     * @param collection The source collection, which gets copied
+     * @param pool       The pool to run the terminal operations in
+     */
+    public ParallelPipeline(final Collection<T> collection, final ForkJoinExecutor pool) {
+        this(collection.toArray(), pool, new Stage[0]);
+    }
+
+    private ParallelPipeline(final Object[] source, final ForkJoinExecutor pool, final Stage[] stages) {
+        if (pool == null) throw new IllegalArgumentException("A ForkJoinPool must be provided to run the pipeline");
+        this.source = source;
+        this.pool = pool;
+        this.stages = stages;
+    }
+
+    /**
+     * Adds a transformation stage
+     *
+     * @param cl A closure calculating a transformed value from the original one
+     * @return A new view with the stage appended
+     */
+    public ParallelPipeline map(final Closure cl) {
+        return append(new Stage() {
+            Sink wrap(final Sink downstream) {
+                return new Sink() {
+                    void accept(final Object element) {
+                        downstream.accept(cl.call(element));
+                    }
+                };
+            }
+        });
+    }
+
+    /**
+     * Adds a filtering stage
+     *
+     * @param cl A closure indicating whether to propagate the given element further down the pipeline
+     * @return A new view with the stage appended
+     */
+    public ParallelPipeline<T> filter(final Closure cl) {
+        return append(new Stage() {
+            Sink wrap(final Sink downstream) {
+                return new Sink() {
+                    void accept(final Object element) {
+                        if (DefaultTypeTransformation.castToBoolean(cl.call(element))) downstream.accept(element);
+                    }
+                };
+            }
+        });
+    }
+
+    /**
+     * Adds a stage replacing each element with all the elements of the collection (or any other iterable object)
+     * returned from the supplied closure. A null result produces no elements.
+     *
+     * @param cl A closure returning the elements to replace the original element with
+     * @return A new view with the stage appended
+     */
+    public ParallelPipeline flatMap(final Closure cl) {
+        return append(new Stage() {
+            Sink wrap(final Sink downstream) {
+                return new Sink() {
+                    void accept(final Object element) {
+                        final Object result = cl.call(element);
+                        if (result == null) return;
+                        for (final Iterator<Object> iterator = InvokerHelper.asIterator(result); iterator.hasNext();) {
+                            downstream.accept(iterator.next());
+                        }
+                    }
+                };
+            }
+        });
+    }
+
+    /**
+     * Runs the pipeline and collects the resulting elements
+     *
+     * @return A new list holding the elements in the order of the source collection
+     */
+    public List<Object> getCollection() {
+        return (List<Object>) evaluate(new AccumulatorFactory() {
+            public Accumulator create() {
+                return new ListAccumulator();
+            }
+        });
+    }
+
+    /**
+     * Runs the pipeline performing a parallel reduce operation on the resulting elements
+     *
+     * @param cl A two-argument closure merging two elements into one
+     * @return The product of reduction, null if no elements have been produced
+     */
+    public Object reduce(final Closure cl) {
+        return evaluate(new AccumulatorFactory() {
+            public Accumulator create() {
+                return new ReduceAccumulator() {
+                    Object merge(final Object a, final Object b) {
+                        return cl.call(new Object[]{a, b});
+                    }
+                };
+            }
+        });
+    }
+
+    /**
+     * Runs the pipeline summarizing the resulting elements using their "plus()" operator
+     *
+     * @return The summary of all the elements, null if no elements have been produced
+     */
+    public Object sum() {
+        return evaluate(new AccumulatorFactory() {
+            public Accumulator create() {
+                return new ReduceAccumulator() {
+                    Object merge(final Object a, final Object b) {
+                        return InvokerHelper.invokeMethod(a, "plus", b);
+                    }
+                };
+            }
+        });
+    }
+
+    /**
+     * Runs the pipeline finding the minimum of the resulting elements. The implicit comparator is used.
+     *
+     * @return The minimum element, null if no elements have been produced
+     */
+    public Object min() {
+        return select(createComparator(null), -1);
+    }
+
+    /**
+     * Runs the pipeline finding the minimum of the resulting elements. The supplied comparator is used.
+     * If the supplied closure takes two arguments it is used directly as a comparator.
+     * If the supplied closure takes one argument, the values returned by the supplied closure for individual elements are used for comparison by the implicit comparator.
+     *
+     * @param cl A one or two-argument closure
+     * @return The minimum element, null if no elements have been produced
+     */
+    public Object min(final Closure cl) {
+        return select(createComparator(cl), -1);
+    }
+
+    /**
+     * Runs the pipeline finding the maximum of the resulting elements. The implicit comparator is used.
+     *
+     * @return The maximum element, null if no elements have been produced
+     */
+    public Object max() {
+        return select(createComparator(null), 1);
+    }
+
+    /**
+     * Runs the pipeline finding the maximum of the resulting elements. The supplied comparator is used.
+     * If the supplied closure takes two arguments it is used directly as a comparator.
+     * If the supplied closure takes one argument, the values returned by the supplied closure for individual elements are used for comparison by the implicit comparator.
+     *
+     * @param cl A one or two-argument closure
+     * @return The maximum element, null if no elements have been produced
+     */
+    public Object max(final Closure cl) {
+        return select(createComparator(cl), 1);
+    }
+
+    /**
+     * Runs the pipeline counting the resulting elements
+     *
+     * @return The number of elements produced by the pipeline
+     */
+    public int size() {
+        return (Integer) evaluate(new AccumulatorFactory() {
+            public Accumulator create() {
+                return new CountAccumulator();
+            }
+        });
+    }
+
+    /**
+     * Runs the pipeline grouping the resulting elements by the value the supplied closure returns for them.
+     * Each leaf task groups its elements into its own map, the partial maps get merged when the tasks are joined.
+     *
+     * @param cl A closure calculating the group key of an element
+     * @return A map of lists holding the elements of each group in the order of the source collection
+     */
+    public Map<Object, List<Object>> groupBy(final Closure cl) {
+        return (Map<Object, List<Object>>) evaluate(new AccumulatorFactory() {
+            public Accumulator create() {
+                return new GroupAccumulator(cl);
+            }
+        });
+    }
+
+    /**
+     * Runs the pipeline grouping the resulting elements by the value the supplied closure returns for them
+     * and reducing the elements of each group using the supplied reducer, so no lists of elements get built
+     *
+     * @param cl      A closure calculating the group key of an element
+     * @param reducer An associative two-argument closure merging two elements of the same group into one
+     * @return A map holding the reduced value of each group
+     */
+    public Map<Object, Object> groupBy(final Closure cl, final Closure reducer) {
+        return (Map<Object, Object>) evaluate(new AccumulatorFactory() {
+            public Accumulator create() {
+                return new GroupReduceAccumulator(cl) {
+                    Object merge(final Object a, final Object b) {
+                        return reducer.call(new Object[]{a, b});
+                    }
+                };
+            }
+        });
+    }
+
+    /**
+     * Runs the pipeline counting the resulting elements in each of the groups determined by the supplied closure
+     *
+     * @param cl A closure calculating the group key of an element
+     * @return A map holding the number of elements in each group
+     */
+    public Map<Object, Integer> countBy(final Closure cl) {
+        return (Map<Object, Integer>) evaluate(new AccumulatorFactory() {
+            public Accumulator create() {
+                return new CountByAccumulator(cl);
+            }
+        });
+    }
+
+    /**
+     * Runs the pipeline folding the resulting elements into containers, which may be of a different type than the elements.
+     * Each leaf task folds its elements into its own container using the accumulator closure,
+     * the containers then get merged pairwise using the combiner closure when the tasks are joined.
+     * Mutable containers, such as a StringBuilder or a histogram array, can thus be updated in place without any locking.
+     *
+     * @param seed        A closure creating a new empty container, invoked once for each leaf task,
+     *                    or an immutable initial value shared by all leaf tasks, such as 0 or an empty string
+     * @param accumulator A two-argument closure folding an element (second argument) into a container (first argument),
+     *                    returning the updated container
+     * @param combiner    An associative two-argument closure merging two containers, returning the merged container
+     * @return The container holding all the resulting elements, a new empty container for an empty pipeline
+     */
+    public Object fold(final Object seed, final Closure accumulator, final Closure combiner) {
+        return evaluate(new AccumulatorFactory() {
+            public Accumulator create() {
+                return new FoldAccumulator(seed instanceof Closure ? ((Closure) seed).call() : seed, accumulator, combiner);
+            }
+        });
+    }
+
+    /**
+     * Runs the pipeline looking for an element, which satisfies the supplied closure.
+     * The evaluation stops as soon as such an element has been found.
+     *
+     * @param cl A closure indicating whether the element is the one to look for
+     * @return Any of the matching elements, not necessarily the first one, null if there's none
+     */
+    public Object find(final Closure cl) {
+        final SearchFactory factory = new SearchFactory();
+        filter(cl).evaluate(factory);
+        return factory.value;
+    }
+
+    /**
+     * Runs the pipeline checking whether at least one of the resulting elements satisfies the supplied closure.
+     * The evaluation stops as soon as a matching element has been found.
+     *
+     * @param cl A closure returning true for the matching elements
+     * @return True, if a matching element has been found
+     */
+    public boolean any(final Closure cl) {
+        final SearchFactory factory = new SearchFactory();
+        filter(cl).evaluate(factory);
+        return factory.found.get();
+    }
+
+    /**
+     * Runs the pipeline checking whether all the resulting elements satisfy the supplied closure.
+     * The evaluation stops as soon as an element not satisfying the closure has been found.
+     *
+     * @param cl A closure returning true for the matching elements
+     * @return True, if no element failed the closure
+     */
+    public boolean every(final Closure cl) {
+        final SearchFactory factory = new SearchFactory();
+        append(new Stage() {
+            Sink wrap(final Sink downstream) {
+                return new Sink() {
+                    void accept(final Object element) {
+                        if (!DefaultTypeTransformation.castToBoolean(cl.call(element))) downstream.accept(element);
+                    }
+                };
+            }
+        }).evaluate(factory);
+        return !factory.found.get();
+    }
+
+    /**
+     * Runs the pipeline invoking the supplied closure concurrently on each of the resulting elements
+     *
+     * @param cl The closure to invoke
+     */
+    public void each(final Closure cl) {
+        map(cl).size();
+    }
+
+    private ParallelPipeline append(final Stage stage) {
+        final Stage[] newStages = Arrays.copyOf(stages, stages.length + 1);
+        newStages[stages.length] = stage;
+        return new ParallelPipeline(source, pool, newStages);
+    }
+
+    private Object select(final Comparator<Object> comparator, final int sign) {
+        return evaluate(new AccumulatorFactory() {
+            public Accumulator create() {
+                return new ReduceAccumulator() {
+                    Object merge(final Object a, final Object b) {
+                        return comparator.compare(a, b) * sign >= 0 ? a : b;
+                    }
+                };
+            }
+        });
+    }
+
+    private static Comparator<Object> createComparator(final Closure handler) {
+        if (handler == null) return new Comparator<Object>() {
+            public int compare(final Object o1, final Object o2) {
+                return DefaultTypeTransformation.compareTo(o1, o2);
+            }
+        };
+        if (handler.getMaximumNumberOfParameters() == 2) return new Comparator<Object>() {
+            public int compare(final Object o1, final Object o2) {
+                return DefaultTypeTransformation.intUnbox(handler.call(new Object[]{o1, o2}));
+            }
+        };
+        return new Comparator<Object>() {
+            public int compare(final Object o1, final Object o2) {
+                return DefaultTypeTransformation.compareTo(handler.call(o1), handler.call(o2));
+            }
+        };
+    }
+
+    /**
+     * Runs all the stages over the source elements in a single fork/join pass
+     */
+    private Object evaluate(final AccumulatorFactory factory) {
+        if (source.length == 0) return factory.create().getResult();
+        final int threshold = Math.max(1, source.length / (pool.getParallelismLevel() * TASKS_PER_THREAD));
+        return pool.invoke(new PipelineTask(factory, threshold, 0, source.length)).getResult();
+    }
+
+    /**
+     * Builds the fused chain of stages ending with the supplied sink
+     */
+    private Sink wrap(final Sink terminal) {
+        Sink sink = terminal;
+        for (int i = stages.length - 1; i >= 0; i--) {
+            sink = stages[i].wrap(sink);
+        }
+        return sink;
+    }
+
+    /**
+     * Splits the range of source elements, pushing the elements of each leaf range through the whole pipeline
+     */
+    private final class PipelineTask extends RecursiveTask<Accumulator> {
+        private final AccumulatorFactory factory;
+        private final int threshold;
+        private final int from;
+        private final int to;
+
+        private PipelineTask(final AccumulatorFactory factory, final int threshold, final int from, final int to) {
+            this.factory = factory;
+            this.threshold = threshold;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (factory.isFinished()) return factory.create();
+            if (to - from <= threshold) {
+                final Accumulator accumulator = factory.create();
+                final Sink sink = wrap(accumulator);
+                for (int i = from; i < to && !factory.isFinished(); i++) {
+                    sink.accept(source[i]);
+                }
+                return accumulator;
+            }
+            final int middle = (from + to) >>> 1;
+            final PipelineTask right = new PipelineTask(factory, threshold, middle, to);
+            right.fork();
+            final Accumulator result = new PipelineTask(factory, threshold, from, middle).forkJoin();
+            result.combine(right.join());
+            return result;
+        }
+    }
+
+    /**
+     * A stage of the pipeline
+     */
+    private abstract static class Stage {
+        /**
+         * Creates a sink processing an element and passing the results on to the downstream sink
+         */
+        abstract Sink wrap(final Sink downstream);
+    }
+
+    /**
+     * Receives elements flowing through the pipeline
+     */
+    private abstract static class Sink {
+        abstract void accept(final Object element);
+    }
+
+    /**
+     * The terminal sink of a leaf task. Accumulators of neighbouring ranges get combined in the order of the ranges.
+     */
+    private abstract static class Accumulator extends Sink {
+        /**
+         * Merges the result of the range following the range of the current accumulator
+         */
+        abstract void combine(final Accumulator other);
+
+        abstract Object getResult();
+    }
+
+    private abstract static class AccumulatorFactory {
+        abstract Accumulator create();
+
+        /**
+         * Indicates that the result is already known, so the remaining elements don't need to be processed
+         */
+        boolean isFinished() {
+            return false;
+        }
+    }
+
+    /**
+     * Remembers the first element reaching the end of the pipeline and stops the evaluation
+     */
+    private static final class SearchFactory extends AccumulatorFactory {
+        private final AtomicBoolean found = new AtomicBoolean(false);
+        private volatile Object value = null;
+
+        Accumulator create() {
+            return new Accumulator() {
+                void accept(final Object element) {
+                    if (found.compareAndSet(false, true)) value = element;
+                }
+
+                void combine(final Accumulator other) {
+                }
+
+                Object getResult() {
+                    return value;
+                }
+            };
+        }
+
+        @Override
+        boolean isFinished() {
+            return found.get();
+        }
+    }
+
+    /**
+     * Keeps the lists of the leaf tasks apart while the tasks get joined and only concatenates them once at the end,
+     * so that each element gets copied once instead of once per level of the task tree
+     */
+    private static final class ListAccumulator extends Accumulator {
+        private final List<List<Object>> chunks = new ArrayList<List<Object>>();
+        private final List<Object> elements = new ArrayList<Object>();
+
+        private ListAccumulator() {
+            chunks.add(elements);
+        }
+
+        void accept(final Object element) {
+            elements.add(element);
+        }
+
+        void combine(final Accumulator other) {
+            chunks.addAll(((ListAccumulator) other).chunks);
+        }
+
+        Object getResult() {
+            if (chunks.size() == 1) return elements;
+            int size = 0;
+            for (final List<Object> chunk : chunks) size += chunk.size();
+            final List<Object> result = new ArrayList<Object>(size);
+            for (final List<Object> chunk : chunks) result.addAll(chunk);
+            return result;
+        }
+    }
+
+    private static final class CountAccumulator extends Accumulator {
+        private int count = 0;
+
+        void accept(final Object element) {
+            count++;
+        }
+
+        void combine(final Accumulator other) {
+            count += ((CountAccumulator) other).count;
+        }
+
+        Object getResult() {
+            return count;
+        }
+    }
+
+    private static final class GroupAccumulator extends Accumulator {
+        private final Closure keyFunction;
+        private final Map<Object, List<Object>> groups = new LinkedHashMap<Object, List<Object>>();
+
+        private GroupAccumulator(final Closure keyFunction) {
+            this.keyFunction = keyFunction;
+        }
+
+        void accept(final Object element) {
+            final Object key = keyFunction.call(element);
+            List<Object> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayList<Object>();
+                groups.put(key, group);
+            }
+            group.add(element);
+        }
+
+        void combine(final Accumulator other) {
+            for (final Map.Entry<Object, List<Object>> entry : ((GroupAccumulator) other).groups.entrySet()) {
+                final List<Object> group = groups.get(entry.getKey());
+                if (group == null) groups.put(entry.getKey(), entry.getValue());
+                else group.addAll(entry.getValue());
+            }
+        }
+
+        Object getResult() {
+            return groups;
+        }
+    }
+
+    private abstract static class GroupReduceAccumulator extends Accumulator {
+        private final Closure keyFunction;
+        private final Map<Object, Object> values = new LinkedHashMap<Object, Object>();
+
+        private GroupReduceAccumulator(final Closure keyFunction) {
+            this.keyFunction = keyFunction;
+        }
+
+        abstract Object merge(final Object a, final Object b);
+
+        void accept(final Object element) {
+            add(keyFunction.call(element), element);
+        }
+
+        private void add(final Object key, final Object value) {
+            if (values.containsKey(key)) values.put(key, merge(values.get(key), value));
+            else values.put(key, value);
+        }
+
+        void combine(final Accumulator other) {
+            for (final Map.Entry<Object, Object> entry : ((GroupReduceAccumulator) other).values.entrySet()) {
+                add(entry.getKey(), entry.getValue());
+            }
+        }
+
+        Object getResult() {
+            return values;
+        }
+    }
+
+    private static final class CountByAccumulator extends Accumulator {
+        private final Closure keyFunction;
+        private final Map<Object, int[]> counts = new LinkedHashMap<Object, int[]>();
+
+        private CountByAccumulator(final Closure keyFunction) {
+            this.keyFunction = keyFunction;
+        }
+
+        void accept(final Object element) {
+            add(keyFunction.call(element), 1);
+        }
+
+        private void add(final Object key, final int count) {
+            final int[] counter = counts.get(key);
+            if (counter == null) counts.put(key, new int[]{count});
+            else counter[0] += count;
+        }
+
+        void combine(final Accumulator other) {
+            for (final Map.Entry<Object, int[]> entry : ((CountByAccumulator) other).counts.entrySet()) {
+                add(entry.getKey(), entry.getValue()[0]);
+            }
+        }
+
+        Object getResult() {
+            final Map<Object, Integer> result = new LinkedHashMap<Object, Integer>(counts.size() * 2);
+            for (final Map.Entry<Object, int[]> entry : counts.entrySet()) {
+                result.put(entry.getKey(), entry.getValue()[0]);
+            }
+            return result;
+        }
+    }
+
+    private static final class FoldAccumulator extends Accumulator {
+        private Object container;
+        private final Closure accumulator;
+        private final Closure combiner;
+
+        private FoldAccumulator(final Object container, final Closure accumulator, final Closure combiner) {
+            this.container = container;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        void accept(final Object element) {
+            container = accumulator.call(new Object[]{container, element});
+        }
+
+        void combine(final Accumulator other) {
+            container = combiner.call(new Object[]{container, ((FoldAccumulator) other).container});
+        }
+
+        Object getResult() {
+            return container;
+        }
+    }
+
+    private abstract static class ReduceAccumulator extends Accumulator {
+        private Object value = null;
+        private boolean empty = true;
+
+        abstract Object merge(final Object a, final Object b);
+
+        void accept(final Object element) {
+            if (empty) {
+                value = element;
+                empty = false;
+            } else value = merge(value, element);
+        }
+
+        void combine(final Accumulator other) {
+            final ReduceAccumulator accumulator = (ReduceAccumulator) other;
+            if (!accumulator.empty) accept(accumulator.value);
+        }
+
+        Object getResult() {
+            return value;
+        }
+    }
+}
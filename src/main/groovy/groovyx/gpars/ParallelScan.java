@@ -0,0 +1,202 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars;
+
+import groovy.lang.Closure;
+import jsr166y.forkjoin.ForkJoinExecutor;
+import jsr166y.forkjoin.Ops;
+import jsr166y.forkjoin.RecursiveAction;
+
+/**
+ * Calculates in a fork/join pool the inclusive prefix scan of an array, replacing each element with the reduction
+ * of all the elements up to and including its position, using an associative reduction operation.
+ * The array is split into blocks and processed in two parallel passes. The first pass reduces each block to its total,
+ * then the block totals get turned into the prefixes preceding each block, which only takes a few operations per thread,
+ * and the second pass scans each block starting from its prefix.
+ * The scan is performed in place and only relies on associativity of the operation, no identity element is needed.
+ *
+ * @author agent
+ */
+final class ParallelScan {
+
+    /**
+     * The number of blocks to split the array into for each thread in the pool, to balance the load among the threads
+     */
+    private static final int BLOCKS_PER_THREAD = 8;
+
+    private ParallelScan() {
+    }
+
+    /**
+     * Scans the first size elements of the supplied array in place
+     *
+     * @param values The elements to scan
+     * @param size   The number of elements to scan
+     * @param cl     An associative two-argument closure
+     * @param pool   The pool to perform the scan in
+     */
+    static void scan(final Object[] values, final int size, final Closure cl, final ForkJoinExecutor pool) {
+        new Scan(size, pool) {
+            private final Object[] totals = new Object[blockCount];
+
+            void reduceBlock(final int block, final int from, final int to) {
+                Object total = values[from];
+                for (int i = from + 1; i < to; i++) total = cl.call(new Object[]{total, values[i]});
+                totals[block] = total;
+            }
+
+            void accumulateTotals() {
+                for (int block = 1; block < blockCount - 1; block++) {
+                    totals[block] = cl.call(new Object[]{totals[block - 1], totals[block]});
+                }
+            }
+
+            void scanBlock(final int block, final int from, final int to) {
+                if (block > 0) values[from] = cl.call(new Object[]{totals[block - 1], values[from]});
+                for (int i = from + 1; i < to; i++) values[i] = cl.call(new Object[]{values[i - 1], values[i]});
+            }
+        }.run(pool);
+    }
+
+    /**
+     * Scans the first size elements of the supplied array in place
+     *
+     * @param values  The elements to scan
+     * @param size    The number of elements to scan
+     * @param reducer An associative reduction operation
+     * @param pool    The pool to perform the scan in
+     */
+    static void scan(final long[] values, final int size, final Ops.LongReducer reducer, final ForkJoinExecutor pool) {
+        new Scan(size, pool) {
+            private final long[] totals = new long[blockCount];
+
+            void reduceBlock(final int block, final int from, final int to) {
+                long total = values[from];
+                for (int i = from + 1; i < to; i++) total = reducer.combine(total, values[i]);
+                totals[block] = total;
+            }
+
+            void accumulateTotals() {
+                for (int block = 1; block < blockCount - 1; block++) {
+                    totals[block] = reducer.combine(totals[block - 1], totals[block]);
+                }
+            }
+
+            void scanBlock(final int block, final int from, final int to) {
+                if (block > 0) values[from] = reducer.combine(totals[block - 1], values[from]);
+                for (int i = from + 1; i < to; i++) values[i] = reducer.combine(values[i - 1], values[i]);
+            }
+        }.run(pool);
+    }
+
+    /**
+     * Scans the first size elements of the supplied array in place
+     *
+     * @param values  The elements to scan
+     * @param size    The number of elements to scan
+     * @param reducer An associative reduction operation
+     * @param pool    The pool to perform the scan in
+     */
+    static void scan(final double[] values, final int size, final Ops.DoubleReducer reducer, final ForkJoinExecutor pool) {
+        new Scan(size, pool) {
+            private final double[] totals = new double[blockCount];
+
+            void reduceBlock(final int block, final int from, final int to) {
+                double total = values[from];
+                for (int i = from + 1; i < to; i++) total = reducer.combine(total, values[i]);
+                totals[block] = total;
+            }
+
+            void accumulateTotals() {
+                for (int block = 1; block < blockCount - 1; block++) {
+                    totals[block] = reducer.combine(totals[block - 1], totals[block]);
+                }
+            }
+
+            void scanBlock(final int block, final int from, final int to) {
+                if (block > 0) values[from] = reducer.combine(totals[block - 1], values[from]);
+                for (int i = from + 1; i < to; i++) values[i] = reducer.combine(values[i - 1], values[i]);
+            }
+        }.run(pool);
+    }
+
+    /**
+     * Drives the two passes over the blocks, the subclasses hold the values and the block totals
+     */
+    private abstract static class Scan {
+        private final int size;
+        final int blockCount;
+
+        Scan(final int size, final ForkJoinExecutor pool) {
+            this.size = size;
+            this.blockCount = Math.min(size, pool.getParallelismLevel() * BLOCKS_PER_THREAD);
+        }
+
+        /**
+         * Stores the reduction of the block's elements as the block total
+         */
+        abstract void reduceBlock(int block, int from, int to);
+
+        /**
+         * Replaces each block total, except for the last one, with the reduction of the totals up to and including the block
+         */
+        abstract void accumulateTotals();
+
+        /**
+         * Scans the block's elements, starting from the accumulated total of the preceding block
+         */
+        abstract void scanBlock(int block, int from, int to);
+
+        final void run(final ForkJoinExecutor pool) {
+            if (blockCount == 0) return;
+            //the total of the last block is never needed
+            pool.invoke(new Pass(0, blockCount - 1, true));
+            accumulateTotals();
+            pool.invoke(new Pass(0, blockCount, false));
+        }
+
+        private int start(final int block) {
+            return (int) ((long) block * (long) size / (long) blockCount);
+        }
+
+        /**
+         * Processes a range of blocks, splitting it recursively among the threads
+         */
+        private final class Pass extends RecursiveAction {
+            private final int fromBlock;
+            private final int toBlock;
+            private final boolean reducing;
+
+            private Pass(final int fromBlock, final int toBlock, final boolean reducing) {
+                this.fromBlock = fromBlock;
+                this.toBlock = toBlock;
+                this.reducing = reducing;
+            }
+
+            @Override
+            protected void compute() {
+                if (toBlock - fromBlock == 1) {
+                    if (reducing) reduceBlock(fromBlock, start(fromBlock), start(fromBlock + 1));
+                    else scanBlock(fromBlock, start(fromBlock), start(fromBlock + 1));
+                } else if (toBlock > fromBlock) {
+                    final int middle = (fromBlock + toBlock) >>> 1;
+                    forkJoin(new Pass(fromBlock, middle, reducing), new Pass(middle, toBlock, reducing));
+                }
+            }
+        }
+    }
+}
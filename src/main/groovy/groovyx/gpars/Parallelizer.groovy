@@ -16,9 +16,7 @@
 
 package groovyx.gpars
 
-import groovyx.gpars.util.PoolUtils
 import java.lang.Thread.UncaughtExceptionHandler
-import java.util.concurrent.TimeUnit
 import jsr166y.forkjoin.ForkJoinPool
 
 /**
@@ -50,11 +48,6 @@ public class Parallelizer {
      */
     private static final ThreadLocalPools currentPoolStack = new ThreadLocalPools()
 
-    /**
-     * Caches the default pool size.
-     */
-    private static final int defaultPoolSize = PoolUtils.retrieveDefaultPoolSize()
-
     /**
      * Retrieves the pool assigned to the current thread.
      */
@@ -63,25 +56,9 @@ public class Parallelizer {
     }
 
     /**
-     * Creates a new pool with the default size()
-     */
-    private static createPool() {
-        return createPool(PoolUtils.retrieveDefaultPoolSize())
-    }
-
-    /**
-     * Creates a new pool with the given size()
+     * The handler shared by all pools created without an explicit handler, so that the pools can be reused
      */
-    private static createPool(int poolSize) {
-        return createPool(poolSize, createDefaultUncaughtExceptionHandler())
-    }
-
-    private static createPool(int poolSize, UncaughtExceptionHandler handler) {
-        if (!(poolSize in 1..Integer.MAX_VALUE)) throw new IllegalArgumentException("Invalid value $poolSize for the pool size has been specified. Please supply a positive int number.")
-        final ForkJoinPool pool = new ForkJoinPool(poolSize)
-        pool.uncaughtExceptionHandler = handler
-        return pool
-    }
+    private static final UncaughtExceptionHandler defaultUncaughtExceptionHandler = createDefaultUncaughtExceptionHandler()
 
     private static UncaughtExceptionHandler createDefaultUncaughtExceptionHandler() {
         return {Thread failedThread, Throwable throwable ->
@@ -91,8 +68,8 @@ public class Parallelizer {
     }
 
     /**
-     * Creates a new instance of <i>ForkJoinPool</i>, binds it to the current thread, enables the ParallelArray DSL
-     * and runs the supplied closure.
+     * Binds the <i>ForkJoinPool</i> shared through GParsRuntime to the current thread, enables the ParallelArray DSL
+     * and runs the supplied closure. The shared pool must not be shut down by the closure.
      * It is an identical alternative for withParallelizer() with a shorter name.
      * Within the supplied code block the <i>ForkJoinPool</i> is available as the only parameter, collections have been
      * enhanced with the <i>eachParallel()</i>, <i>collectParallel()</i> and other methods from the <i>ParallelArrayUtil</i>
@@ -108,11 +85,11 @@ public class Parallelizer {
      * @param cl The block of code to invoke with the DSL enabled
      */
     public static doParallel(Closure cl) {
-        return doParallel(defaultPoolSize, cl)
+        return withExistingParallelizer(GParsRuntime.getForkJoinPool(), cl)
     }
 
     /**
-     * Creates a new instance of <i>ForkJoinPool</i>, binds it to the current thread, enables the ParallelArray DSL
+     * Borrows an idle <i>ForkJoinPool</i> from the ForkJoinPoolRegistry or creates a new one, binds it to the current thread, enables the ParallelArray DSL
      * and runs the supplied closure.
      * It is an identical alternative for withParallelizer() with a shorter name.
      * Within the supplied code block the <i>ForkJoinPool</i> is available as the only parameter, collections have been
@@ -130,11 +107,11 @@ public class Parallelizer {
      * @param cl The block of code to invoke with the DSL enabled
      */
     public static doParallel(int numberOfThreads, Closure cl) {
-        return doParallel(numberOfThreads, createDefaultUncaughtExceptionHandler(), cl)
+        return doParallel(numberOfThreads, defaultUncaughtExceptionHandler, cl)
     }
 
     /**
-     * Creates a new instance of <i>ForkJoinPool</i>, binds it to the current thread, enables the ParallelArray DSL
+     * Borrows an idle <i>ForkJoinPool</i> from the ForkJoinPoolRegistry or creates a new one, binds it to the current thread, enables the ParallelArray DSL
      * and runs the supplied closure.
      * It is an identical alternative for withParallelizer() with a shorter name.
      * Within the supplied code block the <i>ForkJoinPool</i> is available as the only parameter, collections have been
@@ -153,18 +130,17 @@ public class Parallelizer {
      * @param cl The block of code to invoke with the DSL enabled
      */
     public static doParallel(int numberOfThreads, UncaughtExceptionHandler handler, Closure cl) {
-        final ForkJoinPool pool = createPool(numberOfThreads, handler)
+        final ForkJoinPool pool = ForkJoinPoolRegistry.acquire(numberOfThreads, handler)
         try {
             return withExistingParallelizer(pool, cl)
         } finally {
-            pool.shutdown()
-            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)
+            ForkJoinPoolRegistry.release(pool, numberOfThreads, handler)
         }
     }
 
     /**
-     * Creates a new instance of <i>ForkJoinPool</i>, binds it to the current thread, enables the ParallelArray DSL
-     * and runs the supplied closure.
+     * Binds the <i>ForkJoinPool</i> shared through GParsRuntime to the current thread, enables the ParallelArray DSL
+     * and runs the supplied closure. The shared pool must not be shut down by the closure.
      * Within the supplied code block the <i>ForkJoinPool</i> is available as the only parameter, collections have been
      * enhanced with the <i>eachParallel()</i>, <i>collectParallel()</i> and other methods from the <i>ParallelArrayUtil</i>
      * category class.
@@ -180,11 +156,11 @@ public class Parallelizer {
      * @deprecated Use doParallel() instead
      */
     public static withParallelizer(Closure cl) {
-        return withParallelizer(defaultPoolSize, cl)
+        return withExistingParallelizer(GParsRuntime.getForkJoinPool(), cl)
     }
 
     /**
-     * Creates a new instance of <i>ForkJoinPool</i>, binds it to the current thread, enables the ParallelArray DSL
+     * Borrows an idle <i>ForkJoinPool</i> from the ForkJoinPoolRegistry or creates a new one, binds it to the current thread, enables the ParallelArray DSL
      * and runs the supplied closure.
      * Within the supplied code block the <i>ForkJoinPool</i> is available as the only parameter, collections have been
      * enhanced with the <i>eachParallel()</i>, <i>collectParallel()</i> and other methods from the <i>ParallelArrayUtil</i>
@@ -202,11 +178,11 @@ public class Parallelizer {
      * @deprecated Use doParallel() instead
      */
     public static withParallelizer(int numberOfThreads, Closure cl) {
-        return withParallelizer(numberOfThreads, createDefaultUncaughtExceptionHandler(), cl)
+        return withParallelizer(numberOfThreads, defaultUncaughtExceptionHandler, cl)
     }
 
     /**
-     * Creates a new instance of <i>ForkJoinPool</i>, binds it to the current thread, enables the ParallelArray DSL
+     * Borrows an idle <i>ForkJoinPool</i> from the ForkJoinPoolRegistry or creates a new one, binds it to the current thread, enables the ParallelArray DSL
      * and runs the supplied closure.
      * Within the supplied code block the <i>ForkJoinPool</i> is available as the only parameter, collections have been
      * enhanced with the <i>eachParallel()</i>, <i>collectParallel()</i> and other methods from the <i>ParallelArrayUtil</i>
@@ -225,12 +201,11 @@ public class Parallelizer {
      * @deprecated Use doParallel() instead
      */
     public static withParallelizer(int numberOfThreads, UncaughtExceptionHandler handler, Closure cl) {
-        final ForkJoinPool pool = createPool(numberOfThreads, handler)
+        final ForkJoinPool pool = ForkJoinPoolRegistry.acquire(numberOfThreads, handler)
         try {
             return withExistingParallelizer(pool, cl)
         } finally {
-            pool.shutdown()
-            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)
+            ForkJoinPoolRegistry.release(pool, numberOfThreads, handler)
         }
     }
 
@@ -0,0 +1,111 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars;
+
+import groovy.lang.Closure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a group of closures on a shared executor, never occupying more than the given number of the executor's threads at a time.
+ * Instead of submitting each closure separately, up to maxConcurrency drainer tasks are submitted, each of which runs
+ * the pending closures one by one until none is left.
+ * A thread waiting for the results may help run the pending closures itself, so that the execution completes even
+ * if the executor has no free threads, e.g. when called from one of the executor's own threads.
+ *
+ * @author agent
+ */
+final class ThrottledExecution {
+
+    private final Queue<FutureTask<Object>> pending = new ConcurrentLinkedQueue<FutureTask<Object>>();
+    private final List<Future<Object>> futures;
+    private final AtomicInteger remaining;
+    private final Runnable onCompletion;
+
+    /**
+     * Creates the execution, without starting it
+     *
+     * @param closures     The closures to run
+     * @param onCompletion Run by the thread finishing the last closure, may be null
+     */
+    ThrottledExecution(final Closure[] closures, final Runnable onCompletion) {
+        this.onCompletion = onCompletion;
+        this.remaining = new AtomicInteger(closures.length);
+        final List<Future<Object>> tasks = new ArrayList<Future<Object>>(closures.length);
+        for (final Closure closure : closures) {
+            final FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+                public Object call() throws Exception {
+                    return closure.call();
+                }
+            }) {
+                @Override
+                protected void done() {
+                    if (remaining.decrementAndGet() == 0 && ThrottledExecution.this.onCompletion != null)
+                        ThrottledExecution.this.onCompletion.run();
+                }
+            };
+            tasks.add(task);
+            pending.add(task);
+        }
+        futures = Collections.unmodifiableList(tasks);
+    }
+
+    /**
+     * Submits the drainers to the executor
+     *
+     * @param executor       The executor to run the closures
+     * @param maxConcurrency The maximum number of executor's threads to occupy
+     * @return Futures for the closures' results, in the order of the closures
+     */
+    List<Future<Object>> start(final Executor executor, final int maxConcurrency) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("Invalid value " + maxConcurrency + " for the maximum concurrency has been specified. Please supply a positive int number.");
+        final int drainers = Math.min(maxConcurrency, futures.size());
+        final Runnable drainer = new Runnable() {
+            public void run() {
+                help();
+            }
+        };
+        for (int i = 0; i < drainers; i++) {
+            executor.execute(drainer);
+        }
+        return futures;
+    }
+
+    /**
+     * Runs the pending closures in the current thread until none is left to start
+     */
+    void help() {
+        FutureTask<Object> task = pending.poll();
+        while (task != null) {
+            task.run();
+            task = pending.poll();
+        }
+    }
+
+    List<Future<Object>> getFutures() {
+        return futures;
+    }
+}
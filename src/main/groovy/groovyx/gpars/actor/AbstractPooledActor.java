@@ -104,6 +104,16 @@ import java.util.concurrent.TimeUnit;
  * </pre>
  * If no message arrives within the given timeout, the onTimeout() lifecycle handler is invoked, if exists,
  * and the actor terminates.
+ * <p/>
+ * Long-running actors, which handle all messages the same way, can install a persistent message handler with become()
+ * instead of the loop/react combination. The handler is kept until replaced by another call to become().
+ * <pre>
+ * def actor = actor {
+ *     become {message ->
+ *         reply message.toUpperCase()
+ *     }
+ * }
+ * </pre>
  * Each Actor has at any point in time at most one active instance of ActorAction associated, which abstracts
  * the current chunk of actor's work to perform. Once a thread is assigned to the ActorAction, it moves the actor forward
  * till loop() or react() is called. These methods schedule another ActorAction for processing and throw dedicated exception
@@ -16,7 +16,9 @@
 
 package groovyx.gpars.actor
 
+import groovyx.gpars.actor.impl.ActorTimeAccounting
 import groovyx.gpars.actor.impl.RunnableBackedPooledActor
+import groovyx.gpars.scheduler.IdleStrategy
 import groovyx.gpars.scheduler.Pool
 
 /**
@@ -34,6 +36,73 @@ public abstract class ActorGroup {
 
     public Pool getThreadPool() { return threadPool; }
 
+    /**
+     * Collects the CPU and wall time consumed by the group's actors, null if accounting is disabled
+     */
+    private volatile ActorTimeAccounting timeAccounting
+
+    /**
+     * Retrieves the time accounting of the group
+     * @return The accounting or null, if accounting hasn't been enabled
+     */
+    public final ActorTimeAccounting getTimeAccounting() { return timeAccounting }
+
+    /**
+     * Starts measuring the CPU and wall time the group's actors spend processing messages.
+     * Has no effect if accounting has already been enabled.
+     * @return The accounting holding the collected statistics
+     */
+    public final synchronized ActorTimeAccounting enableTimeAccounting() {
+        if (timeAccounting == null) timeAccounting = new ActorTimeAccounting()
+        return timeAccounting
+    }
+
+    /**
+     * Stops measuring the time consumed by the group's actors and discards the collected statistics
+     */
+    public final synchronized void disableTimeAccounting() {
+        timeAccounting = null
+    }
+
+    /**
+     * The strategy actors of the group use to wait for messages in blocking receive() calls, null to use the default strategy
+     */
+    private volatile IdleStrategy idleStrategy
+
+    /**
+     * Retrieves the strategy actors of the group use to wait for messages in blocking receive() calls
+     */
+    public final IdleStrategy getIdleStrategy() {
+        return idleStrategy ?: IdleStrategy.getDefault()
+    }
+
+    /**
+     * Sets the strategy actors of the group use to wait for messages in blocking receive() calls
+     * @param strategy The strategy to use, null to use the default strategy
+     */
+    public final void setIdleStrategy(final IdleStrategy strategy) {
+        idleStrategy = strategy
+    }
+
+    /**
+     * Starts the group's threads ahead of time and then runs the supplied warm-up workload the given number of times
+     * in the calling thread, so that neither thread creation nor JIT compilation slow down the first real messages.
+     * The workload gets the group as a parameter and should wait for the work it starts to finish,
+     * e.g. by sending messages to representative actors through sendAndWait().
+     * <pre>
+     * group.warmUp(1000) {group -> requestHandler.sendAndWait(sampleRequest)}
+     * </pre>
+     * @param rounds The number of times to run the workload
+     * @param workload The code to run
+     * @return The number of threads started
+     */
+    public final int warmUp(final int rounds, final Closure workload) {
+        if (rounds < 0) throw new IllegalArgumentException("The number of warm-up rounds must not be negative, got " + rounds)
+        final int started = threadPool.prestart()
+        rounds.times {workload.call(this)}
+        return started
+    }
+
     /**
      * Creates a group of pooled actors. The actors will share a common daemon thread pool.
      */
@@ -31,6 +31,12 @@ public class ActorMessage<T> implements Serializable {
     private static final long serialVersionUID = -2925547808451571430L;
     private T payLoad;
     private MessageStream sender;
+
+    /**
+     * The System.nanoTime() based time to start processing the message by, 0 if there is no deadline.
+     * Not meaningful in another JVM, so not serialized.
+     */
+    private transient long deadline = 0L;
     //todo what are the values after deserialization?
 
     /**
@@ -44,6 +50,18 @@ public class ActorMessage<T> implements Serializable {
         this.sender = sender;
     }
 
+    /**
+     * Creates a new instance with a deadline
+     *
+     * @param payLoad  The original message
+     * @param sender   The sending actor, null, if the message was not sent by an actor
+     * @param deadline The System.nanoTime() based time to start processing the message by, 0 if there is no deadline
+     */
+    public ActorMessage(final T payLoad, final MessageStream sender, final long deadline) {
+        this(payLoad, sender);
+        this.deadline = deadline;
+    }
+
     /**
      * Constructor for serialization
      */
@@ -58,6 +76,10 @@ public class ActorMessage<T> implements Serializable {
         return sender;
     }
 
+    public long getDeadline() {
+        return deadline;
+    }
+
     /**
      * Factory method to create instances of ActorMessage with given payload.
      * The sender of the ActorMessage is retrieved from the ReplyRegistry.
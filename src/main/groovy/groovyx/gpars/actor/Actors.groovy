@@ -16,7 +16,7 @@
 
 package groovyx.gpars.actor
 
-import groovyx.gpars.scheduler.ResizeablePool
+import groovyx.gpars.GParsRuntime
 
 /**
  * Provides handy helper methods to create pooled actors and customize the underlying thread pool.
@@ -45,8 +45,10 @@ public abstract class Actors {
 
     /**
      * The default actor group to share by all actors created through the Actors class.
+     * The group runs its actors on the pool shared through the GParsRuntime, which only starts its threads on first use,
+     * so merely loading the class doesn't create a thread pool.
      */
-    public final static PooledActorGroup defaultPooledActorGroup = new PooledActorGroup(new ResizeablePool(true))
+    public final static PooledActorGroup defaultPooledActorGroup = new PooledActorGroup(GParsRuntime.getPool(GParsRuntime.Subsystem.ACTORS))
 
     /**
      * Creates a new instance of PooledActor, using the passed-in closure as the body of the actor's act() method.
@@ -59,15 +59,14 @@ public class DynamicDispatchActor extends AbstractPooledActor {
     }
 
     /**
-     * Loops reading messages using the react() method and dispatches to the corresponding onMessage() method.
+     * Installs a persistent message handler using the become() method, which dispatches each message
+     * to the corresponding onMessage() method.
      */
     final void act() {
-        loop {
-            react {msg ->
-                if (msg == null)
-                    msg = NullObject.nullObject
-                onMessage msg
-            }
+        become {msg ->
+            if (msg == null)
+                msg = NullObject.nullObject
+            onMessage msg
         }
     }
 
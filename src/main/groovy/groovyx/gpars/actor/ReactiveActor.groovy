@@ -40,10 +40,8 @@ public class ReactiveActor extends RunnableBackedPooledActor {
             def cloned = body.clone()
             cloned.delegate = this
             cloned.resolveStrategy = Closure.DELEGATE_FIRST
-            loop {
-                react {
-                    it.replyIfExists cloned(it)
-                }
+            become {
+                it.replyIfExists cloned(it)
             }
         }
     }
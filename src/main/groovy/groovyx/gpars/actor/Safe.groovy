@@ -16,7 +16,7 @@
 
 package groovyx.gpars.actor
 
-import groovyx.gpars.util.EnhancedRWLock
+import groovyx.gpars.actor.impl.MessageStream
 import org.codehaus.groovy.runtime.NullObject
 
 /**
@@ -38,9 +38,15 @@ import org.codehaus.groovy.runtime.NullObject
  * The 'val' property of a Safe will safely return the current value of the Safe, while the valAsync() method
  * will do the same without blocking the caller.
  * The 'instantVal' property will retrieve the current value of the Safe without having to wait in the queue of tasks.
+ * Reads never block nor lock. After each processed message the agent thread publishes a snapshot of the internal state
+ * through a volatile field and readers simply pick up the most recently published snapshot.
+ * The 'val' property only queues the read request if there are updates pending in the queue at the time of the call.
+ * Updates waiting in the queue are applied in batches - the agent thread drains the queue, applies all the updates
+ * and only then publishes a single new snapshot and sends the return values of the closures back to their senders.
  * The initial internal value can be passed to the constructor. The two-parameter constructor allows to alter the way
  * the internal value is returned from val/valAsync. By default the original reference is returned, but in many scenarios a copy
- * or a clone might be more appropriate.
+ * or a clone might be more appropriate. The copy is created once per update, when the snapshot gets published,
+ * and is shared by all readers until the next update.
  *
  * @author Vaclav Pech
  * Date: Jul 2, 2009
@@ -48,16 +54,21 @@ import org.codehaus.groovy.runtime.NullObject
 public class Safe<T> extends DynamicDispatchActor {
 
     /**
-     * Allows reads not to wait in the message queue.
-     * Writes and reads are mutually separated by using write or read locks respectively.
+     * The maximum number of updates applied in a single batch before the snapshot gets published
+     * and the thread is returned to the pool
      */
-    private EnhancedRWLock lock = new EnhancedRWLock()
+    private static final int MAX_BATCH_SIZE = 1000
 
     /**
      * Holds the internal mutable state
      */
     protected T data
 
+    /**
+     * Holds the copy of the internal state published after the last update, allowing reads not to wait in the message queue
+     */
+    private volatile T snapshot
+
     /**
      * Function converting the internal state during read to prevent internal state escape from
      * the protected boundary of the agent
@@ -77,6 +88,7 @@ public class Safe<T> extends DynamicDispatchActor {
      */
     def Safe(final T data) {
         this.data = data
+        publishSnapshot()
         start()
     }
 
@@ -88,6 +100,7 @@ public class Safe<T> extends DynamicDispatchActor {
     def Safe(final T data, final Closure copy) {
         this.data = data
         this.copy = copy
+        publishSnapshot()
         start()
     }
 
@@ -95,27 +108,61 @@ public class Safe<T> extends DynamicDispatchActor {
      * Accepts a NullObject instance and sets the internal state to null
      */
     final void onMessage(NullObject obj) {
-        lock.withWriteLock {
-            updateValue null
-        }
+        applyInBatch null
     }
 
     /**
      * Accepts and invokes the closure
      */
     final void onMessage(Closure code) {
-        lock.withWriteLock {
-            code.delegate = this
-            replyIfExists code.call(data)
-        }
+        applyInBatch code
     }
 
     /**
      * Other messages than closures are accepted as new values for the internal state
      */
     final void onMessage(T message) {
-        lock.withWriteLock {
-            updateValue message
+        applyInBatch message
+    }
+
+    /**
+     * Applies the supplied update together with the updates waiting in the queue, up to MAX_BATCH_SIZE updates in total.
+     * A single snapshot is published once the whole batch has been applied and only then the replies get sent
+     * to the senders of the individual closures.
+     */
+    private void applyInBatch(final Object update) {
+        final List<List> replies = []
+        try {
+            applyUpdate(update, replies)
+            int batchSize = 1
+            ActorMessage message
+            while (batchSize < MAX_BATCH_SIZE && (message = pollQueuedMessage()) != null) {
+                applyUpdate(message.payLoad, replies)
+                batchSize++
+            }
+        } finally {
+            publishSnapshot()
+            for (pending in replies) {
+                try {
+                    pending[0]?.send(pending[1])
+                } catch (IllegalStateException ignore) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a closure against the internal state or sets a new value, remembering the closure's return value
+     * to send back to the sender of the currently processed message
+     */
+    private void applyUpdate(final Object update, final List<List> replies) {
+        if (update instanceof Closure) {
+            final List<MessageStream> senders = getSenders()
+            final MessageStream sender = senders.isEmpty() ? null : senders[0]
+            update.delegate = this
+            replies << [sender, update.call(data)]
+        } else {
+            updateValue(update instanceof NullObject ? null : update)
         }
     }
 
@@ -124,23 +171,31 @@ public class Safe<T> extends DynamicDispatchActor {
      */
     final void updateValue(T newValue) { data = newValue }
 
+    /**
+     * Makes the current internal state visible to readers. Only to be called from the agent's thread.
+     */
+    private void publishSnapshot() {
+        snapshot = copy(data)
+    }
+
     /**
      * A shorthand method for safe message-based retrieval of the internal state.
      * Retrieves the internal state immediately by-passing the queue of tasks waiting to be processed.
+     * The call never blocks, it returns the snapshot published after the last processed update.
      */
     final public T getInstantVal() {
-        T result = null
-        lock.withReadLock { result = copy(data) }
-        return result
+        return snapshot
     }
 
     /**
      * A shorthand method for safe message-based retrieval of the internal state.
      * The request to retrieve a value is put into the message queue, so will wait for all messages delivered earlier to complete.
+     * If the queue is empty and no update is being processed, the published snapshot is returned right away.
      */
     @SuppressWarnings("GroovyAssignabilityCheck")
     final public T getVal() {
-        this.sendAndWait { getInstantVal() }
+        if (isActive() && isIdle()) return getInstantVal()
+        this.sendAndWait { copy(data) }
     }
 
     /**
@@ -149,7 +204,7 @@ public class Safe<T> extends DynamicDispatchActor {
      * @param callback A closure to invoke with the internal state as a parameter
      */
     final public void valAsync(Closure callback) {
-        sendAndContinue({getInstantVal()}) {
+        sendAndContinue({copy(data)}) {
             callback.call(it)
         }
     }
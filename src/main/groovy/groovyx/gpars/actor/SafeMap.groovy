@@ -0,0 +1,172 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.actor
+
+import groovyx.gpars.util.PoolUtils
+
+/**
+ * A thread-safe map, which partitions its keys among several internal Safe stripes.
+ * Each stripe guards its own part of the map and processes the updates sent to it sequentially, so updates
+ * of keys belonging to different stripes may proceed concurrently.
+ * Similarly to Safe, updates are sent asynchronously as closures, which receive the current value associated with the key
+ * and return the new value. Returning null removes the key from the map.
+ * Updates change a single key in place, so they take constant time regardless of the size of the map.
+ * Reads of individual keys never block and see the latest applied update. Consistent unmodifiable snapshots of a stripe
+ * are only built when requested, at most once after each change of the stripe, so writes never pay for copying the map.
+ * The whole-map snapshot is assembled from the snapshots of the individual stripes and so is not guaranteed to be atomic across stripes.
+ * <pre>
+ * def registrations = new SafeMap<String, Integer>()
+ * registrations.update('GPars') {it == null ? 1 : it + 1}
+ * registrations.put('Groovy', 10)
+ * registrations.await()
+ * assert registrations.get('GPars') == 1
+ * println registrations.snapshot
+ * registrations.stop()
+ * </pre>
+ *
+ * @author agent
+ */
+public class SafeMap<K, V> {
+
+    /**
+     * The Safe instances guarding the individual parts of the map
+     */
+    private final List<Safe<SafeMapStripe<K, V>>> stripes
+
+    /**
+     * Creates a new map with the number of stripes set to the default pool size
+     */
+    def SafeMap() {
+        this(PoolUtils.retrieveDefaultPoolSize())
+    }
+
+    /**
+     * Creates a new map
+     * @param stripeCount The number of internal Safe instances to partition the keys among
+     */
+    def SafeMap(final int stripeCount) {
+        if (stripeCount < 1) throw new IllegalArgumentException("The number of stripes must be a positive number")
+        stripes = (1..stripeCount).collect {new Safe<SafeMapStripe<K, V>>(new SafeMapStripe<K, V>())}
+    }
+
+    /**
+     * Retrieves the number of internal stripes
+     */
+    final int getStripeCount() {
+        stripes.size()
+    }
+
+    /**
+     * Sends an update for the given key to the stripe owning the key. The closure receives the current value associated
+     * with the key (or null) and its return value becomes the new value for the key. A null return value removes the key.
+     * @param key The key to update
+     * @param code The closure calculating the new value
+     */
+    final void update(final K key, final Closure code) {
+        stripeFor(key) << {SafeMapStripe<K, V> stripe -> stripe.update(key, code)}
+    }
+
+    /**
+     * Asynchronously associates the value with the key. A null value removes the key from the map.
+     */
+    final void put(final K key, final V value) {
+        update(key) {value}
+    }
+
+    /**
+     * Asynchronously removes the key from the map
+     */
+    final void remove(final K key) {
+        update(key) {null}
+    }
+
+    /**
+     * Retrieves the value associated with the key by the latest update applied by the stripe owning the key.
+     * The call never blocks, updates still waiting in the stripe's queue are not reflected.
+     */
+    final V get(final K key) {
+        stripeFor(key).instantVal.get(key)
+    }
+
+    /**
+     * Retrieves the consistent snapshot of the stripe owning the key, without waiting for pending updates.
+     * The snapshot is only copied if the stripe has changed since the previous snapshot had been taken.
+     * @return An unmodifiable map holding the keys of the stripe
+     */
+    final Map<K, V> getStripeSnapshot(final K key) {
+        stripeFor(key).instantVal.snapshot
+    }
+
+    /**
+     * Assembles a snapshot of the whole map from the most recent snapshots of the individual stripes without waiting
+     * for pending updates. Each stripe contributes a consistent view of its keys, the stripes, however, are read one by one.
+     * @return A new map holding the content of all stripes
+     */
+    final Map<K, V> getSnapshot() {
+        final Map<K, V> result = new HashMap<K, V>()
+        stripes.each {result.putAll it.instantVal.snapshot}
+        return result
+    }
+
+    /**
+     * Assembles a snapshot of the whole map, waiting for all updates sent to the stripes prior to the call to complete
+     * @return A new map holding the content of all stripes
+     */
+    final Map<K, V> getVal() {
+        final Map<K, V> result = new HashMap<K, V>()
+        stripes.each {result.putAll it.val.snapshot}
+        return result
+    }
+
+    /**
+     * Counts the keys in all stripes, without waiting for pending updates
+     */
+    final int size() {
+        stripes.sum {it.instantVal.size()}
+    }
+
+    /**
+     * Blocks until all updates sent to the map prior to the call to await() complete
+     */
+    final void await() {
+        stripes*.await()
+    }
+
+    /**
+     * Stops all the stripes. Updates sent before the call will still be processed.
+     */
+    final SafeMap stop() {
+        stripes*.stop()
+        return this
+    }
+
+    /**
+     * Waits for all the stripes to finish
+     */
+    final void join() {
+        stripes*.join()
+    }
+
+    /**
+     * Finds the stripe responsible for the given key, spreading the bits of the hash code the way HashMap does
+     */
+    private Safe<SafeMapStripe<K, V>> stripeFor(final K key) {
+        int h = key == null ? 0 : key.hashCode()
+        h ^= (h >>> 16)
+        return stripes[(h & 0x7fffffff) % stripes.size()]
+    }
+}
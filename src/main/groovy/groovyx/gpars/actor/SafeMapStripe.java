@@ -0,0 +1,145 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.actor;
+
+import groovy.lang.Closure;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the part of a SafeMap guarded by a single Safe stripe.
+ * Updates are only ever applied by the stripe's thread and change a single key in place, so they take constant time
+ * regardless of the size of the stripe. Single-key reads go straight to the underlying concurrent map.
+ * Consistent snapshots of the whole stripe are only built when requested, at most once per version of the stripe.
+ * The stripe's version is odd while an update is being applied, so a reader copies the map optimistically and only keeps
+ * the copy if the version hasn't changed meanwhile. Should writes keep interfering, the reader asks the stripe's thread
+ * to publish the copy after its next update.
+ *
+ * @author agent
+ */
+final class SafeMapStripe<K, V> {
+
+    /**
+     * Stands for the null key, which the underlying concurrent map doesn't accept
+     */
+    private static final Object NULL_KEY = new Object();
+
+    /**
+     * The number of optimistic copy attempts before the reader asks the writer to publish the snapshot
+     */
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+
+    private final ConcurrentHashMap<Object, V> map = new ConcurrentHashMap<Object, V>();
+
+    /**
+     * Incremented before and after each update, so odd while an update is in progress
+     */
+    private volatile long version = 0L;
+
+    private volatile Snapshot<K, V> snapshot = new Snapshot<K, V>(0L, Collections.<K, V>emptyMap());
+
+    private volatile boolean snapshotRequested = false;
+
+    /**
+     * Retrieves the current value associated with the key
+     */
+    V get(final K key) {
+        return map.get(mask(key));
+    }
+
+    /**
+     * @return The current number of keys in the stripe
+     */
+    int size() {
+        return map.size();
+    }
+
+    /**
+     * Calculates and stores the new value for the key. Only to be called from the stripe's thread.
+     *
+     * @param key  The key to update
+     * @param code The closure calculating the new value from the current one, a null result removes the key
+     * @return The new value
+     */
+    @SuppressWarnings({"unchecked"})
+    Object update(final K key, final Closure code) {
+        final Object maskedKey = mask(key);
+        final Object newValue = code.call(map.get(maskedKey));
+        version++;
+        if (newValue == null) map.remove(maskedKey);
+        else map.put(maskedKey, (V) newValue);
+        version++;
+        if (snapshotRequested) {
+            snapshotRequested = false;
+            snapshot = new Snapshot<K, V>(version, copy());
+        }
+        return newValue;
+    }
+
+    /**
+     * Retrieves a consistent unmodifiable snapshot of the stripe, building it only if the stripe has changed since
+     * the last snapshot had been built
+     */
+    Map<K, V> getSnapshot() {
+        int attempts = 0;
+        while (true) {
+            final long currentVersion = version;
+            final Snapshot<K, V> current = snapshot;
+            if (current.version == currentVersion) return current.map;
+
+            if ((currentVersion & 1L) == 0L && attempts < OPTIMISTIC_ATTEMPTS) {
+                attempts++;
+                final Map<K, V> copy = copy();
+                if (version == currentVersion) {
+                    snapshot = new Snapshot<K, V>(currentVersion, copy);
+                    return copy;
+                }
+            } else if (attempts >= OPTIMISTIC_ATTEMPTS) {
+                //the writer keeps interfering, so it publishes the snapshot itself after its next update
+                snapshotRequested = true;
+                Thread.yield();
+                attempts = 0;
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private Map<K, V> copy() {
+        final Map<K, V> copy = new HashMap<K, V>(map.size() * 2);
+        for (final Map.Entry<Object, V> entry : map.entrySet()) {
+            copy.put(entry.getKey() == NULL_KEY ? null : (K) entry.getKey(), entry.getValue());
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static Object mask(final Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    private static final class Snapshot<K, V> {
+        private final long version;
+        private final Map<K, V> map;
+
+        private Snapshot(final long version, final Map<K, V> map) {
+            this.version = version;
+            this.map = map;
+        }
+    }
+}
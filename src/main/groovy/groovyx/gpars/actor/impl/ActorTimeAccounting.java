@@ -0,0 +1,170 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.actor.impl;
+
+import groovyx.gpars.actor.Actor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates the CPU and wall time consumed by actors of an actor group.
+ * Once enabled on an ActorGroup, each run of an actor belonging to the group measures the thread CPU time
+ * and the wall time spent and adds them to both the actor's statistics and the group totals.
+ * The statistics of individual actors are kept as long as the actors are alive and can be used to find
+ * the actors consuming most of the pool's CPU.
+ *
+ * @author agent
+ */
+public final class ActorTimeAccounting {
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Indicates whether the JVM can measure CPU time of the current thread
+     */
+    private final boolean cpuTimeSupported;
+
+    private final Map<Actor, ActorTimeStatistics> actors = Collections.synchronizedMap(new WeakHashMap<Actor, ActorTimeStatistics>());
+
+    private final AtomicLong messageCount = new AtomicLong(0L);
+    private final AtomicLong cpuTime = new AtomicLong(0L);
+    private final AtomicLong wallTime = new AtomicLong(0L);
+
+    public ActorTimeAccounting() {
+        boolean supported = threadMXBean.isCurrentThreadCpuTimeSupported();
+        if (supported && !threadMXBean.isThreadCpuTimeEnabled()) {
+            try {
+                threadMXBean.setThreadCpuTimeEnabled(true);
+            } catch (UnsupportedOperationException ignore) {
+                supported = false;
+            } catch (SecurityException ignore) {
+                supported = false;
+            }
+        }
+        cpuTimeSupported = supported;
+    }
+
+    /**
+     * @return True, if CPU time is measured in addition to wall time
+     */
+    public boolean isCpuTimeSupported() {
+        return cpuTimeSupported;
+    }
+
+    /**
+     * Retrieves the CPU time consumed so far by the current thread
+     *
+     * @return The time in nanoseconds or 0, if not supported
+     */
+    long currentThreadCpuTime() {
+        return cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : 0L;
+    }
+
+    /**
+     * Creates the statistics for a newly accounted actor
+     *
+     * @param actor The actor to register
+     * @return The statistics to update during the actor's runs
+     */
+    ActorTimeStatistics register(final Actor actor) {
+        final ActorTimeStatistics statistics = new ActorTimeStatistics(actor, this);
+        actors.put(actor, statistics);
+        return statistics;
+    }
+
+    /**
+     * Records a single run of an actor
+     */
+    void record(final ActorTimeStatistics statistics, final int messages, final long cpu, final long wall) {
+        statistics.record(messages, cpu, wall);
+        messageCount.addAndGet((long) messages);
+        cpuTime.addAndGet(cpu);
+        wallTime.addAndGet(wall);
+    }
+
+    /**
+     * @return The total number of messages processed by the group's actors
+     */
+    public long getMessageCount() {
+        return messageCount.get();
+    }
+
+    /**
+     * @return The total thread CPU time in nanoseconds consumed by the group's actors
+     */
+    public long getCpuTime() {
+        return cpuTime.get();
+    }
+
+    /**
+     * @return The total wall time in nanoseconds the group's actors spent processing messages
+     */
+    public long getWallTime() {
+        return wallTime.get();
+    }
+
+    /**
+     * Retrieves the statistics of all live accounted actors
+     */
+    public List<ActorTimeStatistics> getActorStatistics() {
+        synchronized (actors) {
+            return new ArrayList<ActorTimeStatistics>(actors.values());
+        }
+    }
+
+    /**
+     * Retrieves the statistics of the actors, which consumed most CPU time (or wall time, if CPU time is not supported)
+     *
+     * @param count The maximum number of actors to return
+     * @return The statistics of the hottest actors, sorted from the hottest
+     */
+    public List<ActorTimeStatistics> getHotActors(final int count) {
+        final List<ActorTimeStatistics> result = getActorStatistics();
+        Collections.sort(result, new Comparator<ActorTimeStatistics>() {
+            public int compare(final ActorTimeStatistics o1, final ActorTimeStatistics o2) {
+                final long t1 = cpuTimeSupported ? o1.getCpuTime() : o1.getWallTime();
+                final long t2 = cpuTimeSupported ? o2.getCpuTime() : o2.getWallTime();
+                return t1 < t2 ? 1 : t1 == t2 ? 0 : -1;
+            }
+        });
+        return result.size() > count ? new ArrayList<ActorTimeStatistics>(result.subList(0, count)) : result;
+    }
+
+    /**
+     * Builds a human-readable report listing the actors, which consumed most of the time
+     *
+     * @param count The maximum number of actors to list
+     * @return The report, one actor per line
+     */
+    public String reportHotActors(final int count) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("Total messages: ").append(getMessageCount()).append(", cpu: ").append(getCpuTime() / 1000000L)
+                .append("ms, wall: ").append(getWallTime() / 1000000L).append("ms\n");
+        for (final ActorTimeStatistics statistics : getHotActors(count)) {
+            sb.append(statistics).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,100 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.actor.impl;
+
+import groovyx.gpars.actor.Actor;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Holds the CPU and wall time consumed by a single actor while processing its messages.
+ * The values are only updated from the actor's thread, one run at a time, and can be read safely from any thread.
+ *
+ * @author agent
+ */
+public final class ActorTimeStatistics {
+
+    /**
+     * The actor is only referenced weakly not to prevent it from being garbage-collected
+     */
+    private final WeakReference<Actor> actor;
+    private final String actorDescription;
+
+    /**
+     * The accounting this statistics is registered with
+     */
+    final ActorTimeAccounting accounting;
+
+    private volatile long messageCount;
+    private volatile long cpuTime;
+    private volatile long wallTime;
+
+    ActorTimeStatistics(final Actor actor, final ActorTimeAccounting accounting) {
+        this.actor = new WeakReference<Actor>(actor);
+        this.actorDescription = actor.getClass().getName() + '@' + Integer.toHexString(System.identityHashCode(actor));
+        this.accounting = accounting;
+    }
+
+    /**
+     * Adds the times spent in a single run of the actor. Only to be called from the actor's thread.
+     *
+     * @param messages The number of messages processed during the run
+     * @param cpu      The thread CPU time consumed in nanoseconds
+     * @param wall     The wall time consumed in nanoseconds
+     */
+    @SuppressWarnings({"NonAtomicOperationOnVolatileField"})
+    void record(final int messages, final long cpu, final long wall) {
+        messageCount += messages;
+        cpuTime += cpu;
+        wallTime += wall;
+    }
+
+    /**
+     * Retrieves the actor, if it hasn't been garbage-collected yet
+     *
+     * @return The actor or null
+     */
+    public Actor getActor() {
+        return actor.get();
+    }
+
+    /**
+     * @return The number of messages processed by the actor
+     */
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * @return The thread CPU time in nanoseconds consumed by the actor, 0 if CPU time measurement is not supported by the JVM
+     */
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    /**
+     * @return The wall time in nanoseconds the actor spent processing messages
+     */
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    @Override
+    public String toString() {
+        return actorDescription + " messages: " + messageCount + ", cpu: " + cpuTime / 1000000L + "ms, wall: " + wallTime / 1000000L + "ms";
+    }
+}
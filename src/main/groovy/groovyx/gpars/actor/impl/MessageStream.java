@@ -22,6 +22,8 @@ import groovyx.gpars.actor.ActorMessage;
 import groovyx.gpars.dataflow.DataCallback;
 import groovyx.gpars.remote.RemoteConnection;
 import groovyx.gpars.remote.RemoteHost;
+import groovyx.gpars.scheduler.IdleStrategy;
+import groovyx.gpars.scheduler.ManagedBlocking;
 import groovyx.gpars.serial.RemoteSerialized;
 import groovyx.gpars.serial.SerialMsg;
 import groovyx.gpars.serial.WithSerialId;
@@ -66,6 +68,21 @@ public abstract class MessageStream extends WithSerialId {
         return send(new ActorMessage<T>(message, replyTo));
     }
 
+    /**
+     * Send message to stream and return immediately. The message should start being processed within the given timeout.
+     * If the receiving actor's group uses a DeadlinePool, the actor gets scheduled in the earliest-deadline-first order
+     * and the message may be dropped, once it misses its deadline.
+     *
+     * @param message message to send
+     * @param timeout The time to start processing the message within
+     * @param units   The units of the timeout
+     * @param <T>     type of message accepted by the stream
+     * @return always return message stream itself
+     */
+    public final <T> MessageStream sendWithDeadline(final T message, final long timeout, final TimeUnit units) {
+        return send(new ActorMessage<T>(message, Actor.threadBoundActor(), System.nanoTime() + units.toNanos(timeout)));
+    }
+
     /**
      * Same as send
      *
@@ -145,7 +162,7 @@ public abstract class MessageStream extends WithSerialId {
      *
      * @param <V> The type of expected reply message
      */
-    private static class ResultWaiter<V> extends MessageStream {
+    private static class ResultWaiter<V> extends MessageStream implements IdleStrategy.Condition {
         private static final long serialVersionUID = 6512046150496489148L;
 
         /**
@@ -185,11 +202,19 @@ public abstract class MessageStream extends WithSerialId {
          * @throws InterruptedException If the thread gets interrupted
          */
         public V getResult() throws InterruptedException {
-            while (!isSet) {
-                LockSupport.park();
-                final Thread thread = Thread.currentThread();
-                if (thread.isInterrupted()) {
-                    throw new InterruptedException();
+            IdleStrategy.getDefault().await(this, 0L);
+            if (!isSet) {
+                final ManagedBlocking.Compensator compensator = ManagedBlocking.beginBlocking();
+                try {
+                    while (!isSet) {
+                        LockSupport.park();
+                        final Thread thread = Thread.currentThread();
+                        if (thread.isInterrupted()) {
+                            throw new InterruptedException();
+                        }
+                    }
+                } finally {
+                    ManagedBlocking.endBlocking(compensator);
                 }
             }
             rethrowException();
@@ -206,20 +231,35 @@ public abstract class MessageStream extends WithSerialId {
          */
         public Object getResult(final long timeout, final TimeUnit units) throws InterruptedException {
             final long endNano = System.nanoTime() + units.toNanos(timeout);
-            while (!isSet) {
-                final long toWait = endNano - System.nanoTime();
-                if (toWait <= 0L) {
-                    return null;
-                }
-                LockSupport.parkNanos(toWait);
-                if (Thread.currentThread().isInterrupted()) {
-                    throw new InterruptedException();
+            IdleStrategy.getDefault().await(this, endNano);
+            if (!isSet) {
+                final ManagedBlocking.Compensator compensator = ManagedBlocking.beginBlocking();
+                try {
+                    while (!isSet) {
+                        final long toWait = endNano - System.nanoTime();
+                        if (toWait <= 0L) {
+                            return null;
+                        }
+                        LockSupport.parkNanos(toWait);
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new InterruptedException();
+                        }
+                    }
+                } finally {
+                    ManagedBlocking.endBlocking(compensator);
                 }
             }
             rethrowException();
             return value;
         }
 
+        /**
+         * Indicates the reply has arrived, used by the idle strategy
+         */
+        public boolean isSatisfied() {
+            return isSet;
+        }
+
         private void rethrowException() {
             if (value instanceof Throwable) {
                 if (value instanceof RuntimeException) {
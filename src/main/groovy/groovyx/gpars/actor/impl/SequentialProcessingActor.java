@@ -23,6 +23,10 @@ import groovyx.gpars.actor.Actor;
 import groovyx.gpars.actor.ActorGroup;
 import groovyx.gpars.actor.ActorMessage;
 import groovyx.gpars.actor.Actors;
+import groovyx.gpars.scheduler.DeadlinePool;
+import groovyx.gpars.scheduler.IdleStrategy;
+import groovyx.gpars.scheduler.ManagedBlocking;
+import groovyx.gpars.scheduler.Pool;
 import org.codehaus.groovy.runtime.CurriedClosure;
 import org.codehaus.groovy.runtime.GeneratedClosure;
 import org.codehaus.groovy.runtime.GroovyCategorySupport;
@@ -30,6 +34,7 @@ import org.codehaus.groovy.runtime.InvokerHelper;
 import org.codehaus.groovy.runtime.ScriptBytecodeAdapter;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -48,7 +53,7 @@ import static groovyx.gpars.actor.impl.ActorException.TIMEOUT;
  * @author Alex Tkachman, Vaclav Pech
  */
 @SuppressWarnings({"UnqualifiedStaticUsage"})
-public abstract class SequentialProcessingActor extends Actor implements Runnable {
+public abstract class SequentialProcessingActor extends Actor implements Runnable, DeadlinePool.Expirable {
 
     /**
      * The actor group to which the actor belongs
@@ -65,6 +70,16 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
      */
     private volatile Reaction reaction;
 
+    /**
+     * The persistent message handler installed through become(), if any
+     */
+    private volatile MessageHandler messageHandler;
+
+    /**
+     * The categories to run message handlers with, shared by all actors
+     */
+    private static final List<Class> REPLY_CATEGORY = Collections.<Class>singletonList(ReplyCategory.class);
+
     /**
      * Stored incoming messages. The most recently received message is in the head of the list.
      */
@@ -85,6 +100,21 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
 
     private static final AtomicIntegerFieldUpdater<SequentialProcessingActor> countUpdater = AtomicIntegerFieldUpdater.newUpdater(SequentialProcessingActor.class, "count");
 
+    /**
+     * Number of messages retrieved through pollQueuedMessage() during the current run, only accessed from the actor's thread
+     */
+    private int polledMessages;
+
+    /**
+     * Set when a DeadlinePool drops the current run, so that the expired message gets skipped. Only accessed from the actor's thread.
+     */
+    private boolean discardExpiredMessage = false;
+
+    /**
+     * The CPU and wall time consumed by the actor, if time accounting is enabled on the actor's group
+     */
+    private volatile ActorTimeStatistics timeStatistics;
+
     private volatile Thread waitingThread;
     private volatile Thread currentThread;
 
@@ -114,10 +144,6 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
 
     protected static final AtomicIntegerFieldUpdater<SequentialProcessingActor> stopFlagUpdater = AtomicIntegerFieldUpdater.newUpdater(SequentialProcessingActor.class, "stopFlag");
 
-    /**
-     * Timer holding timeouts for react methods
-     */
-    private static final Timer timer = new Timer(true);
 
     /**
      * Checks whether the current thread is the actor's current thread.
@@ -135,6 +161,17 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
         return (stopFlag & S_ACTIVE_MASK) != 0;
     }
 
+    /**
+     * Checks whether the actor has neither any messages waiting in its queues nor a message being currently processed.
+     * Since the counter is only decremented after a message has been fully processed, a true value observed by a sender
+     * guarantees all messages it has sent before have been handled.
+     *
+     * @return True, if there's no work pending for the actor at the moment
+     */
+    protected final boolean isIdle() {
+        return count == 0;
+    }
+
     /**
      * Retrieves the next message from the queue
      *
@@ -236,8 +273,20 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
         waitingThread = Thread.currentThread();
         if (outputQueue != null) return retrieveNextMessage();
 
-        if (endTime == 0L) LockSupport.park();
-        else LockSupport.parkNanos(endTime - System.nanoTime());
+        final IdleStrategy idleStrategy = getActorGroup().getIdleStrategy();
+        if (idleStrategy.isSpinning() && idleStrategy.await(new IdleStrategy.Condition() {
+            public boolean isSatisfied() {
+                return inputQueue != null;
+            }
+        }, endTime)) return null;
+
+        final ManagedBlocking.Compensator compensator = ManagedBlocking.beginBlocking();
+        try {
+            if (endTime == 0L) LockSupport.park();
+            else LockSupport.parkNanos(endTime - System.nanoTime());
+        } finally {
+            ManagedBlocking.endBlocking(compensator);
+        }
         if (Thread.currentThread().isInterrupted()) {
             throw new InterruptedException();
         }
@@ -278,10 +327,9 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
     }
 
     /**
-     * Creates a new instance, sets the default actor group.
+     * Creates a new instance. Unless another group is set, the actor will join the default actor group once started.
      */
     protected SequentialProcessingActor() {
-        setActorGroup(Actors.defaultPooledActorGroup);
     }
 
     /**
@@ -308,7 +356,8 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
      * @return The actor's group
      */
     public ActorGroup getActorGroup() {
-        return actorGroup;
+        final ActorGroup group = actorGroup;
+        return group != null ? group : Actors.defaultPooledActorGroup;
     }
 
     @Override
@@ -336,7 +385,7 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
 
                 if (cnt == 0) {
                     if (stopFlag != S_STOPPED && stopFlag != S_TERMINATED)
-                        schedule();
+                        schedule(actorMessage.getDeadline());
                 } else {
                     final Thread w = waitingThread;
                     if (w != null) {
@@ -352,9 +401,34 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
 
     /**
      * Schedules the current actor for processing on the actor group's thread pool.
+     *
+     * @param deadline The deadline of the message to process next, passed to the pool if it is a DeadlinePool
+     */
+    private void schedule(final long deadline) {
+        final Pool pool = getActorGroup().getThreadPool();
+        if (deadline != DeadlinePool.NO_DEADLINE && pool instanceof DeadlinePool) {
+            ((DeadlinePool) pool).execute(this, deadline);
+        } else {
+            pool.execute(this);
+        }
+    }
+
+    /**
+     * Retrieves the deadline of the message to be processed in the next run.
+     * Must only be called by the thread, which is about to re-schedule the actor.
+     */
+    private long nextDeadline() {
+        transferQueues();
+        return outputQueue != null ? outputQueue.msg.getDeadline() : DeadlinePool.NO_DEADLINE;
+    }
+
+    /**
+     * Invoked by a DeadlinePool instead of run(), when the message the actor has been scheduled for missed its deadline.
+     * The message gets skipped, but the actor is kept consistent and re-scheduled for subsequent messages.
      */
-    private void schedule() {
-        actorGroup.getThreadPool().execute(this);
+    public final void expire() {
+        discardExpiredMessage = true;
+        run();
     }
 
     protected void scheduleLoop() {
@@ -448,6 +522,7 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
      */
     @Override
     public final SequentialProcessingActor start() {
+        if (actorGroup == null) actorGroup = Actors.defaultPooledActorGroup;
         if (!stopFlagUpdater.compareAndSet(this, S_NOT_STARTED, S_RUNNING)) {
             throw new IllegalStateException("Actor has already been started.");
         }
@@ -638,6 +713,11 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
     @SuppressWarnings({"ThrowCaughtLocally"})
     public void run() {
         boolean shouldTerminate = false;
+        final ActorTimeAccounting accounting = actorGroup.getTimeAccounting();
+        final long startCpuTime = accounting != null ? accounting.currentThreadCpuTime() : 0L;
+        final long startWallTime = accounting != null ? System.nanoTime() : 0L;
+        //control messages, like start, loop or timeout, don't count as processed messages
+        boolean payloadMessage = false;
         //noinspection OverlyBroadCatchBlock
         try {
             assert currentThread == null;
@@ -652,10 +732,16 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
 
                 final ActorMessage toProcess = getMessage();
 
+                if (discardExpiredMessage) {
+                    discardExpiredMessage = false;
+                    if (toProcess.getDeadline() != DeadlinePool.NO_DEADLINE) throw CONTINUE;
+                }
+
                 if (toProcess == startMessage) {
                     handleStart();
 
                     // if we came here it means no loop was started
+                    if (messageHandler != null) throw CONTINUE;
                     stopFlag = S_STOPPING;
                     throw STOP;
                 }
@@ -665,11 +751,18 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
                     throw new IllegalStateException("Should not reach here");
                 }
 
+                payloadMessage = toProcess.getPayLoad() != TIMEOUT;
+
                 if (reaction != null) {
                     reaction.offer(toProcess);
                     throw CONTINUE;
                 }
 
+                if (messageHandler != null) {
+                    runMessageHandler(toProcess);
+                    throw CONTINUE;
+                }
+
                 throw new IllegalStateException("Unexpected message " + toProcess);
             } catch (GroovyRuntimeException gre) {
                     throw ScriptBytecodeAdapter.unwrap(gre);
@@ -721,14 +814,44 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
             } finally {
                 deregisterCurrentActorWithThread();
                 currentThread = null;
-                final int cnt = countUpdater.decrementAndGet(this);
+                if (accounting != null) {
+                    recordTime(accounting, startCpuTime, startWallTime, (payloadMessage ? 1 : 0) + polledMessages);
+                }
+                final int cnt = countUpdater.addAndGet(this, -(1 + polledMessages));
+                polledMessages = 0;
                 if (cnt > 0 && isActive()) {
-                    schedule();
+                    schedule(nextDeadline());
                 }
             }
         }
     }
 
+    /**
+     * Adds the time spent in the current run to the actor's and the group's statistics.
+     * Called before the message counter gets decremented, so runs of the same actor never record concurrently.
+     *
+     * @param messages The number of payload messages processed in the run
+     */
+    private void recordTime(final ActorTimeAccounting accounting, final long startCpuTime, final long startWallTime, final int messages) {
+        final long wallTime = System.nanoTime() - startWallTime;
+        final long cpuTime = accounting.currentThreadCpuTime() - startCpuTime;
+        ActorTimeStatistics statistics = timeStatistics;
+        if (statistics == null || statistics.accounting != accounting) {
+            statistics = accounting.register(this);
+            timeStatistics = statistics;
+        }
+        accounting.record(statistics, messages, cpuTime, wallTime);
+    }
+
+    /**
+     * Retrieves the CPU and wall time consumed by the actor, provided time accounting has been enabled on the actor's group.
+     *
+     * @return The statistics or null, if the actor hasn't been accounted for yet
+     */
+    public final ActorTimeStatistics getTimeStatistics() {
+        return timeStatistics;
+    }
+
     /**
      * Ensures that the supplied closure will be invoked repeatedly in a loop.
      * The method never returns, but instead frees the processing thread back to the thread pool.
@@ -739,6 +862,9 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
         if (loopCode != null) {
             throw new IllegalStateException("The loop method must be only called once");
         }
+        if (messageHandler != null) {
+            throw new IllegalStateException("The loop method cannot be combined with become()");
+        }
 
         if (code instanceof Closure) {
             ((Closure) code).setResolveStrategy(Closure.DELEGATE_FIRST);
@@ -767,6 +893,10 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
 
         if (loopCode != null) {
             scheduleLoop();
+        } else if (messageHandler != null) {
+            // case of react called from a persistent message handler
+            obj2Sender.clear();
+            throw CONTINUE;
         } else {
             // case of react called directly from act ()
             stopFlag = S_STOPPING;
@@ -774,6 +904,133 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
         }
     }
 
+    /**
+     * Installs a persistent message handler, which will be invoked for every subsequent message until replaced
+     * by another call to become().
+     * Unlike loop() and react(), the handler is only prepared once and each message is then simply dispatched to it,
+     * so no continuation needs to be rebuilt for every message.
+     * The method returns normally, the actor stays alive after act() finishes as long as a handler is installed.
+     * A react() called from within the handler takes precedence for the next message, after which the handler resumes.
+     * The reply() and replyIfExists() methods are available inside the handler.
+     *
+     * @param handler The closure accepting a single message as a parameter
+     */
+    protected final void become(final Closure handler) {
+        if (!isActorThread()) {
+            throw new IllegalStateException("Cannot call become from thread which is not owned by the actor");
+        }
+        if (loopCode != null) {
+            throw new IllegalStateException("The become method cannot be combined with loop()");
+        }
+        if (handler.getMaximumNumberOfParameters() > 1) {
+            throw new IllegalArgumentException("Actor cannot process a multi-argument closures passed to become().");
+        }
+
+        final Closure code = (Closure) handler.clone();
+        code.setResolveStrategy(Closure.DELEGATE_FIRST);
+        code.setDelegate(this);
+        messageHandler = new MessageHandler(code);
+    }
+
+    /**
+     * Passes the message to the handler installed through become().
+     *
+     * @param message The message to process
+     */
+    private void runMessageHandler(final ActorMessage message) {
+        if (message.getPayLoad() == TIMEOUT) throw TIMEOUT;
+
+        //the previous message's senders have already been cleared, either below or by the react() that followed it
+        registerSender(message);
+
+        final MessageHandler handler = messageHandler;
+        handler.payload = message.getPayLoad();
+        try {
+            //noinspection deprecation
+            GroovyCategorySupport.use(REPLY_CATEGORY, handler);
+        } finally {
+            handler.payload = null;
+        }
+        //unless a react() is still pending, the handler has finished with the message,
+        //so the payloads mustn't keep their senders reachable any longer
+        if (reaction == null) obj2Sender.clear();
+        checkStopTerminate();
+    }
+
+    /**
+     * Wraps the closure passed to become(), so that the same instance can be run in the ReplyCategory for every message.
+     * The message being processed is held in a field for the duration of the call instead of being curried onto
+     * the closure.
+     */
+    private static final class MessageHandler extends Closure implements GeneratedClosure {
+        private static final long serialVersionUID = 3284815187465223427L;
+        private final Closure code;
+        private final boolean passMessage;
+        private Object payload = null;
+
+        private MessageHandler(final Closure code) {
+            super(code.getThisObject());
+            this.code = code;
+            this.passMessage = code.getMaximumNumberOfParameters() == 1;
+        }
+
+        @Override
+        public int getMaximumNumberOfParameters() { return 0; }
+
+        @Override
+        public Class[] getParameterTypes() { return new Class[0]; }
+
+        @Override
+        public Object call() {
+            return passMessage ? code.call(payload) : code.call();
+        }
+
+        public Object doCall() {
+            return call();
+        }
+    }
+
+    /**
+     * Makes the sender of the supplied message the target of subsequent reply() and replyIfExists() calls.
+     *
+     * @param message The message being processed
+     */
+    private void registerSender(final ActorMessage message) {
+        final List<MessageStream> senders = getSenders();
+        senders.clear();
+        senders.add(message.getSender());
+        obj2Sender.put(message.getPayLoad(), message.getSender());
+    }
+
+    /**
+     * Retrieves the next message waiting in the queue without blocking, so that a persistent message handler
+     * can process several queued messages in one go.
+     * The sender of the retrieved message becomes the target of subsequent reply() and replyIfExists() calls.
+     * Control messages (stop, terminate, timeout) are never retrieved and stay in the queue to be handled the usual way.
+     *
+     * @return The next message or null, if no message is available immediately
+     */
+    protected final ActorMessage pollQueuedMessage() {
+        if (!isActorThread()) {
+            throw new IllegalStateException("Queued messages can only be polled from within the actor's thread");
+        }
+        if (stopFlag == S_TERMINATING) return null;
+
+        transferQueues();
+        if (outputQueue == null) return null;
+
+        final ActorMessage toProcess = outputQueue.msg;
+        if (toProcess == stopMessage || toProcess == terminateMessage || toProcess == loopMessage || toProcess.getPayLoad() == TIMEOUT) {
+            return null;
+        }
+        outputQueue = outputQueue.next;
+        //the counter gets decremented once the current run finishes, not to let it drop to zero while still running
+        polledMessages++;
+
+        registerSender(toProcess);
+        return toProcess;
+    }
+
     protected final void checkStopTerminate() {
         if (stopFlag != S_RUNNING) {
             if (stopFlag == S_TERMINATING)
@@ -796,6 +1053,13 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
         doLoopCall();
     }
 
+    /**
+     * Holds the timer for timeouts of react methods, so that the timer thread only starts when first needed
+     */
+    private static final class TimeoutTimer {
+        private static final Timer timer = new Timer(true);
+    }
+
     /**
      * Buffers messages for the next continuation of an event-driven actor, handles timeouts and no-param continuations.
      *
@@ -844,7 +1108,7 @@ public abstract class SequentialProcessingActor extends Actor implements Runnabl
         }
 
         public void setTimeout(final long timeout) {
-            timer.schedule(new TimerTask() {
+            TimeoutTimer.timer.schedule(new TimerTask() {
                 @Override
                 public void run() {
                     if (!isReady()) {
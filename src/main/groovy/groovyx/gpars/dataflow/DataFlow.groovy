@@ -16,9 +16,13 @@
 
 package groovyx.gpars.dataflow
 
+import groovyx.gpars.GParsRuntime
 import groovyx.gpars.actor.Actor
 import groovyx.gpars.actor.ActorGroup
 import groovyx.gpars.dataflow.operator.DataFlowOperator
+import groovyx.gpars.scheduler.DeadlinePool
+import groovyx.gpars.scheduler.Pool
+import java.util.concurrent.TimeUnit
 
 /**
  * Contains factory methods to create dataflow actors and starting them.
@@ -30,8 +34,10 @@ public abstract class DataFlow {
 
     /**
      * The actor group used by all Dataflow Concurrency actors by default.
+     * The group runs its tasks on the pool shared through the GParsRuntime, which only starts its threads on first use,
+     * so merely loading the class doesn't create a thread pool.
      */
-    public static final DataFlowActorGroup DATA_FLOW_GROUP = new DataFlowActorGroup(1)
+    public static final DataFlowActorGroup DATA_FLOW_GROUP = new DataFlowActorGroup(GParsRuntime.getPool(GParsRuntime.Subsystem.DATAFLOW))
 
     /**
      * Tasks need no channels
@@ -67,6 +73,32 @@ public abstract class DataFlow {
         group.threadPool.execute code
     }
 
+    /**
+     * Creates a new task assigned to a thread from the default dataflow actor group, which should start within the given timeout.
+     * @param timeout The time to start the task within
+     * @param unit The unit of the timeout
+     * @param code The task body to run
+     */
+    public static void task(final long timeout, final TimeUnit unit, final Closure code) {
+        task DataFlow.DATA_FLOW_GROUP, timeout, unit, code
+    }
+
+    /**
+     * Creates a new task assigned to a thread from the supplied actor group, which should start within the given timeout.
+     * If the group uses a DeadlinePool, tasks are run in the earliest-deadline-first order and the task gets dropped
+     * once it misses its deadline, unless the pool is configured to run expired tasks late.
+     * With other pools the deadline is ignored.
+     * @param group The actor group to use threads of
+     * @param timeout The time to start the task within
+     * @param unit The unit of the timeout
+     * @param code The task body to run
+     */
+    public static void task(final ActorGroup group, final long timeout, final TimeUnit unit, final Closure code) {
+        final Pool pool = group.threadPool
+        if (pool instanceof DeadlinePool) pool.execute(code as Runnable, System.nanoTime() + unit.toNanos(timeout))
+        else pool.execute code
+    }
+
     /**
      * Creates an operator using the default operator actor group
      * @param channels A map specifying "inputs" and "outputs" - dataflow channels (instances of the DataFlowStream or DataFlowVariable classes) to use for inputs and outputs
@@ -17,6 +17,7 @@
 package groovyx.gpars.dataflow;
 
 import groovyx.gpars.actor.ActorGroup;
+import groovyx.gpars.scheduler.Pool;
 import groovyx.gpars.scheduler.ResizeablePool;
 
 /**
@@ -42,4 +43,13 @@ public final class DataFlowActorGroup extends ActorGroup {
     public DataFlowActorGroup(final int poolSize) {
         super(new ResizeablePool(false, poolSize));
     }
+
+    /**
+     * Creates a group of pooled actors, which will use the supplied thread pool.
+     *
+     * @param threadPool The pool to run the group's actors
+     */
+    public DataFlowActorGroup(final Pool threadPool) {
+        super(threadPool);
+    }
 }
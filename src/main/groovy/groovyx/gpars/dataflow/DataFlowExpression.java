@@ -23,6 +23,8 @@ import groovy.lang.MetaProperty;
 import groovyx.gpars.actor.Actors;
 import groovyx.gpars.actor.impl.MessageStream;
 import groovyx.gpars.remote.RemoteConnection;
+import groovyx.gpars.scheduler.IdleStrategy;
+import groovyx.gpars.scheduler.ManagedBlocking;
 import groovyx.gpars.remote.RemoteHost;
 import groovyx.gpars.serial.SerialContext;
 import groovyx.gpars.serial.SerialMsg;
@@ -195,6 +197,7 @@ public abstract class DataFlowExpression<T> extends WithSerialId implements Groo
      * @throws InterruptedException If the current thread gets interrupted while waiting for the variable to be bound
      */
     public T getVal() throws InterruptedException {
+        if (state != S_INITIALIZED && awaitBinding(0L)) return value;
         WaitingThread<T> newWaiting = null;
         while (state != S_INITIALIZED) {
             if (newWaiting == null) {
@@ -210,12 +213,17 @@ public abstract class DataFlowExpression<T> extends WithSerialId implements Groo
             newWaiting.previous = previous;
             if (waitingUpdater.compareAndSet(this, previous, newWaiting)) {
                 // ok, we are in the queue, so writer is responsible to process us
-                while (state != S_INITIALIZED) {
-                    LockSupport.park();
-                    if (Thread.currentThread().isInterrupted()) {
-                        newWaiting.set(true); // don't unpark please
-                        throw new InterruptedException();
+                final ManagedBlocking.Compensator compensator = ManagedBlocking.beginBlocking();
+                try {
+                    while (state != S_INITIALIZED) {
+                        LockSupport.park();
+                        if (Thread.currentThread().isInterrupted()) {
+                            newWaiting.set(true); // don't unpark please
+                            throw new InterruptedException();
+                        }
                     }
+                } finally {
+                    ManagedBlocking.endBlocking(compensator);
                 }
                 break;
             }
@@ -234,6 +242,7 @@ public abstract class DataFlowExpression<T> extends WithSerialId implements Groo
      */
     public T getVal(final long timeout, final TimeUnit units) throws InterruptedException {
         final long endNano = System.nanoTime() + units.toNanos(timeout);
+        if (state != S_INITIALIZED && awaitBinding(endNano)) return value;
         WaitingThread<T> newWaiting = null;
         while (state != S_INITIALIZED) {
             if (newWaiting == null) {
@@ -249,18 +258,23 @@ public abstract class DataFlowExpression<T> extends WithSerialId implements Groo
             newWaiting.previous = previous;
             if (waitingUpdater.compareAndSet(this, previous, newWaiting)) {
                 // ok, we are in the queue, so writer is responsible to process us
-                while (state != S_INITIALIZED) {
-                    final long toWait = endNano - System.nanoTime();
-                    if (toWait <= 0) {
-                        newWaiting.set(true); // don't unpark please
-                        return null;
-                    }
+                final ManagedBlocking.Compensator compensator = ManagedBlocking.beginBlocking();
+                try {
+                    while (state != S_INITIALIZED) {
+                        final long toWait = endNano - System.nanoTime();
+                        if (toWait <= 0) {
+                            newWaiting.set(true); // don't unpark please
+                            return null;
+                        }
 
-                    LockSupport.parkNanos(toWait);
-                    if (Thread.currentThread().isInterrupted()) {
-                        newWaiting.set(true); // don't unpark please
-                        throw new InterruptedException();
+                        LockSupport.parkNanos(toWait);
+                        if (Thread.currentThread().isInterrupted()) {
+                            newWaiting.set(true); // don't unpark please
+                            throw new InterruptedException();
+                        }
                     }
+                } finally {
+                    ManagedBlocking.endBlocking(compensator);
                 }
                 break;
             }
@@ -269,6 +283,21 @@ public abstract class DataFlowExpression<T> extends WithSerialId implements Groo
         return value;
     }
 
+    /**
+     * Lets the reader wait for the value according to the default idle strategy, before it gets queued and parked
+     *
+     * @param deadline The deadline of the wait, 0 if there's no deadline
+     * @return True, if the variable has been bound in the meantime
+     */
+    private boolean awaitBinding(final long deadline) {
+        final IdleStrategy idleStrategy = IdleStrategy.getDefault();
+        return idleStrategy.isSpinning() && idleStrategy.await(new IdleStrategy.Condition() {
+            public boolean isSatisfied() {
+                return state == S_INITIALIZED;
+            }
+        }, deadline);
+    }
+
     /**
      * Assigns a value to the variable. Returns silently if invoked on an already bound variable.
      *
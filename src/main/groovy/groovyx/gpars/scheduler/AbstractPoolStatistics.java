@@ -0,0 +1,95 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License. 
+
+package groovyx.gpars.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the parts of pool statistics common to all pools - the task timing histograms and the rejected task counter.
+ * Pools supply the values read from their underlying thread pools and wrap submitted tasks using the instrument() method.
+ *
+ * @author agent
+ */
+abstract class AbstractPoolStatistics implements PoolStatistics {
+
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final LatencyHistogram runTimes = new LatencyHistogram();
+    private final AtomicLong rejectedTasks = new AtomicLong(0L);
+    private volatile boolean timingEnabled;
+
+    public final long getRejectedTaskCount() {
+        return rejectedTasks.get();
+    }
+
+    public final boolean isTimingEnabled() {
+        return timingEnabled;
+    }
+
+    public final void setTimingEnabled(final boolean enabled) {
+        timingEnabled = enabled;
+    }
+
+    public final long[] getWaitTimeHistogram() {
+        return waitTimes.getCounts();
+    }
+
+    public final long[] getRunTimeHistogram() {
+        return runTimes.getCounts();
+    }
+
+    public final void reset() {
+        waitTimes.reset();
+        runTimes.reset();
+        rejectedTasks.set(0L);
+    }
+
+    /**
+     * Counts a task refused by the pool
+     */
+    final void taskRejected() {
+        rejectedTasks.incrementAndGet();
+    }
+
+    /**
+     * Wraps the task to measure its wait and run times, if timing is enabled
+     *
+     * @param task The task to submit to the pool
+     * @return The task to actually submit
+     */
+    final Runnable instrument(final Runnable task) {
+        return timingEnabled ? new TimedRunnable(task) : task;
+    }
+
+    private final class TimedRunnable implements Runnable {
+        private final Runnable task;
+        private final long submitted = System.nanoTime();
+
+        TimedRunnable(final Runnable task) {
+            this.task = task;
+        }
+
+        public void run() {
+            final long started = System.nanoTime();
+            waitTimes.record(started - submitted);
+            try {
+                task.run();
+            } finally {
+                runTimes.record(System.nanoTime() - started);
+            }
+        }
+    }
+}
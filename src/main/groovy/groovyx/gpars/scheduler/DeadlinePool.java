@@ -0,0 +1,294 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler;
+
+import groovyx.gpars.util.PoolUtils;
+
+import java.util.PriorityQueue;
+
+/**
+ * Runs tasks in the earliest-deadline-first order on top of an underlying pool.
+ * Tasks wait in a priority queue and only a limited number of them, the parallelism of the DeadlinePool,
+ * is handed over to the underlying pool at a time. Whenever a thread becomes available, the task with the nearest deadline
+ * is run next. Tasks without a deadline run after all tasks with a deadline, in the order of submission.
+ * Under overload, tasks whose deadline has passed before they got a thread are dropped, unless the pool has been configured
+ * to run them anyway. Such late tasks can detect their state through the isRunningLate() method.
+ * Actors and dataflow tasks pass deadlines to the pool through MessageStream.sendWithDeadline() and DataFlow.task() respectively.
+ * <pre>
+ * def group = new PooledActorGroup(new DeadlinePool(new ResizeablePool(true, 4), 4))
+ * actor.sendWithDeadline(request, 200, TimeUnit.MILLISECONDS)
+ * DataFlow.task(group, 1, TimeUnit.SECONDS) {...}
+ * </pre>
+ *
+ * @author agent
+ */
+public final class DeadlinePool implements Pool {
+
+    /**
+     * Indicates a task without a deadline
+     */
+    public static final long NO_DEADLINE = 0L;
+
+    private static final ThreadLocal<Boolean> runningLate = new ThreadLocal<Boolean>();
+
+    private final Pool pool;
+    private final int parallelism;
+    private final boolean dropExpired;
+
+    /**
+     * Guards the queue and the counters
+     */
+    private final Object lock = new Object();
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+
+    private int activeRunners = 0;
+    private long sequence = 0L;
+    private long expiredTasks = 0L;
+    private long droppedTasks = 0L;
+
+    private volatile boolean shutdown = false;
+
+    private final Runnable runner = new Runnable() {
+        public void run() {
+            runTasks();
+        }
+    };
+
+    /**
+     * Creates a pool with the default parallelism, which drops expired tasks
+     *
+     * @param pool The underlying pool to run the tasks
+     */
+    public DeadlinePool(final Pool pool) {
+        this(pool, PoolUtils.retrieveDefaultPoolSize());
+    }
+
+    /**
+     * Creates a pool, which drops expired tasks
+     *
+     * @param pool        The underlying pool to run the tasks
+     * @param parallelism The maximum number of tasks handed over to the underlying pool at a time
+     */
+    public DeadlinePool(final Pool pool, final int parallelism) {
+        this(pool, parallelism, true);
+    }
+
+    /**
+     * Creates a pool
+     *
+     * @param pool        The underlying pool to run the tasks
+     * @param parallelism The maximum number of tasks handed over to the underlying pool at a time
+     * @param dropExpired Indicates, whether tasks past their deadline should be dropped or run late
+     */
+    public DeadlinePool(final Pool pool, final int parallelism, final boolean dropExpired) {
+        if (pool == null) throw new IllegalArgumentException("The underlying pool must be specified");
+        if (parallelism < 1) throw new IllegalArgumentException("The parallelism must be a positive number, got " + parallelism);
+        this.pool = pool;
+        this.parallelism = parallelism;
+        this.dropExpired = dropExpired;
+    }
+
+    /**
+     * Indicates, whether the task running in the current thread has been started after its deadline had passed.
+     * Only tasks run by a DeadlinePool, which doesn't drop expired tasks, can ever be running late.
+     *
+     * @return True, if the current task has missed its deadline
+     */
+    public static boolean isRunningLate() {
+        return runningLate.get() != null;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public boolean isDropExpired() {
+        return dropExpired;
+    }
+
+    /**
+     * Retrieves the number of tasks waiting for a thread
+     */
+    public int getQueueLength() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Retrieves the number of tasks, which reached a thread after their deadline, both dropped and run late
+     */
+    public long getExpiredTaskCount() {
+        synchronized (lock) {
+            return expiredTasks;
+        }
+    }
+
+    /**
+     * Retrieves the number of expired tasks, which have been dropped
+     */
+    public long getDroppedTaskCount() {
+        synchronized (lock) {
+            return droppedTasks;
+        }
+    }
+
+    /**
+     * Schedules a task without a deadline
+     *
+     * @param task The task to schedule
+     */
+    public void execute(final Runnable task) {
+        execute(task, NO_DEADLINE);
+    }
+
+    /**
+     * Schedules a task, which should start before the given deadline.
+     * Tasks implementing the Expirable interface are not dropped, but their expire() method gets invoked instead of run().
+     *
+     * @param task     The task to schedule
+     * @param deadline The System.nanoTime() based time to start the task by, NO_DEADLINE if the task has no deadline
+     */
+    public void execute(final Runnable task, final long deadline) {
+        if (shutdown) throw new IllegalStateException("The DeadlinePool has been shut down.");
+        synchronized (lock) {
+            queue.add(new Entry(task, deadline, sequence++));
+            if (activeRunners >= parallelism) return;
+            activeRunners++;
+        }
+        try {
+            pool.execute(runner);
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                activeRunners--;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the core threads of the underlying pool
+     */
+    public int prestart() {
+        return pool.prestart();
+    }
+
+    /**
+     * Resizes the underlying pool
+     */
+    public void resize(final int poolSize) {
+        pool.resize(poolSize);
+    }
+
+    /**
+     * Resets the size of the underlying pool
+     */
+    public void resetDefaultSize() {
+        pool.resetDefaultSize();
+    }
+
+    /**
+     * Rejects new tasks and shuts down the underlying pool
+     */
+    public void shutdown() {
+        shutdown = true;
+        pool.shutdown();
+    }
+
+    /**
+     * Keeps running the tasks with the nearest deadline, until the queue is empty
+     */
+    @SuppressWarnings({"CatchGenericClass"})
+    private void runTasks() {
+        while (true) {
+            final Entry entry;
+            final boolean expired;
+            synchronized (lock) {
+                entry = queue.poll();
+                if (entry == null) {
+                    activeRunners--;
+                    return;
+                }
+                expired = entry.deadline != NO_DEADLINE && System.nanoTime() - entry.deadline > 0L;
+                if (expired) {
+                    expiredTasks++;
+                    if (dropExpired) droppedTasks++;
+                }
+            }
+            if (expired && dropExpired) {
+                try {
+                    if (entry.task instanceof Expirable) ((Expirable) entry.task).expire();
+                } catch (Throwable e) {
+                    reportFailure(e);
+                }
+                continue;
+            }
+            if (expired) runningLate.set(Boolean.TRUE);
+            try {
+                entry.task.run();
+            } catch (Throwable e) {
+                reportFailure(e);
+            } finally {
+                if (expired) runningLate.remove();
+            }
+        }
+    }
+
+    /**
+     * Hands an exception thrown by a task over to the current thread's uncaught exception handler,
+     * so that the runner can carry on with the remaining tasks
+     */
+    private static void reportFailure(final Throwable e) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    /**
+     * Implemented by tasks, which must not be silently dropped once expired, like actors,
+     * which need to update their state even if the message they have been scheduled for is to be skipped.
+     */
+    public interface Expirable {
+
+        /**
+         * Invoked in place of run(), when the task gets dropped because of a missed deadline
+         */
+        void expire();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final Runnable task;
+        private final long deadline;
+        private final long order;
+
+        private Entry(final Runnable task, final long deadline, final long order) {
+            this.task = task;
+            this.deadline = deadline;
+            this.order = order;
+        }
+
+        public int compareTo(final Entry other) {
+            if (deadline != other.deadline) {
+                if (deadline == NO_DEADLINE) return 1;
+                if (other.deadline == NO_DEADLINE) return -1;
+                //nanoTime values may overflow, so only their difference can be compared
+                return deadline - other.deadline < 0L ? -1 : 1;
+            }
+            return order < other.order ? -1 : order == other.order ? 0 : 1;
+        }
+    }
+}
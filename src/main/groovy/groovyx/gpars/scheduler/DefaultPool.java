@@ -18,8 +18,9 @@ package groovyx.gpars.scheduler;
 
 import groovyx.gpars.util.PoolUtils;
 
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -34,10 +35,75 @@ import java.util.concurrent.atomic.AtomicLong;
  * @author Vaclav Pech
  *         Date: Feb 27, 2009
  */
-public class DefaultPool implements Pool {
+public class DefaultPool implements InstrumentedPool {
     private ThreadPoolExecutor pool;
+    private final AbstractPoolStatistics statistics = new AbstractPoolStatistics() {
+        public int getPoolSize() {
+            return pool.getPoolSize();
+        }
+
+        public int getActiveThreadCount() {
+            return pool.getActiveCount();
+        }
+
+        public int getIdleThreadCount() {
+            return Math.max(0, pool.getPoolSize() - pool.getActiveCount());
+        }
+
+        public int getQueueLength() {
+            return pool.getQueue().size();
+        }
+
+        public long getStealCount() {
+            return 0L;
+        }
+    };
     private static final long SHUTDOWN_TIMEOUT = 30L;
 
+    /**
+     * Guards the pool size while compensating for blocked threads
+     */
+    private final Object sizeLock = new Object();
+
+    /**
+     * The number of core threads added to compensate for blocked threads
+     */
+    private int compensatingThreads = 0;
+
+    /**
+     * The number of times the maximum pool size had to be raised to add a compensating thread
+     */
+    private int raisedMaximum = 0;
+
+    /**
+     * Temporarily adds a core thread for each pool thread blocked in a managed blocking call
+     */
+    private final ManagedBlocking.Compensator compensator = new ManagedBlocking.Compensator() {
+        public void blockingStarted() {
+            synchronized (sizeLock) {
+                final int corePoolSize = pool.getCorePoolSize() + 1;
+                if (pool.getMaximumPoolSize() < corePoolSize) {
+                    pool.setMaximumPoolSize(corePoolSize);
+                    raisedMaximum++;
+                }
+                pool.setCorePoolSize(corePoolSize);
+                compensatingThreads++;
+            }
+        }
+
+        public void blockingFinished() {
+            synchronized (sizeLock) {
+                if (compensatingThreads == 0) return;
+                compensatingThreads--;
+                pool.setCorePoolSize(pool.getCorePoolSize() - 1);
+                if (raisedMaximum > 0) {
+                    raisedMaximum--;
+                    pool.setMaximumPoolSize(pool.getMaximumPoolSize() - 1);
+                }
+            }
+        }
+    };
+
     /**
      * Creates the pool with default number of daemon threads.
      */
@@ -63,6 +129,7 @@ public class DefaultPool implements Pool {
     public DefaultPool(final boolean daemon, final int poolSize) {
         if (poolSize < 0) throw new IllegalStateException(Pool.POOL_SIZE_MUST_BE_A_NON_NEGATIVE_NUMBER);
         this.pool = DefaultPool.createPool(daemon, poolSize);
+        this.pool.setThreadFactory(ManagedBlocking.bind(this.pool.getThreadFactory(), compensator));
     }
 
     /**
@@ -72,6 +139,7 @@ public class DefaultPool implements Pool {
      */
     public DefaultPool(final ThreadPoolExecutor pool) {
         this.pool = pool;
+        this.pool.setThreadFactory(ManagedBlocking.bind(pool.getThreadFactory(), compensator));
     }
 
     /**
@@ -84,7 +152,7 @@ public class DefaultPool implements Pool {
      */
     private static ThreadPoolExecutor createPool(final boolean daemon, final int poolSize) {
         assert poolSize > 0;
-        return (ThreadPoolExecutor) Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new IdleStrategyQueue(), new ThreadFactory() {
             public Thread newThread(final Runnable r) {
                 final Thread thread = new Thread(r, DefaultPool.createThreadName());
                 thread.setDaemon(daemon);
@@ -121,7 +189,9 @@ public class DefaultPool implements Pool {
      */
     public final void resize(final int poolSize) {
         if (poolSize < 0) throw new IllegalStateException(Pool.POOL_SIZE_MUST_BE_A_NON_NEGATIVE_NUMBER);
-        pool.setCorePoolSize(poolSize);
+        synchronized (sizeLock) {
+            pool.setCorePoolSize(poolSize + compensatingThreads);
+        }
     }
 
     /**
@@ -131,13 +201,63 @@ public class DefaultPool implements Pool {
         resize(PoolUtils.retrieveDefaultPoolSize());
     }
 
+    /**
+     * Starts all the pool's core threads ahead of time, so that the first tasks don't pay for thread creation
+     *
+     * @return The number of threads started
+     */
+    public final int prestart() {
+        return pool.prestartAllCoreThreads();
+    }
+
     /**
      * schedules a new task for processing with the pool
      *
      * @param task The task to schedule
      */
     public final void execute(final Runnable task) {
-        pool.execute(task);
+        try {
+            pool.execute(statistics.instrument(task));
+        } catch (IllegalStateException e) {
+            statistics.taskRejected();
+            throw e;
+        } catch (RejectedExecutionException e) {
+            statistics.taskRejected();
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the strategy idle workers use to wait for new tasks
+     *
+     * @return The strategy or null, if the pool's task queue doesn't support idle strategies
+     */
+    public final IdleStrategy getIdleStrategy() {
+        final BlockingQueue<Runnable> queue = pool.getQueue();
+        return queue instanceof IdleStrategyQueue ? ((IdleStrategyQueue) queue).getIdleStrategy() : null;
+    }
+
+    /**
+     * Sets the strategy idle workers use to wait for new tasks.
+     * Only pools with a queue holding the submitted tasks support idle strategies, pools handing tasks over directly
+     * to threads, like the unbounded ResizeablePool, do not.
+     *
+     * @param strategy The strategy to use, null to use the default strategy
+     */
+    public final void setIdleStrategy(final IdleStrategy strategy) {
+        final BlockingQueue<Runnable> queue = pool.getQueue();
+        if (!(queue instanceof IdleStrategyQueue))
+            throw new IllegalStateException("The pool's task queue doesn't support idle strategies: " + queue.getClass().getName());
+        ((IdleStrategyQueue) queue).idleStrategy = strategy;
+    }
+
+    /**
+     * Retrieves the statistics of the pool
+     *
+     * @return The statistics view
+     */
+    public final PoolStatistics getStatistics() {
+        return statistics;
     }
 
     /**
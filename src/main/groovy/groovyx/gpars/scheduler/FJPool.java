@@ -19,6 +19,7 @@ package groovyx.gpars.scheduler;
 import groovyx.gpars.util.PoolUtils;
 import jsr166y.forkjoin.ForkJoinPool;
 
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -30,8 +31,29 @@ import java.util.concurrent.TimeUnit;
  * @author Vaclav Pech
  *         Date: Feb 27, 2009
  */
-public class FJPool implements Pool {
+public class FJPool implements InstrumentedPool {
     protected ForkJoinPool pool;
+    final AbstractPoolStatistics statistics = new AbstractPoolStatistics() {
+        public int getPoolSize() {
+            return pool.getPoolSize();
+        }
+
+        public int getActiveThreadCount() {
+            return pool.getActiveThreadCount();
+        }
+
+        public int getIdleThreadCount() {
+            return pool.getIdleThreadCount();
+        }
+
+        public int getQueueLength() {
+            return (int) pool.getTotalPerThreadQueueSize();
+        }
+
+        public long getStealCount() {
+            return pool.getStealCount();
+        }
+    };
     private final int configuredPoolSize;
     private static final long DEFAULT_SHUTDOWN_TIMEOUT = 30L;
 
@@ -91,13 +113,36 @@ public class FJPool implements Pool {
         resize(PoolUtils.retrieveDefaultPoolSize());
     }
 
+    /**
+     * The fork/join pool starts all its threads upon creation, so there's nothing to start ahead of time
+     *
+     * @return Always 0
+     */
+    public final int prestart() {
+        return 0;
+    }
+
     /**
      * schedules a new task for processing with the pool
      *
      * @param task The task to schedule
      */
     public void execute(final Runnable task) {
-        pool.submit(new FJRunnableTask(task));
+        try {
+            pool.submit(new FJRunnableTask(statistics.instrument(task)));
+        } catch (RejectedExecutionException e) {
+            statistics.taskRejected();
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the statistics of the pool
+     *
+     * @return The statistics view
+     */
+    public final PoolStatistics getStatistics() {
+        return statistics;
     }
 
     /**
@@ -0,0 +1,361 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler;
+
+import groovyx.gpars.util.PoolUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Shares a single underlying pool among several actor groups fairly.
+ * Each group gets its own share of the pool, a Pool view with a weight and an optional quota.
+ * Tasks submitted to a share wait in the share's own queue and only a limited number of them, the parallelism
+ * of the FairPool, is handed over to the underlying pool at a time. Whenever a thread becomes available, the next task
+ * is taken from the busy share, which has so far received the least service relative to its weight (stride scheduling).
+ * A share with weight 3 thus runs three times as many tasks as a share with weight 1, while both have tasks waiting.
+ * A share never occupies more threads than its quota, so a flooding group cannot take over the whole pool.
+ * <pre>
+ * def fairPool = new FairPool(new ResizeablePool(true, 8), 8)
+ * def interactive = new PooledActorGroup(fairPool.createShare('interactive', 10))
+ * def bulk = new PooledActorGroup(fairPool.createShare('bulk', 1, 4))
+ * </pre>
+ *
+ * @author agent
+ */
+public final class FairPool implements Pool {
+
+    /**
+     * The amount of virtual time a share with weight 1 consumes by running a task
+     */
+    private static final long STRIDE_UNIT = 1L << 20;
+
+    private final Pool pool;
+    private final int parallelism;
+
+    /**
+     * Guards the shares and the scheduling state
+     */
+    private final Object lock = new Object();
+
+    private final List<Share> shares = new ArrayList<Share>();
+
+    /**
+     * The number of runners currently submitted to the underlying pool
+     */
+    private int activeRunners = 0;
+
+    /**
+     * The virtual time of the most recently scheduled task, shares becoming busy again start from here
+     */
+    private long globalPass = 0L;
+
+    private volatile boolean shutdown = false;
+
+    private final Share defaultShare;
+
+    private final Runnable runner = new Runnable() {
+        public void run() {
+            runTasks();
+        }
+    };
+
+    /**
+     * Creates a fair pool with the default parallelism
+     *
+     * @param pool The underlying pool to run the tasks
+     */
+    public FairPool(final Pool pool) {
+        this(pool, PoolUtils.retrieveDefaultPoolSize());
+    }
+
+    /**
+     * Creates a fair pool
+     *
+     * @param pool        The underlying pool to run the tasks
+     * @param parallelism The maximum number of tasks handed over to the underlying pool at a time
+     */
+    public FairPool(final Pool pool, final int parallelism) {
+        if (pool == null) throw new IllegalArgumentException("The underlying pool must be specified");
+        if (parallelism < 1) throw new IllegalArgumentException("The parallelism must be a positive number, got " + parallelism);
+        this.pool = pool;
+        this.parallelism = parallelism;
+        this.defaultShare = createShare("default", 1);
+    }
+
+    /**
+     * Creates a new share without a quota
+     *
+     * @param name   The name of the share
+     * @param weight The relative weight of the share
+     * @return The share to pass to an actor group
+     */
+    public Share createShare(final String name, final int weight) {
+        return createShare(name, weight, parallelism);
+    }
+
+    /**
+     * Creates a new share
+     *
+     * @param name   The name of the share
+     * @param weight The relative weight of the share
+     * @param quota  The maximum number of the share's tasks to run concurrently
+     * @return The share to pass to an actor group
+     */
+    public Share createShare(final String name, final int weight, final int quota) {
+        if (weight < 1) throw new IllegalArgumentException("The weight must be a positive number, got " + weight);
+        if (quota < 1) throw new IllegalArgumentException("The quota must be a positive number, got " + quota);
+        final Share share = new Share(name, weight, quota);
+        synchronized (lock) {
+            share.pass = globalPass;
+            shares.add(share);
+        }
+        return share;
+    }
+
+    /**
+     * Retrieves the maximum number of tasks handed over to the underlying pool at a time
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Runs the task in the default share with weight 1
+     */
+    public void execute(final Runnable task) {
+        defaultShare.execute(task);
+    }
+
+    /**
+     * Starts the core threads of the underlying pool
+     */
+    public int prestart() {
+        return pool.prestart();
+    }
+
+    /**
+     * Resizes the underlying pool
+     */
+    public void resize(final int poolSize) {
+        pool.resize(poolSize);
+    }
+
+    /**
+     * Resets the size of the underlying pool
+     */
+    public void resetDefaultSize() {
+        pool.resetDefaultSize();
+    }
+
+    /**
+     * Rejects new tasks in all shares and shuts down the underlying pool
+     */
+    public void shutdown() {
+        shutdown = true;
+        pool.shutdown();
+    }
+
+    /**
+     * Hands a new runner over to the underlying pool, if there's a task waiting and the parallelism allows it
+     */
+    private void signal() {
+        synchronized (lock) {
+            if (activeRunners >= parallelism || !hasEligibleShare()) return;
+            activeRunners++;
+        }
+        try {
+            pool.execute(runner);
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                activeRunners--;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Keeps running the tasks picked by the fair scheduling, until there's no eligible task left
+     */
+    @SuppressWarnings({"CatchGenericClass"})
+    private void runTasks() {
+        while (true) {
+            final Share share;
+            final Runnable task;
+            synchronized (lock) {
+                share = pickShare();
+                if (share == null) {
+                    activeRunners--;
+                    return;
+                }
+                task = share.queue.removeFirst();
+                share.running++;
+                share.pass += share.stride;
+                globalPass = share.pass;
+            }
+            try {
+                task.run();
+            } catch (Throwable e) {
+                reportFailure(e);
+            } finally {
+                synchronized (lock) {
+                    share.running--;
+                    share.completedTasks++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands an exception thrown by a task over to the current thread's uncaught exception handler,
+     * so that the runner can carry on with the remaining tasks
+     */
+    private static void reportFailure(final Throwable e) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    /**
+     * Finds the share with tasks waiting, which has received the least service so far. Must be called while holding the lock.
+     */
+    private Share pickShare() {
+        Share best = null;
+        for (final Share share : shares) {
+            if (share.isEligible() && (best == null || share.pass < best.pass)) best = share;
+        }
+        return best;
+    }
+
+    private boolean hasEligibleShare() {
+        for (final Share share : shares) {
+            if (share.isEligible()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * A part of the FairPool dedicated to a single actor group.
+     * Resizing a share changes its quota.
+     */
+    public final class Share implements Pool {
+        private final String name;
+        private final int weight;
+        private final long stride;
+        private final LinkedList<Runnable> queue = new LinkedList<Runnable>();
+
+        private int quota;
+        private int running = 0;
+        private long pass;
+        private long completedTasks = 0L;
+        private volatile boolean shareShutdown = false;
+
+        private Share(final String name, final int weight, final int quota) {
+            this.name = name;
+            this.weight = weight;
+            this.quota = quota;
+            this.stride = STRIDE_UNIT / (long) weight;
+        }
+
+        private boolean isEligible() {
+            return !queue.isEmpty() && running < quota;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public int getQuota() {
+            synchronized (lock) {
+                return quota;
+            }
+        }
+
+        /**
+         * Retrieves the number of the share's tasks waiting to be run
+         */
+        public int getQueueLength() {
+            synchronized (lock) {
+                return queue.size();
+            }
+        }
+
+        /**
+         * Retrieves the number of the share's tasks run so far
+         */
+        public long getCompletedTaskCount() {
+            synchronized (lock) {
+                return completedTasks;
+            }
+        }
+
+        public void execute(final Runnable task) {
+            if (shutdown || shareShutdown) throw new IllegalStateException("The share " + name + " has been shut down.");
+            synchronized (lock) {
+                if (queue.isEmpty() && running == 0) {
+                    //an idle share must not make up for the time it wasn't busy
+                    pass = Math.max(pass, globalPass);
+                }
+                queue.addLast(task);
+            }
+            signal();
+        }
+
+        /**
+         * Starts the core threads of the underlying pool
+         */
+        public int prestart() {
+            return pool.prestart();
+        }
+
+        /**
+         * Sets the quota of the share
+         *
+         * @param poolSize The maximum number of the share's tasks to run concurrently
+         */
+        public void resize(final int poolSize) {
+            if (poolSize < 1) throw new IllegalArgumentException("The quota must be a positive number, got " + poolSize);
+            synchronized (lock) {
+                quota = poolSize;
+            }
+            signal();
+        }
+
+        /**
+         * Removes the quota of the share
+         */
+        public void resetDefaultSize() {
+            resize(parallelism);
+        }
+
+        /**
+         * Rejects new tasks submitted to the share. Tasks already waiting will still be run. The underlying pool is not affected.
+         */
+        public void shutdown() {
+            shareShutdown = true;
+        }
+
+        @Override
+        public String toString() {
+            return "Share " + name + " (weight " + weight + ')';
+        }
+    }
+}
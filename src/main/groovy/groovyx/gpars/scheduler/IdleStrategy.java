@@ -0,0 +1,194 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides how a thread waits for work or for a value before it gets parked by the operating system.
+ * Parking and unparking a thread costs tens of microseconds, so latency-sensitive applications may prefer to burn
+ * some CPU time spinning for a bounded amount of time first, hoping the awaited event arrives in the meantime.
+ * The strategy is applied by idle pool workers of DefaultPool and Scheduler, actors blocked in receive(),
+ * threads reading unbound DataFlowVariables and threads waiting in sendAndWait().
+ * Unless configured otherwise on the pool or actor group, the default strategy is used, which parks immediately.
+ * <pre>
+ * IdleStrategy.setDefault(IdleStrategy.spinThenPark(50, TimeUnit.MICROSECONDS))
+ * pool.idleStrategy = IdleStrategy.busySpin(20, TimeUnit.MICROSECONDS)
+ * </pre>
+ *
+ * @author agent
+ */
+public abstract class IdleStrategy {
+
+    /**
+     * The number of busy iterations spinThenPark() performs before starting to park for short periods
+     */
+    private static final int SPIN_TRIES = 100;
+
+    /**
+     * The longest period spinThenPark() parks for, before checking the condition again
+     */
+    private static final long MAX_BACKOFF = TimeUnit.MICROSECONDS.toNanos(100L);
+
+    private static final IdleStrategy PARK = new IdleStrategy(0L) {
+        @Override
+        protected void idle(final int iteration) {
+        }
+    };
+
+    private static volatile IdleStrategy defaultStrategy = PARK;
+
+    /**
+     * The maximum time in nanoseconds to spend before the caller parks the thread
+     */
+    private final long maxSpinTime;
+
+    private IdleStrategy(final long maxSpinTime) {
+        if (maxSpinTime < 0L) throw new IllegalArgumentException("The spin time must not be negative, got " + maxSpinTime);
+        this.maxSpinTime = maxSpinTime;
+    }
+
+    /**
+     * The thread gets parked immediately. No CPU time is wasted, but waking the thread up takes longer.
+     *
+     * @return The strategy instance
+     */
+    public static IdleStrategy park() {
+        return PARK;
+    }
+
+    /**
+     * The thread keeps checking the awaited condition in a tight loop up to the given time and gets parked afterwards.
+     * Gives the lowest latency at the cost of fully occupying a CPU core while spinning.
+     *
+     * @param maxSpinTime The maximum time to spin
+     * @param unit        The unit of the time
+     * @return The strategy instance
+     */
+    public static IdleStrategy busySpin(final long maxSpinTime, final TimeUnit unit) {
+        return new IdleStrategy(unit.toNanos(maxSpinTime)) {
+            @Override
+            protected void idle(final int iteration) {
+            }
+        };
+    }
+
+    /**
+     * The thread keeps checking the awaited condition up to the given time, yielding the CPU between the checks,
+     * and gets parked afterwards.
+     *
+     * @param maxSpinTime The maximum time to spin
+     * @param unit        The unit of the time
+     * @return The strategy instance
+     */
+    public static IdleStrategy spinYield(final long maxSpinTime, final TimeUnit unit) {
+        return new IdleStrategy(unit.toNanos(maxSpinTime)) {
+            @Override
+            protected void idle(final int iteration) {
+                Thread.yield();
+            }
+        };
+    }
+
+    /**
+     * The thread spins briefly, then parks for exponentially growing short periods checking the awaited condition
+     * in between, up to the given time. Afterwards it gets parked until woken up.
+     *
+     * @param maxSpinTime The maximum time to spin
+     * @param unit        The unit of the time
+     * @return The strategy instance
+     */
+    public static IdleStrategy spinThenPark(final long maxSpinTime, final TimeUnit unit) {
+        return new IdleStrategy(unit.toNanos(maxSpinTime)) {
+            @Override
+            protected void idle(final int iteration) {
+                if (iteration < SPIN_TRIES) return;
+                final int shift = Math.min(iteration - SPIN_TRIES, 30);
+                LockSupport.parkNanos(Math.min(1000L << shift, MAX_BACKOFF));
+            }
+        };
+    }
+
+    /**
+     * Retrieves the strategy used, when no other strategy has been configured
+     *
+     * @return The default strategy
+     */
+    public static IdleStrategy getDefault() {
+        return defaultStrategy;
+    }
+
+    /**
+     * Sets the strategy to use, when no other strategy has been configured
+     *
+     * @param strategy The new default strategy
+     */
+    public static void setDefault(final IdleStrategy strategy) {
+        if (strategy == null) throw new IllegalArgumentException("The default idle strategy cannot be null");
+        defaultStrategy = strategy;
+    }
+
+    /**
+     * @return True, if the strategy waits for the condition before the thread gets parked
+     */
+    public final boolean isSpinning() {
+        return maxSpinTime > 0L;
+    }
+
+    /**
+     * @return The maximum time in nanoseconds the strategy waits before the thread gets parked
+     */
+    public final long getMaxSpinTime() {
+        return maxSpinTime;
+    }
+
+    /**
+     * Waits for the condition to become satisfied, up to the maximum spin time of the strategy.
+     * Returns early, if the thread gets interrupted or the deadline passes.
+     *
+     * @param condition The condition to wait for
+     * @param deadline  The System.nanoTime() based time not to wait beyond, 0 if there is no deadline
+     * @return True, if the condition has been satisfied, false if the caller should park the thread
+     */
+    public final boolean await(final Condition condition, final long deadline) {
+        if (maxSpinTime == 0L) return false;
+        final long start = System.nanoTime();
+        final long end = deadline == 0L || deadline - start > maxSpinTime ? start + maxSpinTime : deadline;
+        int iteration = 0;
+        while (!condition.isSatisfied()) {
+            if (System.nanoTime() - end >= 0L || Thread.currentThread().isInterrupted()) return false;
+            idle(iteration);
+            if (iteration < Integer.MAX_VALUE) iteration++;
+        }
+        return true;
+    }
+
+    /**
+     * Invoked between two checks of the awaited condition
+     *
+     * @param iteration The number of checks performed so far
+     */
+    protected abstract void idle(final int iteration);
+
+    /**
+     * The event a thread is waiting for
+     */
+    public interface Condition {
+        boolean isSatisfied();
+    }
+}
@@ -0,0 +1,79 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The task queue of DefaultPool, which lets idle workers wait for new tasks according to an IdleStrategy
+ * before they block on the queue.
+ *
+ * @author agent
+ */
+@SuppressWarnings({"CloneableClassInSecureContext"})
+class IdleStrategyQueue extends LinkedBlockingQueue<Runnable> {
+    private static final long serialVersionUID = 3457316216386573251L;
+
+    /**
+     * The strategy to use, null to use the default one
+     */
+    volatile IdleStrategy idleStrategy = null;
+
+    private final IdleStrategy.Condition notEmpty = new IdleStrategy.Condition() {
+        public boolean isSatisfied() {
+            return !isEmpty();
+        }
+    };
+
+    IdleStrategyQueue() {
+    }
+
+    IdleStrategyQueue(final int capacity) {
+        super(capacity);
+    }
+
+    IdleStrategy getIdleStrategy() {
+        final IdleStrategy strategy = idleStrategy;
+        return strategy != null ? strategy : IdleStrategy.getDefault();
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        final Runnable task = spin(0L);
+        return task != null ? task : super.take();
+    }
+
+    @Override
+    public Runnable poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        final Runnable task = spin(deadline);
+        return task != null ? task : super.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Waits for a task according to the idle strategy
+     *
+     * @param deadline The deadline of the wait, 0 if there's no deadline
+     * @return The task or null, if the worker should block
+     */
+    private Runnable spin(final long deadline) {
+        final IdleStrategy strategy = getIdleStrategy();
+        if (!strategy.isSpinning() || !isEmpty()) return poll();
+        return strategy.await(notEmpty, deadline) ? poll() : null;
+    }
+}
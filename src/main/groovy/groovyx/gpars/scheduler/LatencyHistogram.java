@@ -0,0 +1,87 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License. 
+
+package groovyx.gpars.scheduler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations with exponentially growing buckets.
+ * The bucket at index i counts durations lower than 2^i microseconds, the last bucket counts all longer durations.
+ *
+ * @author agent
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of buckets, the last but one bucket reaching over half an hour
+     */
+    public static final int BUCKET_COUNT = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Counts the supplied duration into the appropriate bucket
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(final long nanos) {
+        final long micros = nanos / 1000L;
+        final int index = micros <= 0L ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+        buckets.incrementAndGet(Math.min(index, BUCKET_COUNT - 1));
+    }
+
+    /**
+     * Retrieves the upper limit of the given bucket
+     *
+     * @param index The index of the bucket
+     * @return The limit in microseconds, Long.MAX_VALUE for the last bucket
+     */
+    public static long getBucketLimit(final int index) {
+        return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << index;
+    }
+
+    /**
+     * @return A snapshot of the counts in all buckets
+     */
+    public long[] getCounts() {
+        final long[] result = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            result[i] = buckets.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return The total number of recorded durations
+     */
+    public long getTotalCount() {
+        long total = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += buckets.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Clears all the buckets
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0L);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler;
+
+import jsr166y.forkjoin.ForkJoinPool;
+import jsr166y.forkjoin.ForkJoinWorkerThread;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Lets pool threads, which are about to block, notify their pool, so that it can temporarily add a compensating thread
+ * and keep its parallelism while the thread is blocked. The compensating thread retires once the blocked thread continues.
+ * Actors blocked in receive(), threads reading unbound DataFlowVariables and threads waiting in sendAndWait()
+ * use the hook, so pools no longer need to be oversized just in case some of their threads block.
+ * Threads of DefaultPool and ResizeablePool are compensated for by the pool itself, fork/join worker threads, used by FJPool,
+ * through adding workers to the ForkJoinPool, provided tasks are waiting to be processed.
+ * The Scheduler counts its blocked workers and detects workers blocked for other reasons on its own.
+ * <pre>
+ * final ManagedBlocking.Compensator compensator = ManagedBlocking.beginBlocking()
+ * try {
+ *     ...
+ * } finally {
+ *     ManagedBlocking.endBlocking(compensator)
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class ManagedBlocking {
+
+    /**
+     * The compensating pool of the current thread, set for threads created by pools supporting compensation
+     */
+    private static final ThreadLocal<Compensator> workerPool = new ThreadLocal<Compensator>();
+
+    private static volatile boolean enabled = true;
+
+    private ManagedBlocking() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Switches the compensation on or off globally
+     *
+     * @param value True to let pools compensate for blocked threads
+     */
+    public static void setEnabled(final boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * Notifies the pool of the current thread, if any, that the thread is about to block
+     *
+     * @return The compensator to pass to endBlocking(), null if the current thread hasn't been compensated for
+     */
+    public static Compensator beginBlocking() {
+        if (!enabled) return null;
+        Compensator compensator = workerPool.get();
+        if (compensator == null && Thread.currentThread() instanceof ForkJoinWorkerThread) {
+            final ForkJoinPool pool = ForkJoinWorkerThread.getPool();
+            if (pool == null || !pool.hasQueuedSubmissions()) return null;
+            compensator = new ForkJoinCompensator(pool);
+        }
+        if (compensator != null) compensator.blockingStarted();
+        return compensator;
+    }
+
+    /**
+     * Notifies the pool, that the current thread has stopped blocking
+     *
+     * @param compensator The value returned from the matching beginBlocking() call
+     */
+    public static void endBlocking(final Compensator compensator) {
+        if (compensator != null) compensator.blockingFinished();
+    }
+
+    /**
+     * Makes the threads created by the factory compensate through the given compensator, when they block
+     *
+     * @param factory     The original thread factory
+     * @param compensator The pool's compensator
+     * @return The thread factory to use with the pool
+     */
+    static ThreadFactory bind(final ThreadFactory factory, final Compensator compensator) {
+        return new ThreadFactory() {
+            public Thread newThread(final Runnable r) {
+                return factory.newThread(new Runnable() {
+                    public void run() {
+                        bindCurrentThread(compensator);
+                        r.run();
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Makes the current thread compensate through the given compensator, when it blocks
+     *
+     * @param compensator The pool's compensator
+     */
+    static void bindCurrentThread(final Compensator compensator) {
+        workerPool.set(compensator);
+    }
+
+    /**
+     * Implemented by pools, which can temporarily add a thread, while one of their threads is blocked
+     */
+    public interface Compensator {
+        void blockingStarted();
+
+        void blockingFinished();
+    }
+
+    private static final class ForkJoinCompensator implements Compensator {
+        private final ForkJoinPool pool;
+
+        private ForkJoinCompensator(final ForkJoinPool pool) {
+            this.pool = pool;
+        }
+
+        public void blockingStarted() {
+            pool.addWorkers(1);
+        }
+
+        public void blockingFinished() {
+            if (!pool.isShutdown()) pool.removeWorkers(1);
+        }
+    }
+}
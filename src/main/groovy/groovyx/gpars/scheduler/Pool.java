@@ -38,6 +38,13 @@ public interface Pool {
      */
     void resetDefaultSize();
 
+    /**
+     * Starts all the pool's core threads ahead of time, so that the first tasks don't pay for thread creation
+     *
+     * @return The number of threads started, 0 if the threads have already been running
+     */
+    int prestart();
+
     /**
      * schedules a new task for processing with the pool
      *
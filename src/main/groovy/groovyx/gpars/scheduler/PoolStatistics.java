@@ -0,0 +1,91 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License. 
+
+package groovyx.gpars.scheduler;
+
+/**
+ * A statistics view of a thread pool, allowing to monitor the pool's utilization and to size it based on measured values.
+ * Thread counts, queue length and steal counts are read directly from the underlying pool. Measuring task wait and run times
+ * requires wrapping each task and so has to be enabled explicitly through setTimingEnabled(true).
+ * The statistics can be exported over JMX using the PoolStatisticsExporter class.
+ *
+ * @author agent
+ */
+public interface PoolStatistics {
+
+    /**
+     * @return The current number of threads in the pool
+     */
+    int getPoolSize();
+
+    /**
+     * @return The approximate number of threads currently running tasks
+     */
+    int getActiveThreadCount();
+
+    /**
+     * @return The approximate number of threads waiting for tasks
+     */
+    int getIdleThreadCount();
+
+    /**
+     * @return The approximate number of tasks waiting to be processed
+     */
+    int getQueueLength();
+
+    /**
+     * @return The number of tasks stolen by worker threads from other workers' queues, 0 for pools without work stealing
+     */
+    long getStealCount();
+
+    /**
+     * @return The number of tasks the pool refused to run
+     */
+    long getRejectedTaskCount();
+
+    /**
+     * @return True, if task wait and run times are being measured
+     */
+    boolean isTimingEnabled();
+
+    /**
+     * Switches measuring of task wait and run times on or off. Only tasks submitted while timing is enabled get measured.
+     *
+     * @param enabled The new value
+     */
+    void setTimingEnabled(boolean enabled);
+
+    /**
+     * Retrieves the histogram of times tasks spent waiting for a thread.
+     * The value at index i holds the number of tasks, which waited less than 2^i microseconds,
+     * but not less than the limit of the previous bucket. The last bucket holds all longer times.
+     *
+     * @return A snapshot of the histogram
+     */
+    long[] getWaitTimeHistogram();
+
+    /**
+     * Retrieves the histogram of times tasks spent running, using the same buckets as the wait time histogram.
+     *
+     * @return A snapshot of the histogram
+     */
+    long[] getRunTimeHistogram();
+
+    /**
+     * Clears the histograms and the rejected task counter
+     */
+    void reset();
+}
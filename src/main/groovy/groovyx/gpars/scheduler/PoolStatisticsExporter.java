@@ -0,0 +1,73 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License. 
+
+package groovyx.gpars.scheduler;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Exports pool statistics as MXBeans to the platform MBean server.
+ * <pre>
+ * def pool = new DefaultPool()
+ * def name = PoolStatisticsExporter.export(pool.statistics, 'actors')
+ * ...
+ * PoolStatisticsExporter.unexport(name)
+ * </pre>
+ *
+ * @author agent
+ */
+@SuppressWarnings({"UtilityClass"})
+public final class PoolStatisticsExporter {
+    private static final String DOMAIN = "groovyx.gpars";
+
+    private PoolStatisticsExporter() {
+    }
+
+    /**
+     * Registers the statistics with the platform MBean server under the groovyx.gpars:type=Pool,name=[name] object name
+     *
+     * @param statistics The statistics to export
+     * @param name       The name to distinguish the pool from others
+     * @return The object name used for the registration
+     */
+    public static ObjectName export(final PoolStatistics statistics, final String name) {
+        try {
+            final ObjectName objectName = new ObjectName(DOMAIN + ":type=Pool,name=" + ObjectName.quote(name));
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new StandardMBean(statistics, PoolStatistics.class, true), objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot export the pool statistics over JMX. " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes previously exported statistics from the platform MBean server
+     *
+     * @param objectName The name returned from the export() method
+     */
+    public static void unexport(final ObjectName objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot remove the pool statistics from JMX. " + e.getMessage(), e);
+        }
+    }
+}
@@ -16,13 +16,23 @@
 
 package groovyx.gpars.scheduler;
 
+import jsr166y.forkjoin.AsyncAction;
+
+import java.lang.ref.WeakReference;
 import java.text.MessageFormat;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents the actors' thread pool, which performs tasks on behalf of the actors. Uses a ForkJoinPool from JSR-166y
  * The actors' thread pool size defaults to the n + 1, where n is the number of processors/cores available on the machine.
  * The VM parameter -Dgpars.poolsize can be used the configure the default size of the actors' thread pool.
  * The resize() and resetDefaultSize() methods can be used to configure size of the thread pool at runtime.
+ * The pool grows whenever the number of tasks submitted and not yet finished exceeds the number of threads.
+ * Submission only updates an atomic counter and compares it with the current pool size. Growing is guarded
+ * by a CAS flag instead of a lock. Surplus threads are removed by a background sampler off the submission path.
  *
  * @author Vaclav Pech
  *         Date: Feb 27, 2009
@@ -30,12 +40,31 @@ import java.text.MessageFormat;
 public final class ResizeableFJPool extends FJPool {
     private static final int MAX_POOL_SIZE = 1000;
 
-    private final Object lock = new Object();
+    /**
+     * How often the pool checks for surplus threads
+     */
+    private static final long SAMPLING_PERIOD = 500L;
+
+    /**
+     * Runs the samplers of all resizeable pools
+     */
+    private static final Timer sampler = new Timer("ResizeableFJPool sampler", true);
+
+    /**
+     * The number of tasks submitted, but not finished yet
+     */
+    private final AtomicInteger pendingTasks = new AtomicInteger(0);
+
+    /**
+     * Ensures a single thread at a time changes the size of the pool
+     */
+    private final AtomicBoolean resizing = new AtomicBoolean(false);
 
     /**
      * Creates the pool with default number of threads.
      */
     public ResizeableFJPool() {
+        startSampler();
     }
 
     /**
@@ -45,6 +74,11 @@ public final class ResizeableFJPool extends FJPool {
      */
     public ResizeableFJPool(final int poolSize) {
         super(poolSize);
+        startSampler();
+    }
+
+    private void startSampler() {
+        sampler.schedule(new Sampler(this), SAMPLING_PERIOD, SAMPLING_PERIOD);
     }
 
     /**
@@ -53,30 +87,109 @@ public final class ResizeableFJPool extends FJPool {
      * @param task The task to schedule
      */
     @Override public void execute(final Runnable task) {
-        synchronized (lock) {
-            final int currentPoolSize = pool.getPoolSize();
-            final int submissionCount = pool.getActiveSubmissionCount();
-            final int needForThreads = submissionCount + 1 - currentPoolSize;
-            if (needForThreads > 0) {
-                if (currentPoolSize + needForThreads > ResizeableFJPool.MAX_POOL_SIZE) {
-                    //noinspection AutoBoxing
-                    throw new IllegalStateException(MessageFormat.format("The thread pool executor cannot run the task. The upper limit of the thread pool size has probably been reached. Current pool size: {0} Maximum pool size: {1}", currentPoolSize, ResizeableFJPool.MAX_POOL_SIZE));
+        pendingTasks.incrementAndGet();
+        try {
+            ensureCapacity();
+        } catch (IllegalStateException e) {
+            pendingTasks.decrementAndGet();
+            statistics.taskRejected();
+            throw e;
+        }
+        pool.submit(new CountedTask(statistics.instrument(task), pendingTasks));
+    }
+
+    /**
+     * Adds threads, if there are more pending tasks than threads in the pool.
+     * A caller, which finds another submitter or the sampler resizing the pool, returns immediately. The tasks it has
+     * counted are not lost, since both ensureCapacity() and shrink() re-check the number of pending tasks
+     * after releasing the resizing flag.
+     */
+    private void ensureCapacity() {
+        while (pendingTasks.get() > pool.getPoolSize() && resizing.compareAndSet(false, true)) {
+            try {
+                final int currentPoolSize = pool.getPoolSize();
+                final int needForThreads = pendingTasks.get() - currentPoolSize;
+                if (needForThreads > 0) {
+                    if (currentPoolSize + needForThreads > ResizeableFJPool.MAX_POOL_SIZE) {
+                        //noinspection AutoBoxing
+                        throw new IllegalStateException(MessageFormat.format("The thread pool executor cannot run the task. The upper limit of the thread pool size has probably been reached. Current pool size: {0} Maximum pool size: {1}", currentPoolSize, ResizeableFJPool.MAX_POOL_SIZE));
+                    }
+                    pool.addWorkers(needForThreads);
                 }
-                pool.addWorkers(needForThreads);
+            } finally {
+                resizing.set(false);
             }
         }
-        super.execute(new Runnable() {
-            public void run() {
-                task.run();
-                synchronized (ResizeableFJPool.this.lock) {
-                    final int currentPoolSize = pool.getPoolSize();
-                    final int submissionCount = pool.getActiveSubmissionCount();
-                    final int desiredPoolSize = Math.max(submissionCount, getConfiguredPoolSize());
-                    final int change = currentPoolSize - desiredPoolSize;
-
-                    if (change >= 3) pool.removeWorkers(change);
-                }
+    }
+
+    /**
+     * Removes surplus threads, keeping at least the configured number of threads.
+     * Afterwards grows the pool for any tasks submitted while the resizing flag was held.
+     */
+    private void shrink() {
+        if (resizing.compareAndSet(false, true)) {
+            try {
+                final int currentPoolSize = pool.getPoolSize();
+                final int desiredPoolSize = Math.max(pendingTasks.get(), getConfiguredPoolSize());
+                final int change = currentPoolSize - desiredPoolSize;
+
+                if (change >= 3) pool.removeWorkers(change);
+            } finally {
+                resizing.set(false);
+            }
+        }
+        ensureCapacity();
+    }
+
+    /**
+     * Periodically adjusts the size of the pool. Only holds the pool weakly, so that pools, which have not been shutdown,
+     * can still be garbage-collected, and cancels itself once the pool is gone or shutdown.
+     * Reaching the maximum pool size is not reported, since the exception would otherwise kill the timer thread
+     * shared by all the pools.
+     */
+    static final class Sampler extends TimerTask {
+        private final WeakReference<ResizeableFJPool> poolReference;
+
+        Sampler(final ResizeableFJPool pool) {
+            this.poolReference = new WeakReference<ResizeableFJPool>(pool);
+        }
+
+        @Override public void run() {
+            final ResizeableFJPool resizeablePool = poolReference.get();
+            if (resizeablePool == null || resizeablePool.pool.isShutdown()) {
+                cancel();
+                return;
             }
-        });
+            try {
+                resizeablePool.shrink();
+            } catch (IllegalStateException ignore) {
+                //the pool has reached its limit, the next submission will report it
+            }
+        }
+    }
+
+    /**
+     * Adapts Runnable instances to the Fork Join framework, keeping track of the number of pending tasks.
+     */
+    private static final class CountedTask extends AsyncAction {
+        private final Runnable runnable;
+        private final AtomicInteger pendingTasks;
+
+        CountedTask(final Runnable runnable, final AtomicInteger pendingTasks) {
+            this.runnable = runnable;
+            this.pendingTasks = pendingTasks;
+        }
+
+        @SuppressWarnings({"CatchGenericClass"})
+        @Override protected void compute() {
+            try {
+                runnable.run();
+                finish();
+            } catch (Exception e) {
+                finishExceptionally(e);
+            } finally {
+                pendingTasks.decrementAndGet();
+            }
+        }
     }
 }
@@ -29,6 +29,15 @@ import java.util.concurrent.TimeUnit;
  * The actors' thread pool size defaults to the n + 1, where n is the number of processors/cores available on the machine.
  * The VM parameter -Dgpars.poolsize can be used the configure the default size of the actors' thread pool.
  * The resize() and resetDefaultSize() methods can be used to configure size of the thread pool at runtime.
+ * <p/>
+ * By default the pool hands tasks over to threads directly, starting new threads as needed up to 1000 threads,
+ * after which tasks get rejected with an IllegalStateException.
+ * Alternatively the pool can be created with a bounded work queue. A new thread is then only started once the task at the head
+ * of the queue has waited for the configured latency, up to the configured maximum pool size.
+ * The latency is only evaluated when a task gets submitted, so a queue that stops receiving new tasks doesn't make
+ * the pool grow, however long its tasks wait.
+ * Surplus threads die after being idle for 10 seconds. When both the queue and the pool are full, the supplied
+ * SaturationPolicy decides whether the task runs in the caller's thread, blocks the caller or gets rejected.
  *
  * @author Vaclav Pech
  *         Date: Feb 27, 2009
@@ -55,6 +64,20 @@ public final class ResizeablePool extends DefaultPool {
         super(ResizeablePool.createResizeablePool(daemon, poolSize));
     }
 
+    /**
+     * Creates the pool with a bounded work queue and latency-driven growth.
+     *
+     * @param daemon           Sets the daemon flag of threads in the pool.
+     * @param poolSize         The number of threads to keep in the pool
+     * @param maximumPoolSize  The maximum number of threads the pool may grow to
+     * @param queueCapacity    The maximum number of tasks waiting in the queue
+     * @param maxQueueLatency  The time in milliseconds a task may wait in the queue before the pool starts a new thread, 0 to grow whenever tasks queue up
+     * @param saturationPolicy Handles tasks submitted when both the queue and the pool are full
+     */
+    public ResizeablePool(final boolean daemon, final int poolSize, final int maximumPoolSize, final int queueCapacity, final long maxQueueLatency, final SaturationPolicy saturationPolicy) {
+        super(ResizeablePool.createBoundedPool(daemon, poolSize, maximumPoolSize, queueCapacity, maxQueueLatency, saturationPolicy));
+    }
+
     /**
      * Creates a fixed-thread pool of given size. Each thread will have the uncaught exception handler set
      * to print the unhandled exception to standard error output.
@@ -65,7 +88,41 @@ public final class ResizeablePool extends DefaultPool {
      */
     private static ThreadPoolExecutor createResizeablePool(final boolean daemon, final int poolSize) {
         assert poolSize > 0;
-        return new ThreadPoolExecutor(poolSize, 1000, ResizeablePool.KEEP_ALIVE_TIME, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+        return new ThreadPoolExecutor(poolSize, 1000, ResizeablePool.KEEP_ALIVE_TIME, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), ResizeablePool.createThreadFactory(daemon), new RejectedExecutionHandler() {
+            public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+                final int currentPoolSize = executor.getPoolSize();
+                final int maximumPoolSize = executor.getMaximumPoolSize();
+                throw new IllegalStateException("The thread pool executor cannot run the task. " +
+                        "The upper limit of the thread pool size has probably been reached. " +
+                        "Current pool size: " + currentPoolSize + " Maximum pool size: " + maximumPoolSize);
+            }
+        });
+    }
+
+    /**
+     * Creates a thread pool with a bounded latency-sensitive queue.
+     */
+    private static ThreadPoolExecutor createBoundedPool(final boolean daemon, final int poolSize, final int maximumPoolSize, final int queueCapacity, final long maxQueueLatency, final SaturationPolicy saturationPolicy) {
+        if (poolSize <= 0) throw new IllegalArgumentException("The pool size must be a positive number");
+        if (maximumPoolSize < poolSize) throw new IllegalArgumentException("The maximum pool size cannot be lower than the pool size");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("The queue capacity must be a positive number");
+        if (saturationPolicy == null) throw new IllegalArgumentException("The saturation policy must be specified");
+
+        final LatencyBoundedQueue queue = new LatencyBoundedQueue(queueCapacity, TimeUnit.MILLISECONDS.toNanos(maxQueueLatency));
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, maximumPoolSize, ResizeablePool.KEEP_ALIVE_TIME, TimeUnit.SECONDS, queue, ResizeablePool.createThreadFactory(daemon), new RejectedExecutionHandler() {
+            public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+                //the queue refuses tasks to make the pool grow, if another submitter has taken the last thread slot meanwhile,
+                //the task should still be queued rather than saturate the pool
+                if (!executor.isShutdown() && queue.enqueue(r)) return;
+                saturationPolicy.rejectedExecution(r, executor);
+            }
+        });
+        queue.executor = executor;
+        return executor;
+    }
+
+    private static ThreadFactory createThreadFactory(final boolean daemon) {
+        return new ThreadFactory() {
             public Thread newThread(final Runnable r) {
                 final Thread thread = new Thread(r, DefaultPool.createThreadName());
                 thread.setDaemon(daemon);
@@ -77,14 +134,71 @@ public final class ResizeablePool extends DefaultPool {
                 });
                 return thread;
             }
-        }, new RejectedExecutionHandler() {
-            public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
-                final int currentPoolSize = executor.getPoolSize();
-                final int maximumPoolSize = executor.getMaximumPoolSize();
-                throw new IllegalStateException("The thread pool executor cannot run the task. " +
-                        "The upper limit of the thread pool size has probably been reached. " +
-                        "Current pool size: " + currentPoolSize + " Maximum pool size: " + maximumPoolSize);
+        };
+    }
+
+    /**
+     * A bounded work queue, which refuses to accept a task, while the task at its head has been waiting for too long
+     * and the pool can still grow. The thread pool executor then starts a new thread to run the refused task.
+     */
+    @SuppressWarnings({"CloneableClassInSecureContext"})
+    private static final class LatencyBoundedQueue extends IdleStrategyQueue {
+        private static final long serialVersionUID = -4426128153389329634L;
+
+        private final long maxLatency;
+        volatile ThreadPoolExecutor executor;
+
+        LatencyBoundedQueue(final int capacity, final long maxLatency) {
+            super(capacity);
+            this.maxLatency = maxLatency;
+        }
+
+        @Override
+        public boolean offer(final Runnable task) {
+            final Runnable head = peek();
+            if (head != null && System.nanoTime() - ((TimedTask) head).enqueued >= maxLatency) {
+                final ThreadPoolExecutor currentExecutor = executor;
+                if (currentExecutor != null && currentExecutor.getPoolSize() < currentExecutor.getMaximumPoolSize()) {
+                    return false;
+                }
             }
-        });
+            return enqueue(task);
+        }
+
+        /**
+         * Queues the task regardless of the latency of the task at the head of the queue
+         *
+         * @param task The task to queue
+         * @return True, if the queue had free capacity
+         */
+        boolean enqueue(final Runnable task) {
+            return super.offer(new TimedTask(task));
+        }
+
+        @Override
+        public boolean offer(final Runnable task, final long timeout, final TimeUnit unit) throws InterruptedException {
+            return super.offer(new TimedTask(task), timeout, unit);
+        }
+
+        @Override
+        public void put(final Runnable task) throws InterruptedException {
+            super.put(new TimedTask(task));
+        }
+    }
+
+    /**
+     * Remembers the time the task has been queued at
+     */
+    private static final class TimedTask implements Runnable {
+        private final Runnable task;
+        final long enqueued = System.nanoTime();
+
+        TimedTask(final Runnable task) {
+            this.task = task;
+        }
+
+        public void run() {
+            task.run();
+        }
     }
 }
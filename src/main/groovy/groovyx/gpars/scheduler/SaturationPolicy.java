@@ -0,0 +1,91 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides what happens to a task submitted to a bounded ResizeablePool, when both its queue and its threads are exhausted.
+ * <pre>
+ * def pool = new ResizeablePool(true, 4, 32, 1000, 50L, SaturationPolicy.block(5, TimeUnit.SECONDS))
+ * </pre>
+ *
+ * @author agent
+ */
+public abstract class SaturationPolicy implements RejectedExecutionHandler {
+
+    private SaturationPolicy() {
+    }
+
+    /**
+     * The task will be run directly in the thread that submitted it, which slows down the submitters.
+     *
+     * @return The policy instance
+     */
+    public static SaturationPolicy callerRuns() {
+        return new SaturationPolicy() {
+            public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+                if (executor.isShutdown()) throw rejected(executor);
+                r.run();
+            }
+        };
+    }
+
+    /**
+     * The thread that submitted the task will wait for a free slot in the queue up to the given timeout.
+     * An IllegalStateException is thrown, if the task cannot be queued within the timeout.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of the timeout
+     * @return The policy instance
+     */
+    public static SaturationPolicy block(final long timeout, final TimeUnit unit) {
+        return new SaturationPolicy() {
+            public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+                if (executor.isShutdown()) throw rejected(executor);
+                try {
+                    if (!executor.getQueue().offer(r, timeout, unit)) throw rejected(executor);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw rejected(executor);
+                }
+            }
+        };
+    }
+
+    /**
+     * The task will be rejected with an IllegalStateException.
+     *
+     * @return The policy instance
+     */
+    public static SaturationPolicy reject() {
+        return new SaturationPolicy() {
+            public void rejectedExecution(final Runnable r, final ThreadPoolExecutor executor) {
+                throw rejected(executor);
+            }
+        };
+    }
+
+    static IllegalStateException rejected(final ThreadPoolExecutor executor) {
+        return new IllegalStateException("The thread pool executor cannot run the task. " +
+                "The upper limit of the thread pool size and the queue capacity has probably been reached. " +
+                "Current pool size: " + executor.getPoolSize() + " Maximum pool size: " + executor.getMaximumPoolSize() +
+                " Queue size: " + executor.getQueue().size());
+    }
+}
@@ -16,32 +16,121 @@
 
 package groovyx.gpars.scheduler;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import groovyx.gpars.util.PoolUtils;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Prototype of self-regulated thread pooled scheduler
+ * Prototype of self-regulated work-stealing thread pooled scheduler
+ * <p/>
+ * Each worker thread owns a deque of tasks. Tasks submitted from within a worker thread, typically an actor scheduling
+ * itself or the actors it sends messages to, are pushed to the head of the worker's own deque and processed in LIFO order.
+ * Tasks submitted from other threads go to a shared lock-free submission queue.
+ * Workers, which run out of local work, take tasks from the submission queue and then steal from the tails
+ * of the other workers' deques in FIFO order.
+ * <p/>
+ * Self regulation happens according to following rules
+ * - worker thread, which had nothing to do for 10 seconds dies, unless it is one of the core threads
+ * - new workers are started on task submission until the configured parallelism is reached
+ * - if there's no idle worker on task submission and some of the busy workers are blocked in receive(), getVal(),
+ * sendAndWait() or other operations notifying ManagedBlocking, a compensation worker starts immediately
+ * - if tasks are waiting and all workers are blocked for any other reason, the watchdog starts a compensation worker within 50ms
  * <p/>
- * Self regulation happened according to following rules
- * - worker thread, which had nothing to do 10 seconds dies
- * - if no tasks were taken for processing during last 0.5sec new worker starts
+ * The numbers of threads and of blocked workers are tracked incrementally, so submitting a task takes constant time,
+ * and new threads are only started through a CAS on the thread count, so concurrent submitters never overshoot the limit.
  */
-public final class Scheduler implements Pool {
-    private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
+public final class Scheduler implements InstrumentedPool {
+    private static final long KEEP_ALIVE_TIME = TimeUnit.SECONDS.toNanos(10L);
+
+    /**
+     * Tasks submitted from outside of the worker threads
+     */
+    private final ConcurrentLinkedQueue<Runnable> submissionQueue = new ConcurrentLinkedQueue<Runnable>();
+
+    /**
+     * Parked workers waiting for new tasks
+     */
+    private final ConcurrentLinkedQueue<WorkerThread> idleWorkers = new ConcurrentLinkedQueue<WorkerThread>();
+
+    /**
+     * All live workers, replaced as a whole whenever a worker starts or dies
+     */
+    private volatile WorkerThread[] workers = new WorkerThread[0];
 
     AtomicInteger threadCount = new AtomicInteger();
 
-    volatile long lastTaskPoke = -10L;
+    /**
+     * The number of workers currently blocked in operations notifying ManagedBlocking
+     */
+    private final AtomicInteger blockedCount = new AtomicInteger();
 
-    volatile long schedulerTime;
+    /**
+     * Tracks workers blocking through ManagedBlocking and starts compensation workers for them
+     */
+    private final ManagedBlocking.Compensator compensator = new ManagedBlocking.Compensator() {
+        public void blockingStarted() {
+            blockedCount.incrementAndGet();
+            if (hasQueuedTasks()) signalWork();
+        }
+
+        public void blockingFinished() {
+            blockedCount.decrementAndGet();
+        }
+    };
 
     volatile boolean terminating;
 
     private final int coreSize;
 
-    static final RuntimeException TERMINATE = new RuntimeException("terminate");
+    /**
+     * The number of workers expected to run unblocked at any given time
+     */
+    private final int parallelism;
+
+    /**
+     * The strategy idle workers use to wait for new tasks, null to use the default strategy
+     */
+    private volatile IdleStrategy idleStrategy = null;
+
+    /**
+     * The number of tasks taken from other workers' deques
+     */
+    private final AtomicLong stealCount = new AtomicLong(0L);
+
+    private final AbstractPoolStatistics statistics = new AbstractPoolStatistics() {
+        public int getPoolSize() {
+            return threadCount.get();
+        }
+
+        public int getActiveThreadCount() {
+            int active = 0;
+            for (final WorkerThread worker : workers) {
+                if (worker.running) active++;
+            }
+            return active;
+        }
+
+        public int getIdleThreadCount() {
+            return Math.max(0, getPoolSize() - getActiveThreadCount());
+        }
+
+        public int getQueueLength() {
+            int length = submissionQueue.size();
+            for (final WorkerThread worker : workers) {
+                length += worker.deque.size();
+            }
+            return length;
+        }
+
+        public long getStealCount() {
+            return stealCount.get();
+        }
+    };
 
     public Scheduler() {
         this(0);
@@ -49,26 +138,42 @@ public final class Scheduler implements Pool {
 
     public Scheduler(final int coreSize) {
         this.coreSize = coreSize;
+        this.parallelism = coreSize > 0 ? coreSize : PoolUtils.retrieveDefaultPoolSize();
         new WatchdogThread().start();
 
         for (int i = 0; i != coreSize; ++i) {
-            startNewThread();
+            tryStartNewThread(coreSize);
         }
     }
 
     public void execute(final Runnable task) {
         if (terminating) {
+            statistics.taskRejected();
             throw new RuntimeException("Scheduler is shutting down");
         }
 
-        try {
-            queue.put(task);
-            if (threadCount.get() == 0) {
-                startNewThread();
-            }
-        } catch (InterruptedException ignored) {
-            Thread.currentThread().interrupt();
+        final Runnable instrumented = statistics.instrument(task);
+        final WorkerThread current = currentWorker();
+        if (current != null) {
+            current.deque.push(instrumented);
+        } else {
+            submissionQueue.offer(instrumented);
+        }
+        signalWork();
+    }
+
+    /**
+     * Starts workers up to the scheduler's parallelism.
+     * Workers beyond the core size still die once they stay idle for longer than the keep-alive time.
+     *
+     * @return The number of threads started
+     */
+    public int prestart() {
+        int started = 0;
+        while (!terminating && tryStartNewThread(parallelism)) {
+            started++;
         }
+        return started;
     }
 
     public Runnable loop(final Runnable operation) {
@@ -82,9 +187,96 @@ public final class Scheduler implements Pool {
         };
     }
 
+    /**
+     * Wakes up an idle worker to process a newly submitted task or starts a new worker,
+     * if the scheduler hasn't reached its parallelism yet or some of the busy workers are blocked.
+     */
+    private void signalWork() {
+        final WorkerThread idle = idleWorkers.poll();
+        if (idle != null) {
+            LockSupport.unpark(idle);
+            return;
+        }
+        tryStartNewThread(parallelism + blockedCount.get());
+    }
+
+    /**
+     * Counts workers, which are running a task, but are blocked or waiting, for whatever reason.
+     * Walks all the workers, so only the watchdog uses it, task submission relies on the blocked count.
+     */
+    private int countBlockedWorkers() {
+        int blocked = 0;
+        for (final WorkerThread worker : workers) {
+            if (worker.running) {
+                final Thread.State state = worker.getState();
+                if (state == Thread.State.BLOCKED || state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING) {
+                    blocked++;
+                }
+            }
+        }
+        return blocked;
+    }
+
+    private boolean hasQueuedTasks() {
+        if (!submissionQueue.isEmpty()) return true;
+        for (final WorkerThread worker : workers) {
+            if (!worker.deque.isEmpty()) return true;
+        }
+        return false;
+    }
+
+    private WorkerThread currentWorker() {
+        final Thread thread = Thread.currentThread();
+        if (thread instanceof WorkerThread && ((WorkerThread) thread).getScheduler() == this) {
+            return (WorkerThread) thread;
+        }
+        return null;
+    }
+
+    /**
+     * Starts a new worker unless the number of threads has already reached the limit
+     *
+     * @param limit The maximum number of threads
+     * @return True, if a new worker has been started
+     */
+    private boolean tryStartNewThread(final int limit) {
+        while (true) {
+            final int count = threadCount.get();
+            if (count >= limit) return false;
+            if (threadCount.compareAndSet(count, count + 1)) {
+                spawnWorker();
+                return true;
+            }
+        }
+    }
+
     private void startNewThread() {
         threadCount.incrementAndGet();
-        new WorkerThread().start();
+        spawnWorker();
+    }
+
+    private void spawnWorker() {
+        final WorkerThread worker = new WorkerThread();
+        synchronized (this) {
+            final WorkerThread[] newWorkers = new WorkerThread[workers.length + 1];
+            System.arraycopy(workers, 0, newWorkers, 0, workers.length);
+            newWorkers[workers.length] = worker;
+            workers = newWorkers;
+        }
+        worker.start();
+    }
+
+    private synchronized void removeWorker(final WorkerThread worker) {
+        final WorkerThread[] current = workers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == worker) {
+                final WorkerThread[] newWorkers = new WorkerThread[current.length - 1];
+                System.arraycopy(current, 0, newWorkers, 0, i);
+                System.arraycopy(current, i + 1, newWorkers, i, current.length - i - 1);
+                workers = newWorkers;
+                return;
+            }
+        }
     }
 
     public void resize(final int poolSize) {
@@ -95,58 +287,161 @@ public final class Scheduler implements Pool {
         throw new UnsupportedOperationException();
     }
 
-    @SuppressWarnings({"ObjectAllocationInLoop"})
+    /**
+     * Retrieves the strategy idle workers use to wait for new tasks
+     *
+     * @return The strategy
+     */
+    public IdleStrategy getIdleStrategy() {
+        final IdleStrategy strategy = idleStrategy;
+        return strategy != null ? strategy : IdleStrategy.getDefault();
+    }
+
+    /**
+     * Sets the strategy idle workers use to wait for new tasks
+     *
+     * @param strategy The strategy to use, null to use the default strategy
+     */
+    public void setIdleStrategy(final IdleStrategy strategy) {
+        idleStrategy = strategy;
+    }
+
+    /**
+     * Retrieves the statistics of the scheduler
+     *
+     * @return The statistics view
+     */
+    public PoolStatistics getStatistics() {
+        return statistics;
+    }
+
     public void shutdown() {
         terminating = true;
-        final int count = threadCount.get();
-        for (int i = 0; i != count; ++i) {
-            try {
-                queue.put(new Runnable() {
-                    public void run() {
-                        throw TERMINATE;
-                    }
-                });
-            } catch (InterruptedException ignored) { //
-                Thread.currentThread().interrupt();
-            }
+        for (final WorkerThread worker : workers) {
+            LockSupport.unpark(worker);
         }
     }
 
     private class WorkerThread extends Thread {
+        /**
+         * Tasks submitted by the worker itself. The owner works at the head, thieves take from the tail.
+         */
+        final WorkStealingDeque deque = new WorkStealingDeque();
+
+        private final Random random = new Random();
+
+        /**
+         * Indicates the worker is running a task
+         */
+        volatile boolean running;
+
+        private final IdleStrategy.Condition workAvailable = new IdleStrategy.Condition() {
+            public boolean isSatisfied() {
+                if (!submissionQueue.isEmpty()) return true;
+                for (final WorkerThread worker : workers) {
+                    if (!worker.deque.isEmpty()) return true;
+                }
+                return false;
+            }
+        };
+
         {
             setDaemon(true);
         }
 
+        Scheduler getScheduler() {
+            return Scheduler.this;
+        }
+
         @Override
         public void run() {
+            ManagedBlocking.bindCurrentThread(compensator);
+            boolean counted = true;
             try {
-                try {
-                    while (!terminating) {
-                        final Runnable task = queue.poll(10L, TimeUnit.SECONDS);
+                long idleSince = 0L;
+                while (!terminating) {
+                    Runnable task = findTask();
+                    if (task == null) {
+                        idleWorkers.offer(this);
+                        task = findTask();
+                        if (task == null && getIdleStrategy().await(workAvailable, 0L)) task = findTask();
                         if (task == null) {
-                            return;
-                        }
-
-                        lastTaskPoke = schedulerTime;
-                        try {
-                            task.run();
+                            if (idleSince == 0L) idleSince = System.nanoTime();
+                            LockSupport.parkNanos(KEEP_ALIVE_TIME);
                         }
-                        catch (Throwable t) {
-                            if (TERMINATE != t) {
-                                //todo allow for a customizable handler
-                                t.printStackTrace();
+                        idleWorkers.remove(this);
+                        //a task may have been submitted by someone, who has already picked this worker to wake up
+                        if (task == null) task = findTask();
+                        if (task == null) {
+                            if (System.nanoTime() - idleSince >= KEEP_ALIVE_TIME) {
+                                final int count = threadCount.get();
+                                if (count > coreSize && threadCount.compareAndSet(count, count - 1)) {
+                                    counted = false;
+                                    return;
+                                }
                             }
+                            continue;
                         }
                     }
-                } catch (InterruptedException e) {//
+                    idleSince = 0L;
+
+                    running = true;
+                    try {
+                        task.run();
+                    }
+                    catch (Throwable t) {
+                        //todo allow for a customizable handler
+                        t.printStackTrace();
+                    } finally {
+                        running = false;
+                    }
                 }
             }
             finally {
-                threadCount.decrementAndGet();
+                if (counted) threadCount.decrementAndGet();
+                removeWorker(this);
+                //the tasks left behind need someone to process them
+                if (!terminating && !deque.isEmpty()) {
+                    Runnable task;
+                    while ((task = deque.steal()) != null) submissionQueue.offer(task);
+                    signalWork();
+                }
+            }
+        }
+
+        /**
+         * Looks for a task in the local deque first, then in the submission queue and finally tries to steal from others
+         */
+        private Runnable findTask() {
+            Runnable task = deque.pop();
+            if (task != null) return task;
+            task = submissionQueue.poll();
+            if (task != null) return task;
+            return steal();
+        }
+
+        private Runnable steal() {
+            final WorkerThread[] victims = workers;
+            final int size = victims.length;
+            if (size <= 1) return null;
+            final int start = random.nextInt(size);
+            for (int i = 0; i < size; i++) {
+                final WorkerThread victim = victims[(start + i) % size];
+                if (victim != this) {
+                    final Runnable task = victim.deque.steal();
+                    if (task != null) {
+                        stealCount.incrementAndGet();
+                        return task;
+                    }
+                }
             }
+            return null;
         }
     }
 
+    /**
+     * Safety net for tasks stuck behind workers, which blocked only after the tasks had been submitted
+     */
     private class WatchdogThread extends Thread {
         {
             setDaemon(true);
@@ -156,8 +451,7 @@ public final class Scheduler implements Pool {
         public void run() {
             while (!terminating) {
                 try {
-                    schedulerTime++;
-                    if (schedulerTime > lastTaskPoke + 10L) {
+                    if (idleWorkers.isEmpty() && hasQueuedTasks() && countBlockedWorkers() >= threadCount.get()) {
                         startNewThread();
                     }
                     Thread.sleep(50L);
@@ -0,0 +1,129 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free deque of tasks owned by a single worker thread, after Chase and Lev.
+ * Only the owner pushes and pops tasks at the bottom end, in LIFO order, other threads steal tasks from the top end, in FIFO order.
+ * The owner only competes with thieves through a CAS for the very last task in the deque, thieves compete among themselves
+ * through a CAS on the top index. The array grows as needed, it never shrinks.
+ *
+ * @author agent
+ */
+final class WorkStealingDeque {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The index of the oldest task, advanced by thieves and by the owner taking the last task
+     */
+    private final AtomicLong top = new AtomicLong(0L);
+
+    /**
+     * The index the next task will be pushed at, only written by the owner
+     */
+    private volatile long bottom = 0L;
+
+    private volatile AtomicReferenceArray<Runnable> array = new AtomicReferenceArray<Runnable>(INITIAL_CAPACITY);
+
+    /**
+     * Adds a task to the bottom of the deque. Only to be called by the owner.
+     *
+     * @param task The task to add
+     */
+    void push(final Runnable task) {
+        final long b = bottom;
+        final long t = top.get();
+        AtomicReferenceArray<Runnable> a = array;
+        if (b - t >= (long) (a.length() - 1)) {
+            a = grow(a, b, t);
+            array = a;
+        }
+        a.set(index(a, b), task);
+        bottom = b + 1L;
+    }
+
+    /**
+     * Takes the most recently pushed task. Only to be called by the owner.
+     *
+     * @return The task or null, if the deque is empty
+     */
+    Runnable pop() {
+        final long b = bottom - 1L;
+        final AtomicReferenceArray<Runnable> a = array;
+        bottom = b;
+        final long t = top.get();
+        if (t > b) {
+            bottom = t;
+            return null;
+        }
+        final int i = index(a, b);
+        Runnable task = a.get(i);
+        if (t == b) {
+            //the last task, thieves may be competing for it
+            if (top.compareAndSet(t, t + 1L)) a.compareAndSet(i, task, null);
+            else task = null;
+            bottom = t + 1L;
+        } else {
+            a.set(i, null);
+        }
+        return task;
+    }
+
+    /**
+     * Takes the oldest task. May be called by any thread.
+     *
+     * @return The task or null, if the deque is empty or another thread has taken the task first
+     */
+    Runnable steal() {
+        final long t = top.get();
+        final long b = bottom;
+        if (t >= b) return null;
+        final AtomicReferenceArray<Runnable> a = array;
+        final int i = index(a, t);
+        final Runnable task = a.get(i);
+        if (task == null || !top.compareAndSet(t, t + 1L)) return null;
+        a.compareAndSet(i, task, null);
+        return task;
+    }
+
+    /**
+     * @return The approximate number of tasks in the deque
+     */
+    int size() {
+        return (int) Math.max(0L, bottom - top.get());
+    }
+
+    boolean isEmpty() {
+        return bottom <= top.get();
+    }
+
+    private static int index(final AtomicReferenceArray<Runnable> a, final long position) {
+        return (int) (position & (long) (a.length() - 1));
+    }
+
+    private static AtomicReferenceArray<Runnable> grow(final AtomicReferenceArray<Runnable> a, final long b, final long t) {
+        final AtomicReferenceArray<Runnable> larger = new AtomicReferenceArray<Runnable>(a.length() << 1);
+        for (long position = t; position < b; position++) {
+            larger.set(index(larger, position), a.get(index(a, position)));
+        }
+        return larger;
+    }
+}
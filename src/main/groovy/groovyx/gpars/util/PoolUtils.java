@@ -16,6 +16,11 @@
 
 package groovyx.gpars.util;
 
+import groovyx.gpars.scheduler.Pool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Provides a couple of utility methods to pools and schedulers.
  *
@@ -36,4 +41,41 @@ public final class PoolUtils {
             return Runtime.getRuntime().availableProcessors() + 1;
         }
     }
+
+    /**
+     * Starts the pool's threads ahead of time and runs the supplied warm-up task the given number of times in the pool,
+     * so that neither thread creation nor JIT compilation slow down the first real tasks.
+     * Waits until all the warm-up tasks finish and rethrows the first exception, if any of them fails.
+     *
+     * @param pool   The pool to warm up
+     * @param rounds The number of times to run the task
+     * @param task   A representative workload
+     * @return The number of threads started
+     * @throws InterruptedException If interrupted while waiting for the warm-up tasks
+     */
+    public static int warmUp(final Pool pool, final int rounds, final Runnable task) throws InterruptedException {
+        if (rounds < 0) throw new IllegalArgumentException("The number of warm-up rounds must not be negative, got " + rounds);
+        final int started = pool.prestart();
+        final CountDownLatch latch = new CountDownLatch(rounds);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        for (int i = 0; i < rounds; i++) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        latch.await();
+        final Throwable e = failure.get();
+        if (e instanceof RuntimeException) throw (RuntimeException) e;
+        if (e instanceof Error) throw (Error) e;
+        if (e != null) throw new IllegalStateException("The warm-up task has failed", e);
+        return started;
+    }
 }
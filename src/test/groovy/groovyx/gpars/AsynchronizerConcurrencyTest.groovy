@@ -0,0 +1,98 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * @author agent
+ */
+public class AsynchronizerConcurrencyTest extends GroovyTestCase {
+
+    public void testThreadsAreReused() {
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>())
+        50.times {
+            assertEquals([1, 2, 3], Asynchronizer.doInParallel({threads << Thread.currentThread(); 1}, {threads << Thread.currentThread(); 2}, {threads << Thread.currentThread(); 3}))
+        }
+        //the calling thread plus a few shared threads instead of a hundred newly started ones
+        assert threads.size() < 20
+    }
+
+    public void testConcurrencyLimit() {
+        final AtomicInteger running = new AtomicInteger(0)
+        final AtomicInteger maxRunning = new AtomicInteger(0)
+        final Closure code = {
+            final int current = running.incrementAndGet()
+            synchronized (maxRunning) {
+                if (current > maxRunning.get()) maxRunning.set(current)
+            }
+            Thread.sleep 20
+            running.decrementAndGet()
+            current
+        }
+        final List<Closure> closures = (1..10).collect {code}
+        Asynchronizer.executeAsync(2, closures as Closure[])*.get()
+        assert maxRunning.get() <= 2
+
+        maxRunning.set(0)
+        Asynchronizer.doInParallel(3, closures as Closure[])
+        assert maxRunning.get() <= 3
+    }
+
+    public void testSingleConcurrencyRunsInCallingThread() {
+        final Thread caller = Thread.currentThread()
+        assertEquals([true, true], Asynchronizer.doInParallel(1, {Thread.currentThread() == caller}, {Thread.currentThread() == caller}))
+        shouldFail(IllegalArgumentException) {
+            Asynchronizer.doInParallel(0, {10})
+        }
+        shouldFail(IllegalArgumentException) {
+            Asynchronizer.executeAsync(0, {10})
+        }
+    }
+
+    public void testCurrentPoolIsUsed() {
+        final ExecutorService pool = Executors.newFixedThreadPool(1)
+        final Thread poolThread = pool.submit({Thread.currentThread()} as java.util.concurrent.Callable).get()
+        Asynchronizer.withExistingAsynchronizer(pool) {
+            assertEquals([poolThread, poolThread], Asynchronizer.executeAsync({Thread.currentThread()}, {Thread.currentThread()})*.get())
+        }
+        pool.shutdown()
+    }
+
+    public void testNestedCallsInSingleThreadedPool() {
+        final ExecutorService pool = Executors.newFixedThreadPool(1)
+        final def result = Asynchronizer.withExistingAsynchronizer(pool) {
+            Asynchronizer.executeAsync({
+                Asynchronizer.withExistingAsynchronizer(pool) {
+                    Asynchronizer.doInParallel({10}, {20})
+                }
+            })[0].get(30, TimeUnit.SECONDS)
+        }
+        assertEquals([10, 20], result)
+        pool.shutdown()
+    }
+
+    public void testStartInParallel() {
+        final CountDownLatch latch = new CountDownLatch(3)
+        Asynchronizer.startInParallel([{latch.countDown()}, {latch.countDown()}, {latch.countDown()}] as Closure[])
+        assert latch.await(30, TimeUnit.SECONDS)
+    }
+}
@@ -0,0 +1,87 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars
+
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * @author agent
+ */
+public class FoldParallelTest extends GroovyTestCase {
+
+    public void testStringBuilder() {
+        Parallelizer.doParallel(5) {
+            final def result = (1..1000).foldParallel({new StringBuilder()}, {StringBuilder builder, value -> builder.append(value)}) {a, b -> a.append(b)}
+            assertEquals((1..1000).join(''), result.toString())
+        }
+    }
+
+    public void testHistogram() {
+        Parallelizer.doParallel(5) {
+            final int[] histogram = (1..1000).toList().foldParallel({new int[10]}, {int[] counts, value -> counts[value % 10]++; counts}) {int[] a, int[] b ->
+                (0..<10).each {a[it] += b[it]}
+                a
+            }
+            assert histogram.every {it == 100}
+        }
+    }
+
+    public void testStatistics() {
+        Parallelizer.doParallel(5) {
+            final Map stats = (1..100).toList().foldParallel({[count: 0, sum: 0, max: Integer.MIN_VALUE]}, {Map s, value ->
+                s.count++
+                s.sum += value
+                s.max = Math.max(s.max, value)
+                s
+            }) {a, b -> [count: a.count + b.count, sum: a.sum + b.sum, max: Math.max(a.max, b.max)]}
+            assertEquals([count: 100, sum: 5050, max: 100], stats)
+        }
+    }
+
+    public void testSeedCreatedPerLeaf() {
+        final AtomicInteger containers = new AtomicInteger(0)
+        Parallelizer.doParallel(5) {
+            final List result = (1..1000).toList().foldParallel({containers.incrementAndGet(); []}, {List list, value -> list << value}) {a, b -> a.addAll(b); a}
+            assertEquals((1..1000).toList(), result)
+        }
+        assert containers.get() > 1
+        assert containers.get() < 1000
+    }
+
+    public void testImmutableSeed() {
+        Parallelizer.doParallel(5) {
+            assertEquals 5050, (1..100).foldParallel(0, {a, b -> a + b}) {a, b -> a + b}
+            assertEquals 'abc', 'abc'.foldParallel('', {a, b -> a + b}) {a, b -> a + b}
+            assertEquals 0, [].foldParallel(0, {a, b -> a + b}) {a, b -> a + b}
+            assertEquals([], [].foldParallel({[]}, {a, b -> a << b}) {a, b -> a + b})
+        }
+    }
+
+    public void testEnhancer() {
+        final List list = ['a', 'bb', 'ccc']
+        ParallelEnhancer.enhanceInstance list
+        assertEquals 6, list.foldParallel(0, {int total, String value -> total + value.size()}) {a, b -> a + b}
+    }
+
+    public void testException() {
+        Parallelizer.doParallel(5) {
+            shouldFail(IllegalStateException) {
+                [1, 2, 3].foldParallel(0, {a, b -> if (b == 2) throw new IllegalStateException('test'); a + b}) {a, b -> a + b}
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars
+
+import java.lang.Thread.UncaughtExceptionHandler
+import java.util.concurrent.CountDownLatch
+import jsr166y.forkjoin.ForkJoinPool
+
+/**
+ * @author agent
+ */
+public class ForkJoinPoolRegistryTest extends GroovyTestCase {
+
+    protected void setUp() {
+        super.setUp()
+        ForkJoinPoolRegistry.clear()
+    }
+
+    protected void tearDown() {
+        ForkJoinPoolRegistry.idleTimeout = 60000L
+        ForkJoinPoolRegistry.maxIdleThreads = Math.max(64, 8 * Runtime.runtime.availableProcessors())
+        ForkJoinPoolRegistry.clear()
+        super.tearDown()
+    }
+
+    public void testPoolIsReused() {
+        final ForkJoinPool first = Parallelizer.doParallel(3) {ForkJoinPool pool ->
+            assertEquals([2, 4, 6], [1, 2, 3].collectParallel {it * 2})
+            pool
+        }
+        assertFalse first.isShutdown()
+        assertEquals 1, ForkJoinPoolRegistry.idlePoolCount
+
+        final ForkJoinPool second = Parallelizer.withParallelizer(3) {ForkJoinPool pool -> pool}
+        assertSame first, second
+
+        final ForkJoinPool other = Parallelizer.doParallel(2) {ForkJoinPool pool -> pool}
+        assertNotSame first, other
+        assertEquals 2, ForkJoinPoolRegistry.idlePoolCount
+    }
+
+    public void testPoolsAreKeyedByHandler() {
+        final UncaughtExceptionHandler handler = {Thread failedThread, Throwable throwable -> } as UncaughtExceptionHandler
+        final ForkJoinPool first = Parallelizer.doParallel(3, handler) {ForkJoinPool pool -> pool}
+        final ForkJoinPool defaultPool = Parallelizer.doParallel(3) {ForkJoinPool pool -> pool}
+        assertNotSame first, defaultPool
+        assertSame handler, first.uncaughtExceptionHandler
+        assertSame first, Parallelizer.doParallel(3, handler) {ForkJoinPool pool -> pool}
+    }
+
+    public void testConcurrentBlocksGetDifferentPools() {
+        final CountDownLatch latch = new CountDownLatch(1)
+        ForkJoinPool inner = null
+        final ForkJoinPool outer = Parallelizer.doParallel(3) {ForkJoinPool pool ->
+            Thread.start {
+                inner = Parallelizer.doParallel(3) {ForkJoinPool p -> p}
+                latch.countDown()
+            }
+            latch.await()
+            pool
+        }
+        assertNotSame outer, inner
+        assertEquals 2, ForkJoinPoolRegistry.idlePoolCount
+    }
+
+    public void testShutDownPoolIsNotCached() {
+        final ForkJoinPool first = Parallelizer.doParallel(3) {ForkJoinPool pool ->
+            pool.shutdown()
+            pool
+        }
+        assertEquals 0, ForkJoinPoolRegistry.idlePoolCount
+        assertNotSame first, Parallelizer.doParallel(3) {ForkJoinPool pool -> pool}
+    }
+
+    public void testIdlePoolsGetEvicted() {
+        ForkJoinPoolRegistry.idleTimeout = 100L
+        final ForkJoinPool pool = Parallelizer.doParallel(3) {ForkJoinPool pool -> pool}
+        assertEquals 1, ForkJoinPoolRegistry.idlePoolCount
+        for (int i = 0; i < 50 && ForkJoinPoolRegistry.idlePoolCount > 0; i++) Thread.sleep 100
+        assertEquals 0, ForkJoinPoolRegistry.idlePoolCount
+        assert pool.isShutdown()
+    }
+
+    public void testDisabledCaching() {
+        ForkJoinPoolRegistry.idleTimeout = 0L
+        final ForkJoinPool pool = Parallelizer.doParallel(3) {ForkJoinPool pool -> pool}
+        assert pool.isTerminated()
+        assertEquals 0, ForkJoinPoolRegistry.idlePoolCount
+        shouldFail(IllegalArgumentException) {
+            ForkJoinPoolRegistry.idleTimeout = -1L
+        }
+        shouldFail(IllegalArgumentException) {
+            Parallelizer.doParallel(0) {}
+        }
+    }
+
+    public void testIdleThreadsAreCapped() {
+        ForkJoinPoolRegistry.maxIdleThreads = 7
+        final List<ForkJoinPool> pools = (1..20).collect {
+            Parallelizer.doParallel(3, {Thread failedThread, Throwable throwable -> } as UncaughtExceptionHandler) {ForkJoinPool pool -> pool}
+        }
+        assertEquals 2, ForkJoinPoolRegistry.idlePoolCount
+        assertEquals 18, pools.findAll {it.isShutdown()}.size()
+
+        Parallelizer.doParallel(8) {}
+        assertEquals 2, ForkJoinPoolRegistry.idlePoolCount
+
+        ForkJoinPoolRegistry.maxIdleThreads = 3
+        assertEquals 1, ForkJoinPoolRegistry.idlePoolCount
+        assertEquals 19, pools.findAll {it.isShutdown()}.size()
+
+        shouldFail(IllegalArgumentException) {
+            ForkJoinPoolRegistry.maxIdleThreads = -1
+        }
+    }
+}
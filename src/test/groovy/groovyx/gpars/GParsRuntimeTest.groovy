@@ -0,0 +1,140 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars
+
+import groovyx.gpars.actor.Actors
+import groovyx.gpars.dataflow.DataFlow
+import groovyx.gpars.dataflow.DataFlowVariable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * @author agent
+ */
+public class GParsRuntimeTest extends GroovyTestCase {
+
+    protected void tearDown() {
+        GParsRuntime.Subsystem.values().each {GParsRuntime.setLimit(it, 0)}
+        super.tearDown()
+    }
+
+    public void testDefaultEntryPointsShareTheRuntime() {
+        assertSame GParsRuntime.getPool(GParsRuntime.Subsystem.ACTORS), Actors.defaultPooledActorGroup.threadPool
+        assertSame GParsRuntime.getPool(GParsRuntime.Subsystem.DATAFLOW), DataFlow.DATA_FLOW_GROUP.threadPool
+        assertSame GParsRuntime.getPool(GParsRuntime.Subsystem.PARALLEL), ParallelEnhancer.threadPool
+        assertSame GParsRuntime.getForkJoinPool(), ParallelEnhancer.threadPool.forkJoinPool
+        assertSame GParsRuntime.getPool(GParsRuntime.Subsystem.ASYNC), new AsyncEnhancer().threadPool
+        assertSame GParsRuntime.getExecutorService(GParsRuntime.Subsystem.ASYNC), GParsRuntime.getExecutorService(GParsRuntime.Subsystem.ASYNC)
+    }
+
+    public void testSubsystemsRunOnSharedThreads() {
+        final Set<String> threads = Collections.synchronizedSet(new HashSet<String>())
+        final def actor = Actors.reactor {threads << Thread.currentThread().name; it}
+        assertEquals 1, actor.sendAndWait(1)
+
+        final DataFlowVariable result = new DataFlowVariable()
+        DataFlow.task {threads << Thread.currentThread().name; result << 2}
+        assertEquals 2, result.val
+
+        assertEquals 3, Asynchronizer.executeAsync({threads << Thread.currentThread().name; 3} as Closure[])[0].get()
+
+        assert threads.every {it.startsWith('Actor Thread')}
+        assert GParsRuntime.statistics.poolSize > 0
+        actor.stop()
+    }
+
+    public void testDataFlowRunsOnNonDaemonThreads() {
+        final DataFlowVariable<Thread> thread = new DataFlowVariable<Thread>()
+        DataFlow.task {thread << Thread.currentThread()}
+        assertFalse thread.val.daemon
+        assert thread.val.alive
+    }
+
+    public void testLimit() {
+        assertEquals 0, GParsRuntime.getLimit(GParsRuntime.Subsystem.ASYNC)
+        GParsRuntime.setLimit(GParsRuntime.Subsystem.ASYNC, 2)
+        assertEquals 2, GParsRuntime.getLimit(GParsRuntime.Subsystem.ASYNC)
+
+        final ExecutorService executor = GParsRuntime.getExecutorService(GParsRuntime.Subsystem.ASYNC)
+        final AtomicInteger running = new AtomicInteger(0)
+        final AtomicInteger maxRunning = new AtomicInteger(0)
+        final List<Future> futures = (1..10).collect {
+            executor.submit({
+                final int current = running.incrementAndGet()
+                synchronized (maxRunning) {
+                    if (current > maxRunning.get()) maxRunning.set(current)
+                }
+                Thread.sleep 20
+                running.decrementAndGet()
+            } as Runnable)
+        }
+        futures*.get()
+        assertEquals 2, maxRunning.get()
+    }
+
+    public void testSharesOnlyForLimitedSubsystems() {
+        final def pool = GParsRuntime.getPool(GParsRuntime.Subsystem.ASYNC)
+        assertNull pool.share
+        GParsRuntime.setLimit(GParsRuntime.Subsystem.ASYNC, 2)
+        assertNotNull pool.share
+        assertEquals 2, pool.share.quota
+        GParsRuntime.setLimit(GParsRuntime.Subsystem.ASYNC, 0)
+        assertNull pool.share
+        assertEquals 5, GParsRuntime.getExecutorService(GParsRuntime.Subsystem.ASYNC).submit({5} as java.util.concurrent.Callable).get()
+    }
+
+    public void testParallelizerUsesSharedForkJoinPool() {
+        assertSame GParsRuntime.forkJoinPool, Parallelizer.doParallel {it}
+        assertSame GParsRuntime.forkJoinPool, Parallelizer.withParallelizer {it}
+        Parallelizer.doParallel(2) {assertNotSame GParsRuntime.forkJoinPool, it}
+    }
+
+    public void testParallelLimit() {
+        GParsRuntime.setLimit(GParsRuntime.Subsystem.PARALLEL, 3)
+        assertEquals 3, GParsRuntime.forkJoinPool.poolSize
+        GParsRuntime.setLimit(GParsRuntime.Subsystem.PARALLEL, 0)
+        assertEquals groovyx.gpars.util.PoolUtils.retrieveDefaultPoolSize(), GParsRuntime.forkJoinPool.poolSize
+    }
+
+    public void testConfiguration() {
+        //using the pool starts the runtime
+        GParsRuntime.getPool(GParsRuntime.Subsystem.ACTORS).prestart()
+        assert GParsRuntime.isDaemon(GParsRuntime.Subsystem.ACTORS)
+        assertFalse GParsRuntime.isDaemon(GParsRuntime.Subsystem.DATAFLOW)
+        assert GParsRuntime.isDaemon(GParsRuntime.Subsystem.ASYNC)
+        assert GParsRuntime.isDaemon(GParsRuntime.Subsystem.PARALLEL)
+        shouldFail(IllegalStateException) {
+            GParsRuntime.daemon = false
+        }
+        shouldFail(IllegalStateException) {
+            GParsRuntime.setDaemon(GParsRuntime.Subsystem.DATAFLOW, true)
+        }
+        shouldFail(IllegalArgumentException) {
+            GParsRuntime.setDaemon(GParsRuntime.Subsystem.PARALLEL, false)
+        }
+        shouldFail(IllegalStateException) {
+            GParsRuntime.parallelism = 4
+        }
+        shouldFail(IllegalArgumentException) {
+            GParsRuntime.parallelism = 0
+        }
+        shouldFail(IllegalArgumentException) {
+            GParsRuntime.setLimit(GParsRuntime.Subsystem.ACTORS, -1)
+        }
+    }
+}
@@ -0,0 +1,103 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * @author agent
+ */
+public class GroupByParallelTest extends GroovyTestCase {
+
+    public void testGroupByKeepsOrder() {
+        final List source = (1..1000).toList()
+        Parallelizer.doParallel(5) {
+            assertEquals source.groupBy {it % 7}, source.groupByParallel {it % 7}
+            assertEquals source.groupBy {it > 500}, source.groupByParallel {it > 500}
+        }
+        Asynchronizer.doParallel(5) {
+            assertEquals source.groupBy {it % 7}, source.groupByParallel {it % 7}
+        }
+    }
+
+    public void testGroupByWithReducer() {
+        final List source = (1..1000).toList()
+        final Map expected = [:]
+        source.each {expected[it % 3] = (expected[it % 3] ?: 0) + it}
+        Parallelizer.doParallel(5) {
+            assertEquals expected, source.groupByParallel({it % 3}, {a, b -> a + b})
+            assertEquals([0: 6, 1: 9], [1, 2, 3, 4, 5].groupByParallel({it % 2}, {a, b -> a + b}))
+            assertEquals(['a': 'abc'], 'abc'.groupByParallel({'a'}, {a, b -> a + b}))
+        }
+        Asynchronizer.doParallel(5) {
+            assertEquals expected, source.groupByParallel({it % 3}, {a, b -> a + b})
+            assertEquals([:], [].groupByParallel({it}, {a, b -> a + b}))
+        }
+    }
+
+    public void testCountBy() {
+        final List source = (1..1000).toList()
+        final Map expected = [1: 250, 2: 250, 3: 250, 0: 250]
+        Parallelizer.doParallel(5) {
+            assertEquals expected, source.countByParallel {it % 4}
+            assertEquals([(null): 2, 1: 1], [null, 1, null].countByParallel {it})
+            assertEquals([:], [].countByParallel {it})
+        }
+        Asynchronizer.doParallel(5) {
+            assertEquals expected, source.countByParallel {it % 4}
+            assertEquals([(true): 2, (false): 1], [1, 2, 3].countByParallel {it > 1})
+        }
+    }
+
+    public void testGroupingUsesMultipleThreads() {
+        final ConcurrentHashMap threads = new ConcurrentHashMap()
+        Parallelizer.doParallel(5) {
+            final def counts = (1..20).toList().countByParallel {
+                Thread.sleep 50
+                threads[Thread.currentThread()] = ''
+                it % 2
+            }
+            assertEquals([1: 10, 0: 10], counts)
+        }
+        assert threads.size() > 1
+    }
+
+    public void testEnhancers() {
+        final List list = [1, 2, 3, 4, 5]
+        ParallelEnhancer.enhanceInstance list
+        assertEquals([1: 3, 0: 2], list.countByParallel {it % 2})
+        assertEquals([1: 9, 0: 6], list.groupByParallel({it % 2}, {a, b -> a + b}))
+
+        final List asyncList = [1, 2, 3, 4, 5]
+        AsyncEnhancer.enhanceInstance asyncList
+        assertEquals([1: 3, 0: 2], asyncList.countByParallel {it % 2})
+        assertEquals([1: 9, 0: 6], asyncList.groupByParallel({it % 2}, {a, b -> a + b}))
+    }
+
+    public void testException() {
+        Parallelizer.doParallel(5) {
+            shouldFail(IllegalStateException) {
+                [1, 2, 3].countByParallel {if (it == 2) throw new IllegalStateException('test'); it}
+            }
+        }
+        Asynchronizer.doParallel(5) {
+            shouldFail(AsyncException) {
+                [1, 2, 3].countByParallel {if (it == 2) throw new IllegalStateException('test'); it}
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * @author agent
+ */
+public class ParallelPipelineTest extends GroovyTestCase {
+
+    public void testFusedChain() {
+        Parallelizer.doParallel(5) {
+            assertEquals 14, [1, 2, 3, 4, 5].lazyParallel.filter {it > 2}.map {it * 2}.filter {it < 10}.sum()
+            assertEquals 'aa-bb-dd', 'abcde'.lazyParallel.filter {it != 'e'}.map {it * 2}.filter {it != 'cc'}.reduce {a, b -> "$a-$b"}
+            assertEquals 65, [1, 2, 3, 4, 5].lazyParallel.map {it}.map {it + 10}.reduce {a, b -> a + b}
+        }
+    }
+
+    public void testOrderPreserved() {
+        Parallelizer.doParallel(5) {
+            final List source = (1..1000).toList()
+            assertEquals source.findAll {it % 3 == 0}.collect {it * 2}, source.lazyParallel.filter {it % 3 == 0}.map {it * 2}.collection
+            assertEquals source.collect {it.toString()}.sum(), source.lazyParallel.map {it.toString()}.sum()
+        }
+    }
+
+    public void testFlatMap() {
+        Parallelizer.doParallel(5) {
+            assertEquals([1, 1, 2, 2, 3, 3], [1, 2, 3].lazyParallel.flatMap {[it, it]}.collection)
+            assertEquals([2, 3], [1, 2, 3].lazyParallel.flatMap {it > 1 ? [it] : null}.collection)
+            assertEquals 6, ['ab', 'cd', 'ef'].lazyParallel.flatMap {it}.size()
+            assertEquals 21, [1..3, 4..6].lazyParallel.flatMap {it}.filter {it > 0}.sum()
+        }
+    }
+
+    public void testLaziness() {
+        final AtomicInteger calls = new AtomicInteger(0)
+        Parallelizer.doParallel(5) {
+            final def view = (1..100).toList().lazyParallel.map {calls.incrementAndGet(); it}.filter {calls.incrementAndGet(); true}
+            assertEquals 0, calls.get()
+            assertEquals 100, view.size()
+            assertEquals 200, calls.get()
+            assertEquals 5050, view.sum()
+            assertEquals 400, calls.get()
+        }
+    }
+
+    public void testMinMax() {
+        Parallelizer.doParallel(5) {
+            final def view = [3, 1, 5, 2, 4].lazyParallel.map {it * 10}
+            assertEquals 10, view.min()
+            assertEquals 50, view.max()
+            assertEquals 50, view.min {a, b -> b - a}
+            assertEquals 10, view.max {-it}
+            assertEquals 'a', 'cab'.lazyParallel.min()
+        }
+    }
+
+    public void testEmpty() {
+        Parallelizer.doParallel(5) {
+            assertNull([].lazyParallel.sum())
+            assertNull([1, 2, 3].lazyParallel.filter {false}.reduce {a, b -> a + b})
+            assertEquals([], [1, 2, 3].lazyParallel.filter {false}.collection)
+            assertEquals 0, [1, 2, 3].lazyParallel.filter {false}.size()
+        }
+    }
+
+    public void testEachUsesMultipleThreads() {
+        final ConcurrentHashMap threads = new ConcurrentHashMap()
+        final AtomicInteger counter = new AtomicInteger(0)
+        Parallelizer.doParallel(5) {
+            (1..20).toList().lazyParallel.filter {it % 2 == 0}.each {
+                Thread.sleep 100
+                threads[Thread.currentThread()] = ''
+                counter.incrementAndGet()
+            }
+        }
+        assertEquals 10, counter.get()
+        assert threads.size() > 1
+    }
+
+    public void testException() {
+        Parallelizer.doParallel(5) {
+            shouldFail(IllegalStateException) {
+                [1, 2, 3].lazyParallel.map {if (it == 2) throw new IllegalStateException('test'); it}.sum()
+            }
+        }
+    }
+
+    public void testEnhancer() {
+        final List list = [1, 2, 3, 4, 5]
+        ParallelEnhancer.enhanceInstance list
+        assertEquals 9, list.lazyParallel.filter {it > 3}.sum()
+    }
+}
@@ -0,0 +1,120 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars
+
+import jsr166y.forkjoin.Ops
+
+/**
+ * @author agent
+ */
+public class PrimitiveParallelTest extends GroovyTestCase {
+
+    public void testIntArray() {
+        Parallelizer.doParallel(5) {
+            final int[] values = [5, 3, 1, 4, 2]
+            final ParallelLongCollection collection = values.longParallel
+            assertEquals 15L, collection.sum()
+            assertEquals 1L, collection.min()
+            assertEquals 5L, collection.max()
+            assertEquals 5, collection.size()
+            assertEquals([1L, 2L, 3L, 4L, 5L], collection.sort().collection)
+            assertEquals([5L, 4L, 3L, 2L, 1L], collection.sort {a, b -> b <=> a}.collection)
+            assertEquals([5L, 3L, 1L, 4L, 2L], collection.collection)
+        }
+    }
+
+    public void testLongArray() {
+        Parallelizer.doParallel(5) {
+            final long[] values = [1L, 2L, 3L, 4L]
+            assertEquals([1L, 3L, 6L, 10L], values.longParallel.cumulate().collection)
+            assertEquals 24L, values.longParallel.reduce({a, b -> a * b}, 1L)
+            assert Arrays.equals([2L, 4L, 6L, 8L] as long[], values.longParallel.map {it * 2}.toArray())
+        }
+    }
+
+    public void testRange() {
+        Parallelizer.doParallel(5) {
+            assertEquals 5050L, (1..100).longParallel.sum()
+            assertEquals 2500L, (1..100).longParallel.filter {it % 2 == 1}.sum()
+            assertEquals([5L, 4L, 3L], (5..3).longParallel.collection)
+            assertEquals 0, (1..<1).longParallel.size()
+            assertEquals 5000050000L, (1..100000).longParallel.sum()
+        }
+    }
+
+    public void testChainedMapAndFilter() {
+        Parallelizer.doParallel(5) {
+            final def collection = (1..20).longParallel.filter {it > 5}.filter {it < 16}.map {it * 10}.filter {it % 20 == 0}.map {it + 1}
+            assertEquals([61L, 81L, 101L, 121L, 141L], collection.collection)
+            assertEquals 141L, collection.max()
+        }
+    }
+
+    public void testOps() {
+        Parallelizer.doParallel(5) {
+            final def collection = (1..10).longParallel.map({long value -> value * value} as Ops.LongMapper).filter({long value -> value > 50} as Ops.LongPredicate)
+            assertEquals 64L + 81L + 100L, collection.reduce({long a, long b -> a + b} as Ops.LongReducer, 0L)
+        }
+    }
+
+    public void testDoubleArray() {
+        Parallelizer.doParallel(5) {
+            final double[] values = [0.5d, 1.5d, 2.5d]
+            assertEquals 4.5d, values.doubleParallel.sum()
+            assertEquals 4.0d, values.doubleParallel.filter {it > 1}.sum()
+            assertEquals 0.5d, values.doubleParallel.min()
+            assertEquals 5.0d, values.doubleParallel.map {it * 2}.max()
+            assertEquals([0.5d, 2.0d, 4.5d], values.doubleParallel.cumulate().collection)
+            assertEquals([2.5d, 1.5d, 0.5d], values.doubleParallel.sort {a, b -> b <=> a}.collection)
+            assertEquals 1.875d, values.doubleParallel.reduce({a, b -> a * b}, 1.0d)
+        }
+    }
+
+    public void testReduceWithoutIdentity() {
+        Parallelizer.doParallel(5) {
+            assertEquals 3628800L, (1..10).longParallel.reduce {a, b -> a * b}
+            assertEquals 10L, (1..10).longParallel.reduce {a, b -> Math.max(a, b)}
+            assertEquals(-7L, [3, -7, 5].longParallel.reduce {a, b -> Math.min(a, b)})
+            assertEquals 1.875d, ([0.5, 2.5, 1.5] as double[]).doubleParallel.reduce {a, b -> a * b}
+            assertEquals 7L, [7].longParallel.reduce {a, b -> a * b}
+        }
+    }
+
+    public void testCollections() {
+        Parallelizer.doParallel(5) {
+            assertEquals 6L, [1, 2, 3].longParallel.sum()
+            assertEquals 6.0d, [1, 2, 3].doubleParallel.sum()
+            assertEquals 6.0d, ([1, 2, 3] as int[]).doubleParallel.sum()
+        }
+    }
+
+    public void testEmpty() {
+        Parallelizer.doParallel(5) {
+            assertEquals 0L, ([] as long[]).longParallel.sum()
+            assertNull((1..5).longParallel.filter {false}.reduce {a, b -> a + b})
+            assertNull(([] as double[]).doubleParallel.reduce {a, b -> a + b})
+            assertEquals([], ([] as double[]).doubleParallel.sort().collection)
+        }
+    }
+
+    public void testEnhancer() {
+        final def range = 1..10
+        ParallelEnhancer.enhanceInstance range
+        assertEquals 55L, range.longParallel.sum()
+        assertEquals 55.0d, range.doubleParallel.sum()
+    }
+}
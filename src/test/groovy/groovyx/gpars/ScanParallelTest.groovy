@@ -0,0 +1,79 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars
+
+import jsr166y.forkjoin.Ops
+
+/**
+ * @author agent
+ */
+public class ScanParallelTest extends GroovyTestCase {
+
+    private static List sequentialScan(List values, Closure cl) {
+        final List result = []
+        values.each {result << (result ? cl(result[-1], it) : it)}
+        return result
+    }
+
+    public void testCollections() {
+        final List source = (1..10000).collect {(it * 7919) % 1000}
+        Parallelizer.doParallel(5) {
+            assertEquals sequentialScan(source, {a, b -> a + b}), source.cumulateParallel()
+            assertEquals sequentialScan(source, {a, b -> Math.max(a, b)}), source.scanParallel {a, b -> Math.max(a, b)}
+            assertEquals([3, 3, 4, 4, 5], [3, 1, 4, 1, 5].scanParallel {a, b -> Math.max(a, b)})
+            assertEquals(['a', 'ab', 'abc'], 'abc'.scanParallel {a, b -> a + b})
+            assertEquals([1], [1].cumulateParallel())
+            assertEquals([], [].cumulateParallel())
+        }
+    }
+
+    public void testComposedOperator() {
+        //composition of affine functions x -> a * x + b is associative, but not commutative
+        final List functions = (1..1000).collect {[it % 3 == 0 ? -1 : 1, it % 5]}
+        final Closure compose = {f, g -> [f[0] * g[0], f[1] * g[0] + g[1]]}
+        Parallelizer.doParallel(5) {
+            assertEquals sequentialScan(functions, compose), functions.scanParallel(compose)
+        }
+    }
+
+    public void testPrimitiveCollections() {
+        Parallelizer.doParallel(5) {
+            final List expected = sequentialScan((1..1000).toList(), {a, b -> Math.max(a, b - 500)})
+            assertEquals expected.collect {it as long}, (1..1000).longParallel.cumulate {a, b -> Math.max(a, b - 500)}.collection
+            assertEquals([1L, 2L, 6L, 24L, 120L], (1..5).longParallel.cumulate({long a, long b -> a * b} as Ops.LongReducer).collection)
+            assertEquals([2L, 6L, 12L], (1..6).longParallel.filter {it % 2 == 0}.cumulate {a, b -> a + b}.collection)
+            assertEquals([0.5d, 0.5d, 0.25d], ([0.5d, 1.0d, 0.5d] as double[]).doubleParallel.cumulate {a, b -> a * b}.collection)
+            assertEquals([], ([] as long[]).longParallel.cumulate {a, b -> a + b}.collection)
+        }
+    }
+
+    public void testEnhancer() {
+        final List list = [1, 2, 3, 4]
+        ParallelEnhancer.enhanceInstance list
+        assertEquals([1, 3, 6, 10], list.cumulateParallel())
+        assertEquals([1, 2, 6, 24], list.scanParallel {a, b -> a * b})
+        assertEquals([1, 4, 10, 20], list.cumulateParallel().cumulateParallel())
+    }
+
+    public void testException() {
+        Parallelizer.doParallel(5) {
+            shouldFail(IllegalStateException) {
+                (1..100).toList().scanParallel {a, b -> if (b == 50) throw new IllegalStateException('test'); a + b}
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars
+
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * @author agent
+ */
+public class ShortCircuitTest extends GroovyTestCase {
+
+    public void testResults() {
+        final List source = (1..1000).toList()
+        Parallelizer.doParallel(5) {
+            assert source.findParallel {it % 100 == 0} in (100..1000).step(100)
+            assertNull source.findParallel {it > 1000}
+            assert source.anyParallel {it == 500}
+            assert ![null, false].anyParallel {it}
+            assert source.everyParallel {it > 0}
+            assert !source.everyParallel {it < 1000}
+            assert [].everyParallel {false}
+            assertNull([].findParallel {true})
+        }
+        Asynchronizer.doParallel(5) {
+            assert source.findParallel {it % 100 == 0} in (100..1000).step(100)
+            assertNull source.findParallel {it > 1000}
+            assert source.anyParallel {it == 500}
+            assert !source.anyParallel {it == 0}
+            assert source.everyParallel {it > 0}
+            assert !source.everyParallel {it < 1000}
+            assert ![].anyParallel {true}
+        }
+    }
+
+    public void testLazyPipeline() {
+        Parallelizer.doParallel(5) {
+            final def view = (1..100).toList().lazyParallel.map {it * 2}
+            assertEquals 20, view.find {it == 20}
+            assert view.any {it > 150}
+            assert !view.every {it > 150}
+            assert view.filter {it > 150}.every {it > 150}
+        }
+    }
+
+    public void testStopsEarly() {
+        final AtomicInteger calls = new AtomicInteger(0)
+        final List source = (1..10000).toList()
+        Parallelizer.doParallel(5) {
+            assert source.anyParallel {
+                calls.incrementAndGet()
+                Thread.sleep 1
+                true
+            }
+        }
+        assert calls.get() < source.size()
+
+        calls.set(0)
+        Asynchronizer.doParallel(5) {
+            assert !source.everyParallel {
+                calls.incrementAndGet()
+                Thread.sleep 1
+                false
+            }
+        }
+        assert calls.get() < source.size()
+    }
+
+    public void testException() {
+        Parallelizer.doParallel(5) {
+            shouldFail(IllegalArgumentException) {
+                [1, 2, 3].findParallel {if (it == 2) throw new IllegalArgumentException('test'); false}
+            }
+        }
+        Asynchronizer.doParallel(5) {
+            shouldFail(AsyncException) {
+                [1, 2, 3].anyParallel {if (it == 2) throw new IllegalArgumentException('test'); false}
+            }
+        }
+    }
+
+    public void testEnhancers() {
+        final List list = [1, 2, 3, 4, 5]
+        ParallelEnhancer.enhanceInstance list
+        assert list.anyParallel {it > 4}
+        assert list.findParallel {it > 4} == 5
+
+        final List asyncList = [1, 2, 3, 4, 5]
+        AsyncEnhancer.enhanceInstance asyncList
+        assert !asyncList.everyParallel {it > 4}
+        assert asyncList.findParallel {it > 4} == 5
+    }
+}
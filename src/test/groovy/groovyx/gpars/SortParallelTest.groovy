@@ -0,0 +1,81 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars
+
+/**
+ * @author agent
+ */
+public class SortParallelTest extends GroovyTestCase {
+
+    public void testSort() {
+        final List source = (1..1000).toList()
+        Collections.shuffle(source)
+        Parallelizer.doParallel(5) {
+            assertEquals((1..1000).toList(), source.sortParallel())
+            assertEquals((1000..1).toList(), source.sortParallel {a, b -> b <=> a})
+            assertEquals(['a', 'bb', 'ccc'], ['ccc', 'a', 'bb'].sortParallel {it.size()})
+            assertEquals(['a', 'b', 'c'], 'cab'.sortParallel())
+            assertEquals([], [].sortParallel())
+        }
+        assert source != (1..1000).toList()
+    }
+
+    public void testMerge() {
+        Parallelizer.doParallel(5) {
+            assertEquals([1, 2, 3, 4, 5], [1, 3, 5].mergeSortedParallel([2, 4]))
+            assertEquals([5, 4, 3, 2, 1], [5, 3, 1].mergeSortedParallel([4, 2]) {a, b -> b <=> a})
+            assertEquals([1, 2], [].mergeSortedParallel([1, 2]))
+            assertEquals([1, 2], [1, 2].mergeSortedParallel([]))
+            assertEquals([], [].mergeSortedParallel([]))
+
+            final List first = (1..5000).collect {it * 2}
+            final List second = (1..3000).collect {it * 3}
+            assertEquals((first + second).sort(), first.mergeSortedParallel(second))
+        }
+    }
+
+    public void testMergeIsStable() {
+        Parallelizer.doParallel(5) {
+            final List first = (1..1000).collect {[it.intdiv(10), 'first']}
+            final List second = (1..1000).collect {[it.intdiv(7), 'second']}
+            final List result = first.mergeSortedParallel(second) {it[0]}
+            assertEquals 2000, result.size()
+            result.groupBy {it[0]}.each {key, group ->
+                final List labels = group*.getAt(1)
+                assertEquals labels.sort {it == 'first' ? 0 : 1}, labels
+            }
+        }
+    }
+
+    public void testEnhancer() {
+        final List list = [3, 1, 2]
+        ParallelEnhancer.enhanceInstance list
+        assertEquals([1, 2, 3], list.sortParallel())
+        assertEquals([3, 2, 1], list.sortParallel {-it})
+        assertEquals([1, 2, 3, 4], list.sortParallel().mergeSortedParallel([4]))
+        assertEquals([3, 1, 2], list)
+    }
+
+    public void testTransparentSortKeepsGroovySemantics() {
+        Parallelizer.doParallel(5) {
+            final def list = [[3, 'a'], [1, 'b'], [3, 'c'], [1, 'd']].makeTransparent()
+            assertSame list, list.sort {it[0]}
+            assertEquals([[1, 'b'], [1, 'd'], [3, 'a'], [3, 'c']], list)
+            assert list.isTransparent()
+        }
+    }
+}
@@ -128,6 +128,22 @@ public class PooledActorGroupTest extends GroovyTestCase {
         nonDaemonGroup.shutdown()
     }
 
+    public void testDefaultGroupIsCreatedOnce() {
+        assertSame Actors.defaultPooledActorGroup, Actors.defaultPooledActorGroup
+        final PooledActorGroup group = new PooledActorGroup(2)
+        assertSame group, new GroupTestActor(group).actorGroup
+        group.shutdown()
+    }
+
+    public void testActorsWithoutGroupJoinDefaultGroupOnStart() {
+        final CountDownLatch latch = new CountDownLatch(1)
+        final AbstractPooledActor actor = new DefaultGroupTestActor(latch)
+        assertSame Actors.defaultPooledActorGroup, actor.actorGroup
+        actor.start()
+        latch.await()
+        assertSame Actors.defaultPooledActorGroup, actor.actorGroup
+    }
+
     @SuppressWarnings("GroovyMethodWithMoreThanThreeNegations")
     public void testDifferentPools() {
         final PooledActorGroup daemonGroup1 = new PooledActorGroup()
@@ -155,3 +171,15 @@ class GroupTestActor extends AbstractPooledActor {
     protected void act() {
     }
 }
+
+class DefaultGroupTestActor extends AbstractPooledActor {
+    private final CountDownLatch latch
+
+    def DefaultGroupTestActor(CountDownLatch latch) {
+        this.latch = latch
+    }
+
+    protected void act() {
+        latch.countDown()
+    }
+}
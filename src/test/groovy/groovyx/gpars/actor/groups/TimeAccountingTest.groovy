@@ -0,0 +1,102 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.actor.groups
+
+import groovyx.gpars.actor.AbstractPooledActor
+import groovyx.gpars.actor.PooledActorGroup
+import groovyx.gpars.actor.impl.ActorTimeAccounting
+import groovyx.gpars.actor.impl.ActorTimeStatistics
+
+/**
+ * @author agent
+ */
+public class TimeAccountingTest extends GroovyTestCase {
+
+    PooledActorGroup group
+
+    protected void setUp() {
+        group = new PooledActorGroup(3)
+    }
+
+    protected void tearDown() {
+        group.shutdown()
+    }
+
+    public void testAccountingDisabledByDefault() {
+        assertNull group.timeAccounting
+        final AbstractPooledActor actor = group.reactor {it}
+        assertEquals 1, actor.sendAndWait(1)
+        assertNull actor.timeStatistics
+        actor.stop().join()
+    }
+
+    public void testHotActors() {
+        final ActorTimeAccounting accounting = group.enableTimeAccounting()
+        assertSame accounting, group.enableTimeAccounting()
+
+        final AbstractPooledActor idle = group.reactor {it}
+        final AbstractPooledActor busy = group.reactor {
+            long sum = 0
+            final long end = System.nanoTime() + 50000000L
+            while (System.nanoTime() < end) sum++
+            sum
+        }
+
+        3.times {
+            idle.sendAndWait it
+            busy.sendAndWait it
+        }
+
+        [idle, busy]*.stop()
+        [idle, busy]*.join()
+
+        final ActorTimeStatistics busyStatistics = busy.timeStatistics
+        assertNotNull busyStatistics
+        assert busyStatistics.messageCount >= 3
+        assert busyStatistics.wallTime >= 150000000L
+        assert accounting.wallTime >= busyStatistics.wallTime
+        assert accounting.messageCount >= 6
+
+        final List<ActorTimeStatistics> hot = accounting.getHotActors(1)
+        assertEquals 1, hot.size()
+        assertSame busy, hot[0].actor
+        assertEquals 2, accounting.getHotActors(10).size()
+        assert accounting.reportHotActors(5).contains(busyStatistics.toString())
+
+        group.disableTimeAccounting()
+        assertNull group.timeAccounting
+    }
+
+    public void testOnlyPayloadMessagesCounted() {
+        final ActorTimeAccounting accounting = group.enableTimeAccounting()
+        final AbstractPooledActor actor = group.actor {
+            loop {
+                react {
+                    reply it
+                }
+            }
+        }
+
+        5.times {
+            assertEquals it, actor.sendAndWait(it)
+        }
+        actor.stop().join()
+
+        assertEquals 5L, actor.timeStatistics.messageCount
+        assertEquals 5L, accounting.messageCount
+    }
+}
@@ -0,0 +1,193 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.actor.nonBlocking
+
+import groovyx.gpars.actor.AbstractPooledActor
+import groovyx.gpars.actor.PooledActorGroup
+import groovyx.gpars.actor.impl.SequentialProcessingActor
+import java.lang.reflect.Field
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
+import org.codehaus.groovy.runtime.CurriedClosure
+
+/**
+ * @author agent
+ */
+public class BecomeTest extends GroovyTestCase {
+
+    PooledActorGroup group
+
+    protected void setUp() {
+        group = new PooledActorGroup(5)
+    }
+
+    protected void tearDown() {
+        group.shutdown()
+    }
+
+    public void testPersistentHandler() {
+        final AbstractPooledActor actor = group.actor {
+            become {message ->
+                reply message * 2
+            }
+        }
+
+        assertEquals 2, actor.sendAndWait(1)
+        assertEquals 4, actor.sendAndWait(2)
+        assertEquals 'aa', actor.sendAndWait('a')
+        assert actor.isActive()
+        actor.stop().join()
+        assertFalse actor.isActive()
+    }
+
+    public void testHandlerPreparedOnce() {
+        final AtomicBoolean curried = new AtomicBoolean(false)
+        final AbstractPooledActor actor = group.actor {
+            become {message ->
+                if (new Throwable().stackTrace.any {it.className == CurriedClosure.name}) curried.set(true)
+                reply message
+            }
+        }
+
+        assertEquals 1, actor.sendAndWait(1)
+        final def handler = readField(SequentialProcessingActor, 'messageHandler', actor)
+        assertNotNull handler
+        (2..100).each {assertEquals it, actor.sendAndWait(it)}
+        assertSame handler, readField(SequentialProcessingActor, 'messageHandler', actor)
+        assertNull readField(handler.getClass(), 'payload', handler)
+        assertFalse curried.get()
+        actor.stop().join()
+    }
+
+    private static readField(Class type, String name, Object target) {
+        final Field field = type.getDeclaredField(name)
+        field.accessible = true
+        return field.get(target)
+    }
+
+    public void testReplaceHandler() {
+        final AbstractPooledActor actor = group.actor {
+            become {message ->
+                reply 'first'
+                become {
+                    reply 'second'
+                }
+            }
+        }
+
+        assertEquals 'first', actor.sendAndWait(1)
+        assertEquals 'second', actor.sendAndWait(2)
+        assertEquals 'second', actor.sendAndWait(3)
+        actor.stop().join()
+    }
+
+    public void testReactFromHandler() {
+        final AbstractPooledActor actor = group.actor {
+            become {message ->
+                react {nested ->
+                    reply "$message:$nested"
+                }
+            }
+        }
+
+        actor.send 'a'
+        assertEquals 'a:b', actor.sendAndWait('b')
+        actor.send 'c'
+        assertEquals 'c:d', actor.sendAndWait('d')
+        actor.stop().join()
+    }
+
+    public void testReplyToMessage() {
+        final AbstractPooledActor actor = group.actor {
+            become {message ->
+                message.reply 'ok'
+            }
+        }
+
+        assertEquals 'ok', actor.sendAndWait(1)
+        actor.stop().join()
+    }
+
+    public void testSendersReleasedAfterHandling() {
+        final AbstractPooledActor actor = group.actor {
+            become {message ->
+                if (message == 'react') {
+                    react {nested ->
+                        nested.reply message
+                    }
+                } else message.reply message
+            }
+        }
+
+        assertEquals 1, actor.sendAndWait(1)
+        assertEquals 'a', actor.sendAndWait('a')
+        actor.send 'react'
+        assertEquals 'react', actor.sendAndWait('b')
+        for (int i = 0; i < 500 && !actor.@obj2Sender.isEmpty(); i++) Thread.sleep 10
+        assert actor.@obj2Sender.isEmpty()
+        actor.stop().join()
+    }
+
+    public void testStopProcessesQueuedMessages() {
+        final AtomicInteger counter = new AtomicInteger(0)
+        final CountDownLatch latch = new CountDownLatch(1)
+
+        final AbstractPooledActor actor = group.actor {
+            become {
+                latch.await()
+                counter.incrementAndGet()
+            }
+        }
+
+        5.times { actor << it }
+        actor.stop()
+        latch.countDown()
+        actor.join()
+        assertEquals 5, counter.get()
+    }
+
+    public void testBecomeAndLoopCannotBeCombined() {
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>()
+        final CountDownLatch latch = new CountDownLatch(1)
+
+        final AbstractPooledActor actor = group.actor {
+            become {}
+            try {
+                loop {}
+            } catch (IllegalStateException e) {
+                error.set e
+            }
+            latch.countDown()
+        }
+
+        latch.await()
+        assert error.get() instanceof IllegalStateException
+        actor.stop().join()
+    }
+
+    public void testBecomeOutsideActorThread() {
+        final AbstractPooledActor actor = group.actor {
+            become {}
+        }
+        shouldFail(IllegalStateException) {
+            actor.become {}
+        }
+        actor.stop().join()
+    }
+}
@@ -0,0 +1,135 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.actor.safe
+
+import groovyx.gpars.actor.SafeMap
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * @author agent
+ */
+public class SafeMapTest extends GroovyTestCase {
+
+    public void testPutAndGet() {
+        final SafeMap<String, Integer> map = new SafeMap<String, Integer>(4)
+        map.put 'a', 1
+        map.put 'b', 2
+        map.await()
+        assertEquals 1, map.get('a')
+        assertEquals 2, map.get('b')
+        assertNull map.get('c')
+        assertEquals 2, map.size()
+        map.stop().join()
+    }
+
+    public void testUpdateAndRemove() {
+        final SafeMap<String, Integer> map = new SafeMap<String, Integer>(3)
+        map.update('counter') {it == null ? 1 : it + 1}
+        map.update('counter') {it + 1}
+        assertEquals([counter: 2], map.val)
+        map.remove 'counter'
+        assertEquals([:], map.val)
+        map.put 'counter', 5
+        map.update('counter') {null}
+        assertEquals([:], map.val)
+        map.stop().join()
+    }
+
+    public void testConcurrentUpdates() {
+        final SafeMap<Integer, Integer> map = new SafeMap<Integer, Integer>()
+        final List<Thread> threads = (1..5).collect {
+            Thread.start {
+                100.times {key ->
+                    map.update(key % 10) {it == null ? 1 : it + 1}
+                }
+            }
+        }
+        threads*.join()
+        final Map<Integer, Integer> result = map.val
+        assertEquals 10, result.size()
+        result.each {key, value -> assertEquals 50, value}
+        assertEquals 500, map.snapshot.values().sum()
+        map.stop().join()
+    }
+
+    public void testSnapshotsAreUnmodifiable() {
+        final SafeMap<String, Integer> map = new SafeMap<String, Integer>(2)
+        map.put 'a', 1
+        map.await()
+        shouldFail(UnsupportedOperationException) {
+            map.getStripeSnapshot('a').put('a', 2)
+        }
+        final Map<String, Integer> snapshot = map.snapshot
+        snapshot['a'] = 10
+        assertEquals 1, map.get('a')
+        map.stop().join()
+    }
+
+    public void testLargeMap() {
+        final SafeMap<Integer, Integer> map = new SafeMap<Integer, Integer>(2)
+        final int size = 200000
+        final AtomicBoolean finished = new AtomicBoolean(false)
+        final List<Integer> sizes = []
+        final Thread reader = Thread.start {
+            while (!finished.get()) sizes << map.getStripeSnapshot(0).size()
+        }
+        size.times {map.put it, it}
+        map.await()
+        finished.set(true)
+        reader.join()
+
+        assertEquals size, map.size()
+        assertEquals size, map.snapshot.size()
+        assertEquals 12345, map.get(12345)
+        //only inserts happened, so consecutive consistent snapshots of the same stripe never shrink
+        sizes.inject(0) {previous, current -> assert current >= previous; current}
+        map.stop().join()
+    }
+
+    public void testSnapshotsBuiltLazily() {
+        final SafeMap<String, Integer> map = new SafeMap<String, Integer>(1)
+        map.put 'a', 1
+        map.await()
+        final Map<String, Integer> snapshot = map.getStripeSnapshot('a')
+        assertSame snapshot, map.getStripeSnapshot('a')
+        map.put 'b', 2
+        map.await()
+        final Map<String, Integer> newSnapshot = map.getStripeSnapshot('a')
+        assertNotSame snapshot, newSnapshot
+        assertEquals([a: 1], snapshot)
+        assertEquals([a: 1, b: 2], newSnapshot)
+        map.stop().join()
+    }
+
+    public void testNullKey() {
+        final SafeMap<String, Integer> map = new SafeMap<String, Integer>(2)
+        map.put null, 1
+        map.await()
+        assertEquals 1, map.get(null)
+        assertEquals([(null): 1], map.snapshot)
+        map.stop().join()
+    }
+
+    public void testStripeCount() {
+        final SafeMap map = new SafeMap(3)
+        assertEquals 3, map.stripeCount
+        map.stop().join()
+        shouldFail(IllegalArgumentException) {
+            new SafeMap(0)
+        }
+    }
+}
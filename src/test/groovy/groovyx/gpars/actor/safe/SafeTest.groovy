@@ -20,6 +20,7 @@ import groovyx.gpars.actor.Actors
 import groovyx.gpars.actor.Safe
 import groovyx.gpars.dataflow.DataFlowStream
 import groovyx.gpars.dataflow.DataFlowVariable
+import java.util.concurrent.CountDownLatch
 import java.util.concurrent.atomic.AtomicBoolean
 
 public class SafeTest extends GroovyTestCase {
@@ -213,6 +214,80 @@ public class SafeTest extends GroovyTestCase {
         assertEquals 1, counter.val
     }
 
+    public void testInstantValDoesNotWaitForUpdate() {
+        final Safe counter = new Safe<Long>(0L)
+        final CountDownLatch started = new CountDownLatch(1)
+        final CountDownLatch release = new CountDownLatch(1)
+
+        counter << {
+            started.countDown()
+            release.await()
+            updateValue it + 1
+        }
+        started.await()
+        assertEquals 0, counter.instantVal
+        release.countDown()
+        assertEquals 1, counter.val
+        assertEquals 1, counter.instantVal
+    }
+
+    public void testSnapshotNotAffectedByInPlaceUpdates() {
+        final Safe<List> members = new Safe<List>(['Me'], {it?.clone()})
+        final CountDownLatch started = new CountDownLatch(1)
+        final CountDownLatch release = new CountDownLatch(1)
+
+        members << {
+            it.add 'James'
+            started.countDown()
+            release.await()
+        }
+        started.await()
+        assertEquals(['Me'], members.instantVal)
+        release.countDown()
+        members.await()
+        assertEquals(['Me', 'James'], members.instantVal)
+        assertEquals(['Me', 'James'], members.val)
+    }
+
+    public void testBatchedUpdatesKeepReplies() {
+        final Safe counter = new Safe<Long>(0L)
+        final CountDownLatch started = new CountDownLatch(1)
+        final CountDownLatch release = new CountDownLatch(1)
+
+        counter << {
+            started.countDown()
+            release.await()
+            updateValue it + 1
+        }
+        started.await()
+
+        final List<DataFlowVariable> results = (1..10).collect {new DataFlowVariable()}
+        results.each {result ->
+            counter.sendAndContinue({updateValue it + 1; it + 1}) {result << it}
+        }
+        counter << 100L
+        counter << {it * 2}
+
+        assertEquals 0, counter.instantVal
+        release.countDown()
+        assertEquals((2L..11L).toList(), results*.val)
+        assertEquals 100L, counter.val
+    }
+
+    public void testBatchedUpdatesFromManyThreads() {
+        final Safe counter = new Safe<Long>(0L)
+        final List<Thread> threads = (1..5).collect {
+            Thread.start {
+                100.times {
+                    counter << {updateValue it + 1}
+                }
+            }
+        }
+        threads*.join()
+        assertEquals 500L, counter.val
+        assertEquals 500L, counter.instantVal
+    }
+
     public void testIncompatibleMessageType() {
         final Safe counter = new Safe<Long>(0L)
         counter << 'test'
@@ -0,0 +1,166 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler
+
+import groovyx.gpars.actor.Actor
+import groovyx.gpars.actor.PooledActorGroup
+import groovyx.gpars.dataflow.DataFlow
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * @author agent
+ */
+public class DeadlinePoolTest extends GroovyTestCase {
+
+    public void testEarliestDeadlineFirst() {
+        final DeadlinePool pool = new DeadlinePool(new DefaultPool(true, 1), 1)
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>())
+        final CountDownLatch started = new CountDownLatch(1)
+        final CountDownLatch release = new CountDownLatch(1)
+        final CountDownLatch finished = new CountDownLatch(6)
+
+        pool.execute {started.countDown(); release.await()}
+        assert started.await(30, TimeUnit.SECONDS)
+        pool.execute {order << 0; finished.countDown()}
+        final long now = System.nanoTime()
+        [5, 1, 3, 2, 4].each {index ->
+            pool.execute({order << index; finished.countDown()} as Runnable, now + TimeUnit.SECONDS.toNanos(30 + index))
+        }
+        assertEquals 6, pool.queueLength
+        release.countDown()
+        assert finished.await(30, TimeUnit.SECONDS)
+        assertEquals([1, 2, 3, 4, 5, 0], order)
+        assertEquals 0, pool.expiredTaskCount
+        pool.shutdown()
+    }
+
+    public void testDropExpired() {
+        final DeadlinePool pool = new DeadlinePool(new DefaultPool(true, 1), 1)
+        assert pool.dropExpired
+        final List<String> executed = Collections.synchronizedList(new ArrayList<String>())
+        final CountDownLatch started = new CountDownLatch(1)
+        final CountDownLatch release = new CountDownLatch(1)
+        final CountDownLatch finished = new CountDownLatch(1)
+
+        pool.execute {started.countDown(); release.await()}
+        assert started.await(30, TimeUnit.SECONDS)
+        3.times {
+            pool.execute({executed << 'late'} as Runnable, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10))
+        }
+        pool.execute {executed << 'regular'; finished.countDown()}
+        Thread.sleep 100
+        release.countDown()
+        assert finished.await(30, TimeUnit.SECONDS)
+        assertEquals(['regular'], executed)
+        assertEquals 3, pool.expiredTaskCount
+        assertEquals 3, pool.droppedTaskCount
+        pool.shutdown()
+    }
+
+    public void testRunLate() {
+        final DeadlinePool pool = new DeadlinePool(new DefaultPool(true, 1), 1, false)
+        final List<Boolean> flags = Collections.synchronizedList(new ArrayList<Boolean>())
+        final CountDownLatch started = new CountDownLatch(1)
+        final CountDownLatch release = new CountDownLatch(1)
+        final CountDownLatch finished = new CountDownLatch(2)
+
+        pool.execute {started.countDown(); release.await()}
+        assert started.await(30, TimeUnit.SECONDS)
+        pool.execute({flags << DeadlinePool.isRunningLate(); finished.countDown()} as Runnable, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10))
+        pool.execute {flags << DeadlinePool.isRunningLate(); finished.countDown()}
+        Thread.sleep 100
+        release.countDown()
+        assert finished.await(30, TimeUnit.SECONDS)
+        assertEquals([true, false], flags)
+        assertEquals 1, pool.expiredTaskCount
+        assertEquals 0, pool.droppedTaskCount
+        assertFalse DeadlinePool.isRunningLate()
+        pool.shutdown()
+    }
+
+    public void testFailingTasks() {
+        final DeadlinePool pool = new DeadlinePool(new DefaultPool(true, 2), 2)
+        final CountDownLatch finished = new CountDownLatch(10)
+
+        10.times {
+            pool.execute {throw new RuntimeException('test')}
+        }
+        10.times {
+            pool.execute {finished.countDown()}
+        }
+        assert finished.await(30, TimeUnit.SECONDS)
+        pool.shutdown()
+    }
+
+    public void testActorMessages() {
+        final DeadlinePool pool = new DeadlinePool(new DefaultPool(true, 1), 1)
+        final PooledActorGroup group = new PooledActorGroup(pool)
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>())
+        final Actor actor = group.reactor {received << it; it}
+        assertEquals 'ping', actor.sendAndWait('ping')
+
+        final CountDownLatch started = new CountDownLatch(1)
+        final CountDownLatch release = new CountDownLatch(1)
+        pool.execute {started.countDown(); release.await()}
+        assert started.await(30, TimeUnit.SECONDS)
+        actor.sendWithDeadline 'expired', 10, TimeUnit.MILLISECONDS
+        actor.send 'regular'
+        Thread.sleep 100
+        release.countDown()
+        assertEquals 'last', actor.sendAndWait('last')
+        assertEquals(['ping', 'regular', 'last'], received)
+        assertEquals 1, pool.droppedTaskCount
+
+        assertEquals 'timely', actor.sendAndWait('timely')
+        actor.stop()
+        pool.shutdown()
+    }
+
+    public void testDataFlowTasks() {
+        final DeadlinePool pool = new DeadlinePool(new DefaultPool(true, 1), 1)
+        final PooledActorGroup group = new PooledActorGroup(pool)
+        final List<String> executed = Collections.synchronizedList(new ArrayList<String>())
+        final CountDownLatch started = new CountDownLatch(1)
+        final CountDownLatch release = new CountDownLatch(1)
+        final CountDownLatch finished = new CountDownLatch(1)
+
+        DataFlow.task(group) {started.countDown(); release.await()}
+        assert started.await(30, TimeUnit.SECONDS)
+        DataFlow.task(group, 10, TimeUnit.MILLISECONDS) {executed << 'expired'}
+        DataFlow.task(group, 30, TimeUnit.SECONDS) {executed << 'timely'; finished.countDown()}
+        Thread.sleep 100
+        release.countDown()
+        assert finished.await(30, TimeUnit.SECONDS)
+        assertEquals(['timely'], executed)
+        pool.shutdown()
+    }
+
+    public void testValidation() {
+        shouldFail(IllegalArgumentException) {
+            new DeadlinePool(null, 1)
+        }
+        shouldFail(IllegalArgumentException) {
+            new DeadlinePool(new DefaultPool(true, 1), 0)
+        }
+        final DeadlinePool pool = new DeadlinePool(new DefaultPool(true, 1))
+        pool.shutdown()
+        shouldFail(IllegalStateException) {
+            pool.execute {}
+        }
+    }
+}
@@ -0,0 +1,137 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler
+
+import groovyx.gpars.actor.Actor
+import groovyx.gpars.actor.PooledActorGroup
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * @author agent
+ */
+public class FairPoolTest extends GroovyTestCase {
+
+    public void testWeightedShares() {
+        final FairPool fairPool = new FairPool(new DefaultPool(true, 1), 1)
+        final FairPool.Share bulk = fairPool.createShare('bulk', 1)
+        final FairPool.Share interactive = fairPool.createShare('interactive', 3)
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>())
+        final CountDownLatch release = new CountDownLatch(1)
+        final CountDownLatch finished = new CountDownLatch(600)
+
+        bulk.execute {release.await()}
+        300.times {
+            bulk.execute {order << 'bulk'; finished.countDown()}
+            interactive.execute {order << 'interactive'; finished.countDown()}
+        }
+        assertEquals 300, interactive.queueLength
+        release.countDown()
+        assert finished.await(30, TimeUnit.SECONDS)
+
+        final List<String> firstPart = order[0..<200]
+        final int interactiveCount = firstPart.findAll {it == 'interactive'}.size()
+        assert interactiveCount in 145..155
+        assertEquals 300, interactive.completedTaskCount
+        assertEquals 301, bulk.completedTaskCount
+        fairPool.shutdown()
+    }
+
+    public void testQuota() {
+        final FairPool fairPool = new FairPool(new ResizeablePool(true, 4), 4)
+        final FairPool.Share limited = fairPool.createShare('limited', 1, 2)
+        final FairPool.Share other = fairPool.createShare('other', 1)
+        assertEquals 2, limited.quota
+        final AtomicInteger running = new AtomicInteger(0)
+        final AtomicInteger maxRunning = new AtomicInteger(0)
+        final CountDownLatch finished = new CountDownLatch(10)
+        final CountDownLatch otherFinished = new CountDownLatch(1)
+
+        10.times {
+            limited.execute {
+                final int current = running.incrementAndGet()
+                synchronized (maxRunning) {
+                    if (current > maxRunning.get()) maxRunning.set(current)
+                }
+                Thread.sleep 20
+                running.decrementAndGet()
+                finished.countDown()
+            }
+        }
+        //the flooded share doesn't occupy all the threads
+        other.execute {otherFinished.countDown()}
+        assert otherFinished.await(1, TimeUnit.SECONDS)
+        assert finished.await(30, TimeUnit.SECONDS)
+        assertEquals 2, maxRunning.get()
+
+        limited.resize 3
+        assertEquals 3, limited.quota
+        limited.resetDefaultSize()
+        assertEquals 4, limited.quota
+        fairPool.shutdown()
+    }
+
+    public void testFailingTasks() {
+        final FairPool fairPool = new FairPool(new DefaultPool(true, 2), 2)
+        final FairPool.Share share = fairPool.createShare('share', 1)
+        final CountDownLatch finished = new CountDownLatch(10)
+
+        10.times {
+            share.execute {throw new RuntimeException('test')}
+        }
+        10.times {
+            share.execute {finished.countDown()}
+        }
+        assert finished.await(30, TimeUnit.SECONDS)
+        for (int i = 0; i < 100 && share.completedTaskCount < 20; i++) Thread.sleep 10
+        assertEquals 20, share.completedTaskCount
+        fairPool.shutdown()
+    }
+
+    public void testActorGroupsOnShares() {
+        final FairPool fairPool = new FairPool(new ResizeablePool(true, 2), 2)
+        final PooledActorGroup group1 = new PooledActorGroup(fairPool.createShare('first', 2))
+        final PooledActorGroup group2 = new PooledActorGroup(fairPool.createShare('second', 1))
+        final Actor actor1 = group1.reactor {it * 2}
+        final Actor actor2 = group2.reactor {it * 3}
+        assertEquals 20, actor1.sendAndWait(10)
+        assertEquals 30, actor2.sendAndWait(10)
+        actor1.stop()
+        actor2.stop()
+        fairPool.shutdown()
+    }
+
+    public void testShutdown() {
+        final FairPool fairPool = new FairPool(new DefaultPool(true, 2))
+        final FairPool.Share share = fairPool.createShare('share', 1)
+        final CountDownLatch latch = new CountDownLatch(1)
+        fairPool.execute {latch.countDown()}
+        assert latch.await(30, TimeUnit.SECONDS)
+        share.shutdown()
+        shouldFail(IllegalStateException) {
+            share.execute {}
+        }
+        fairPool.shutdown()
+        shouldFail(IllegalStateException) {
+            fairPool.execute {}
+        }
+        shouldFail(IllegalArgumentException) {
+            fairPool.createShare('invalid', 0)
+        }
+    }
+}
@@ -0,0 +1,152 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler
+
+import groovyx.gpars.actor.Actor
+import groovyx.gpars.actor.PooledActorGroup
+import groovyx.gpars.dataflow.DataFlowVariable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * @author agent
+ */
+public class IdleStrategyTest extends GroovyTestCase {
+
+    private final List<IdleStrategy> strategies = [
+            IdleStrategy.busySpin(50, TimeUnit.MILLISECONDS),
+            IdleStrategy.spinYield(50, TimeUnit.MILLISECONDS),
+            IdleStrategy.spinThenPark(50, TimeUnit.MILLISECONDS)]
+
+    protected void tearDown() {
+        IdleStrategy.default = IdleStrategy.park()
+        super.tearDown()
+    }
+
+    public void testAwait() {
+        final IdleStrategy.Condition never = {false} as IdleStrategy.Condition
+        assertFalse IdleStrategy.park().await({true} as IdleStrategy.Condition, 0L)
+        assertFalse IdleStrategy.park().spinning
+
+        strategies.each {IdleStrategy strategy ->
+            assert strategy.spinning
+            assert strategy.await({true} as IdleStrategy.Condition, 0L)
+
+            final AtomicBoolean flag = new AtomicBoolean(false)
+            Thread.start {
+                Thread.sleep 5
+                flag.set(true)
+            }
+            assert strategy.await({flag.get()} as IdleStrategy.Condition, System.nanoTime() + TimeUnit.SECONDS.toNanos(10))
+
+            long start = System.nanoTime()
+            assertFalse strategy.await(never, 0L)
+            assert System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50)
+        }
+
+        [IdleStrategy.busySpin(10, TimeUnit.SECONDS),
+                IdleStrategy.spinYield(10, TimeUnit.SECONDS),
+                IdleStrategy.spinThenPark(10, TimeUnit.SECONDS)].each {IdleStrategy strategy ->
+            final long start = System.nanoTime()
+            assertFalse strategy.await(never, start + TimeUnit.MILLISECONDS.toNanos(5))
+            assert System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5)
+        }
+        shouldFail(IllegalArgumentException) {
+            IdleStrategy.busySpin(-1, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    public void testDefaultPool() {
+        final DefaultPool pool = new DefaultPool(true, 2)
+        assertSame IdleStrategy.park(), pool.idleStrategy
+        strategies.each {IdleStrategy strategy ->
+            pool.idleStrategy = strategy
+            assertSame strategy, pool.idleStrategy
+            runTasks(pool)
+        }
+        pool.idleStrategy = null
+        assertSame IdleStrategy.default, pool.idleStrategy
+        pool.shutdown()
+
+        final ResizeablePool boundedPool = new ResizeablePool(true, 2, 4, 100, 1000L, SaturationPolicy.callerRuns())
+        boundedPool.idleStrategy = strategies[0]
+        runTasks(boundedPool)
+        boundedPool.shutdown()
+
+        final ResizeablePool handOffPool = new ResizeablePool(true, 2)
+        assertNull handOffPool.idleStrategy
+        shouldFail(IllegalStateException) {
+            handOffPool.idleStrategy = strategies[0]
+        }
+        handOffPool.shutdown()
+    }
+
+    public void testScheduler() {
+        final Scheduler scheduler = new Scheduler(2)
+        strategies.each {IdleStrategy strategy ->
+            scheduler.idleStrategy = strategy
+            runTasks(scheduler)
+        }
+        scheduler.shutdown()
+    }
+
+    public void testActors() {
+        final PooledActorGroup group = new PooledActorGroup(2)
+        group.idleStrategy = IdleStrategy.spinThenPark(50, TimeUnit.MILLISECONDS)
+        final Actor actor = group.actor {
+            loop {
+                receive {
+                    reply it * 2
+                }
+            }
+        }
+        IdleStrategy.default = IdleStrategy.spinYield(50, TimeUnit.MILLISECONDS)
+        10.times {
+            assertEquals it * 2, actor.sendAndWait(it)
+        }
+        assertEquals 20, actor.sendAndWait(10, 10, TimeUnit.SECONDS)
+        actor.stop()
+        group.shutdown()
+    }
+
+    public void testDataFlow() {
+        IdleStrategy.default = IdleStrategy.busySpin(50, TimeUnit.MILLISECONDS)
+        final DataFlowVariable<Integer> variable = new DataFlowVariable<Integer>()
+        Thread.start {
+            Thread.sleep 5
+            variable << 10
+        }
+        assertEquals 10, variable.val
+        final DataFlowVariable<Integer> slowVariable = new DataFlowVariable<Integer>()
+        assertNull slowVariable.getVal(10, TimeUnit.MILLISECONDS)
+        Thread.start {
+            Thread.sleep 100
+            slowVariable << 20
+        }
+        assertEquals 20, slowVariable.val
+    }
+
+    private static void runTasks(final Pool pool) {
+        final CountDownLatch latch = new CountDownLatch(20)
+        20.times {
+            pool.execute {latch.countDown()}
+            if (it % 5 == 0) Thread.sleep 10
+        }
+        assert latch.await(30, TimeUnit.SECONDS)
+    }
+}
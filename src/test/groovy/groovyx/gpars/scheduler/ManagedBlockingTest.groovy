@@ -0,0 +1,109 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler
+
+import groovyx.gpars.actor.Actor
+import groovyx.gpars.actor.PooledActorGroup
+import groovyx.gpars.dataflow.DataFlowVariable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * @author agent
+ */
+public class ManagedBlockingTest extends GroovyTestCase {
+
+    protected void tearDown() {
+        ManagedBlocking.enabled = true
+        super.tearDown()
+    }
+
+    public void testDataFlowVariable() {
+        final DefaultPool pool = new DefaultPool(true, 1)
+        final DataFlowVariable variable = new DataFlowVariable()
+        final DataFlowVariable result = new DataFlowVariable()
+
+        pool.execute {result << variable.val}
+        pool.execute {variable << 10}
+        assertEquals 10, result.getVal(30, TimeUnit.SECONDS)
+
+        //the compensating thread retires
+        for (int i = 0; i < 100 && pool.statistics.poolSize > 1; i++) Thread.sleep 50
+        assertEquals 1, pool.statistics.poolSize
+        pool.shutdown()
+    }
+
+    public void testDisabled() {
+        ManagedBlocking.enabled = false
+        final DefaultPool pool = new DefaultPool(true, 1)
+        final DataFlowVariable variable = new DataFlowVariable()
+        final DataFlowVariable result = new DataFlowVariable()
+
+        pool.execute {result << variable.val}
+        pool.execute {variable << 10}
+        assertNull result.getVal(500, TimeUnit.MILLISECONDS)
+        variable << 20
+        assertEquals 20, result.getVal(30, TimeUnit.SECONDS)
+        pool.shutdown()
+    }
+
+    public void testBlockingReceive() {
+        final PooledActorGroup group = new PooledActorGroup(new DefaultPool(true, 1))
+        final DataFlowVariable result = new DataFlowVariable()
+        final Actor receiver = group.actor {
+            result << receive()
+        }
+        final Actor sender = group.actor {
+            receiver << 'message'
+        }
+        assertEquals 'message', result.getVal(30, TimeUnit.SECONDS)
+        sender.stop()
+        group.shutdown()
+    }
+
+    public void testSendAndWait() {
+        final DefaultPool pool = new DefaultPool(true, 1)
+        final PooledActorGroup group = new PooledActorGroup(pool)
+        final Actor actor = group.reactor {it * 2}
+        final DataFlowVariable result = new DataFlowVariable()
+        pool.execute {result << actor.sendAndWait(10)}
+        assertEquals 20, result.getVal(30, TimeUnit.SECONDS)
+        actor.stop()
+        group.shutdown()
+    }
+
+    public void testForkJoinPool() {
+        final FJPool pool = new FJPool(1)
+        final DataFlowVariable variable = new DataFlowVariable()
+        final DataFlowVariable result = new DataFlowVariable()
+        final CountDownLatch submitted = new CountDownLatch(1)
+
+        pool.execute {
+            submitted.await()
+            result << variable.val
+        }
+        pool.execute {variable << 10}
+        submitted.countDown()
+        assertEquals 10, result.getVal(30, TimeUnit.SECONDS)
+        pool.shutdown()
+    }
+
+    public void testNoCompensationOutsideOfPools() {
+        assertNull ManagedBlocking.beginBlocking()
+        ManagedBlocking.endBlocking(null)
+    }
+}
@@ -0,0 +1,124 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler
+
+import java.lang.management.ManagementFactory
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import javax.management.ObjectName
+
+/**
+ * @author agent
+ */
+public class PoolStatisticsTest extends GroovyTestCase {
+
+    public void testDefaultPoolGauges() {
+        final DefaultPool pool = new DefaultPool(true, 2)
+        final CountDownLatch started = new CountDownLatch(2)
+        final CountDownLatch release = new CountDownLatch(1)
+        4.times {
+            pool.execute {
+                started.countDown()
+                release.await()
+            }
+        }
+        assert started.await(30, TimeUnit.SECONDS)
+        final PoolStatistics statistics = pool.statistics
+        assertEquals 2, statistics.poolSize
+        assertEquals 2, statistics.activeThreadCount
+        assertEquals 0, statistics.idleThreadCount
+        assertEquals 2, statistics.queueLength
+        assertEquals 0, statistics.rejectedTaskCount
+        release.countDown()
+        pool.shutdown()
+        shouldFail(RuntimeException) {
+            pool.execute {}
+        }
+        assertEquals 1, statistics.rejectedTaskCount
+    }
+
+    public void testTimingHistograms() {
+        [new DefaultPool(true, 2), new FJPool(2), new ResizeableFJPool(2), new Scheduler(2)].each {InstrumentedPool pool ->
+            final PoolStatistics statistics = pool.statistics
+            assertFalse statistics.timingEnabled
+            statistics.timingEnabled = true
+            final CountDownLatch latch = new CountDownLatch(10)
+            10.times {
+                pool.execute {
+                    Thread.sleep 2
+                    latch.countDown()
+                }
+            }
+            assert latch.await(30, TimeUnit.SECONDS)
+            waitForCount(statistics, 10)
+            assertEquals 10, total(statistics.runTimeHistogram)
+            assertEquals 10, total(statistics.waitTimeHistogram)
+            assertEquals LatencyHistogram.BUCKET_COUNT, statistics.runTimeHistogram.size()
+            //nothing recorded in the buckets below 1 ms
+            assertEquals 0, total(statistics.runTimeHistogram[0..9] as long[])
+
+            statistics.reset()
+            assertEquals 0, total(statistics.runTimeHistogram)
+            statistics.timingEnabled = false
+            final CountDownLatch untimed = new CountDownLatch(1)
+            pool.execute {untimed.countDown()}
+            assert untimed.await(30, TimeUnit.SECONDS)
+            assertEquals 0, total(statistics.runTimeHistogram)
+            pool.shutdown()
+        }
+    }
+
+    public void testSchedulerStealCount() {
+        final Scheduler scheduler = new Scheduler(4)
+        final CountDownLatch latch = new CountDownLatch(100)
+        scheduler.execute {
+            100.times {
+                scheduler.execute {
+                    Thread.sleep 1
+                    latch.countDown()
+                }
+            }
+        }
+        assert latch.await(30, TimeUnit.SECONDS)
+        assert scheduler.statistics.stealCount > 0
+        assert scheduler.statistics.poolSize >= 1
+        scheduler.shutdown()
+    }
+
+    public void testJmxExport() {
+        final FJPool pool = new FJPool(2)
+        final ObjectName name = PoolStatisticsExporter.export(pool.statistics, 'test pool')
+        final def server = ManagementFactory.platformMBeanServer
+        assert server.isRegistered(name)
+        assertEquals 2, server.getAttribute(name, 'PoolSize')
+        assertEquals 0L, server.getAttribute(name, 'RejectedTaskCount')
+        PoolStatisticsExporter.unexport(name)
+        assertFalse server.isRegistered(name)
+        pool.shutdown()
+    }
+
+    private static void waitForCount(final PoolStatistics statistics, final long count) {
+        //the histograms get updated after the task body finishes
+        for (int i = 0; i < 100 && total(statistics.runTimeHistogram) < count; i++) Thread.sleep 10
+    }
+
+    private static long total(final long[] histogram) {
+        long sum = 0L
+        for (long count in histogram) sum += count
+        return sum
+    }
+}
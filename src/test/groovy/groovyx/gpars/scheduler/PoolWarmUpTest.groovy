@@ -0,0 +1,97 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler
+
+import groovyx.gpars.actor.Actor
+import groovyx.gpars.actor.PooledActorGroup
+import groovyx.gpars.util.PoolUtils
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * @author agent
+ */
+public class PoolWarmUpTest extends GroovyTestCase {
+
+    public void testDefaultPool() {
+        final DefaultPool pool = new DefaultPool(true, 3)
+        assertEquals 0, pool.statistics.poolSize
+        assertEquals 3, pool.prestart()
+        assertEquals 3, pool.statistics.poolSize
+        assertEquals 0, pool.prestart()
+        pool.shutdown()
+    }
+
+    public void testResizeablePool() {
+        final ResizeablePool pool = new ResizeablePool(true, 2)
+        assertEquals 2, pool.prestart()
+        assertEquals 2, pool.statistics.poolSize
+        pool.shutdown()
+    }
+
+    public void testOtherPools() {
+        final FJPool fjPool = new FJPool(2)
+        assertEquals 0, fjPool.prestart()
+        fjPool.shutdown()
+
+        final Scheduler scheduler = new Scheduler(0)
+        assert scheduler.prestart() > 0
+        assertEquals 0, scheduler.prestart()
+        scheduler.shutdown()
+
+        final FairPool fairPool = new FairPool(new DefaultPool(true, 2))
+        assertEquals 2, fairPool.createShare('share', 1).prestart()
+        assertEquals 0, fairPool.prestart()
+        fairPool.shutdown()
+
+        final DeadlinePool deadlinePool = new DeadlinePool(new DefaultPool(true, 2))
+        assertEquals 2, deadlinePool.prestart()
+        deadlinePool.shutdown()
+    }
+
+    public void testPoolWarmUp() {
+        final DefaultPool pool = new DefaultPool(true, 2)
+        final AtomicInteger counter = new AtomicInteger(0)
+        assertEquals 2, PoolUtils.warmUp(pool, 100, {counter.incrementAndGet()} as Runnable)
+        assertEquals 100, counter.get()
+
+        shouldFail(IllegalStateException) {
+            PoolUtils.warmUp(pool, 10, {throw new IllegalStateException('test')} as Runnable)
+        }
+        shouldFail(InternalError) {
+            PoolUtils.warmUp(pool, 10, {throw new InternalError('test')} as Runnable)
+        }
+        shouldFail(IllegalArgumentException) {
+            PoolUtils.warmUp(pool, -1, {} as Runnable)
+        }
+        pool.shutdown()
+    }
+
+    public void testActorGroupWarmUp() {
+        final PooledActorGroup group = new PooledActorGroup(2)
+        final Actor actor = group.reactor {it * 2}
+        int rounds = 0
+        group.warmUp(50) {
+            assertSame group, it
+            assertEquals 20, actor.sendAndWait(10)
+            rounds++
+        }
+        assertEquals 50, rounds
+        assertEquals 0, group.prestart()
+        actor.stop()
+        group.shutdown()
+    }
+}
@@ -0,0 +1,118 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler
+
+import java.lang.ref.WeakReference
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * @author agent
+ */
+public class ResizeableFJPoolTest extends GroovyTestCase {
+
+    public void testGrowsForBlockedTasks() {
+        final ResizeableFJPool pool = new ResizeableFJPool(2)
+        final CountDownLatch started = new CountDownLatch(10)
+        final CountDownLatch release = new CountDownLatch(1)
+        final CountDownLatch finished = new CountDownLatch(10)
+
+        10.times {
+            pool.execute {
+                started.countDown()
+                release.await()
+                finished.countDown()
+            }
+        }
+        assert started.await(30, TimeUnit.SECONDS)
+        assert pool.forkJoinPool.poolSize >= 10
+        release.countDown()
+        assert finished.await(30, TimeUnit.SECONDS)
+        pool.shutdown()
+    }
+
+    public void testShrinksWhenIdle() {
+        final ResizeableFJPool pool = new ResizeableFJPool(2)
+        final CountDownLatch started = new CountDownLatch(8)
+        final CountDownLatch release = new CountDownLatch(1)
+
+        8.times {
+            pool.execute {
+                started.countDown()
+                release.await()
+            }
+        }
+        assert started.await(30, TimeUnit.SECONDS)
+        release.countDown()
+
+        for (int i = 0; i < 100 && pool.forkJoinPool.poolSize > 2; i++) {
+            Thread.sleep 100
+        }
+        assertEquals 2, pool.forkJoinPool.poolSize
+        pool.shutdown()
+    }
+
+    public void testManyTasks() {
+        final ResizeableFJPool pool = new ResizeableFJPool(3)
+        final CountDownLatch latch = new CountDownLatch(10000)
+        10000.times {
+            pool.execute {latch.countDown()}
+        }
+        assert latch.await(30, TimeUnit.SECONDS)
+        pool.shutdown()
+    }
+
+    public void testShrinkGrowsForTasksSubmittedMeanwhile() {
+        final ResizeableFJPool pool = new ResizeableFJPool(2)
+        //tasks counted by submitters, which found the flag held by shrink() and left the growing to it
+        pool.@pendingTasks.set(6)
+        pool.shrink()
+        assert pool.forkJoinPool.poolSize >= 6
+        pool.@pendingTasks.set(0)
+        pool.shutdown()
+    }
+
+    public void testSamplerSurvivesPoolLimit() {
+        final ResizeableFJPool pool = new ResizeableFJPool(2)
+        final ResizeableFJPool.Sampler sampler = new ResizeableFJPool.Sampler(pool)
+        pool.@pendingTasks.set(2000)
+        sampler.run()
+        pool.@pendingTasks.set(0)
+        sampler.run()
+        pool.shutdown()
+    }
+
+    public void testSamplerCancelledOnceThePoolIsCollected() {
+        ResizeableFJPool pool = new ResizeableFJPool(2)
+        final ResizeableFJPool.Sampler sampler = new ResizeableFJPool.Sampler(pool)
+        final Timer timer = new Timer(true)
+        timer.schedule(sampler, 10L, 10L)
+        final def forkJoinPool = pool.forkJoinPool
+        pool = null
+
+        final WeakReference reference = sampler.@poolReference
+        for (int i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc()
+            Thread.sleep 10
+        }
+        assertNull reference.get()
+        Thread.sleep 100
+        assertFalse 'The sampler should have cancelled itself', sampler.cancel()
+        timer.cancel()
+        forkJoinPool.shutdown()
+    }
+}
@@ -0,0 +1,165 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * @author agent
+ */
+public class ResizeablePoolTest extends GroovyTestCase {
+
+    public void testBoundedQueue() {
+        final ResizeablePool pool = new ResizeablePool(true, 2, 4, 100, 1000L, SaturationPolicy.reject())
+        final AtomicInteger counter = new AtomicInteger(0)
+        final CountDownLatch latch = new CountDownLatch(50)
+        50.times {
+            pool.execute {
+                counter.incrementAndGet()
+                latch.countDown()
+            }
+        }
+        assert latch.await(30, TimeUnit.SECONDS)
+        assertEquals 50, counter.get()
+        pool.shutdown()
+    }
+
+    public void testGrowthOnLatency() {
+        final ResizeablePool pool = new ResizeablePool(true, 1, 3, 100, 0L, SaturationPolicy.reject())
+        final ThreadPoolExecutor executor = pool.executorService
+        final CountDownLatch release = new CountDownLatch(1)
+        final CountDownLatch finished = new CountDownLatch(5)
+        final Closure task = {
+            release.await()
+            finished.countDown()
+        }
+
+        pool.execute task
+        assertEquals 1, executor.poolSize
+        pool.execute task
+        assertEquals 1, executor.poolSize
+        pool.execute task
+        assertEquals 2, executor.poolSize
+        pool.execute task
+        assertEquals 3, executor.poolSize
+        pool.execute task
+        assertEquals 3, executor.poolSize
+
+        release.countDown()
+        assert finished.await(30, TimeUnit.SECONDS)
+        pool.shutdown()
+    }
+
+    public void testNoGrowthWithinLatency() {
+        final ResizeablePool pool = new ResizeablePool(true, 1, 3, 100, 3600000L, SaturationPolicy.reject())
+        final ThreadPoolExecutor executor = pool.executorService
+        final CountDownLatch release = new CountDownLatch(1)
+        final CountDownLatch finished = new CountDownLatch(5)
+
+        5.times {
+            pool.execute {
+                release.await()
+                finished.countDown()
+            }
+        }
+        assertEquals 1, executor.poolSize
+
+        release.countDown()
+        assert finished.await(30, TimeUnit.SECONDS)
+        pool.shutdown()
+    }
+
+    public void testQueueRatherThanSaturate() {
+        final ResizeablePool pool = new ResizeablePool(true, 1, 1, 10, 0L, SaturationPolicy.reject())
+        final ThreadPoolExecutor executor = pool.executorService
+        final CountDownLatch release = new CountDownLatch(1)
+        final CountDownLatch finished = new CountDownLatch(1)
+        pool.execute {release.await()}
+
+        //simulates a submitter, which lost the last thread slot to another submitter after the queue refused its task
+        executor.rejectedExecutionHandler.rejectedExecution({finished.countDown()} as Runnable, executor)
+        assertEquals 1, executor.queue.size()
+
+        release.countDown()
+        assert finished.await(30, TimeUnit.SECONDS)
+        pool.shutdown()
+    }
+
+    public void testReject() {
+        final ResizeablePool pool = new ResizeablePool(true, 1, 1, 1, 1000L, SaturationPolicy.reject())
+        final CountDownLatch release = new CountDownLatch(1)
+        pool.execute {release.await()}
+        pool.execute {}
+        shouldFail(IllegalStateException) {
+            pool.execute {}
+        }
+        release.countDown()
+        pool.shutdown()
+    }
+
+    public void testCallerRuns() {
+        final ResizeablePool pool = new ResizeablePool(true, 1, 1, 1, 1000L, SaturationPolicy.callerRuns())
+        final CountDownLatch release = new CountDownLatch(1)
+        pool.execute {release.await()}
+        pool.execute {}
+        Thread caller = null
+        pool.execute {caller = Thread.currentThread()}
+        assertSame Thread.currentThread(), caller
+        release.countDown()
+        pool.shutdown()
+    }
+
+    public void testBlock() {
+        final ResizeablePool pool = new ResizeablePool(true, 1, 1, 1, 1000L, SaturationPolicy.block(10, TimeUnit.SECONDS))
+        final CountDownLatch release = new CountDownLatch(1)
+        final CountDownLatch finished = new CountDownLatch(3)
+        pool.execute {release.await(); finished.countDown()}
+        pool.execute {finished.countDown()}
+        Thread.start {
+            Thread.sleep 200
+            release.countDown()
+        }
+        pool.execute {finished.countDown()}
+        assert finished.await(30, TimeUnit.SECONDS)
+        pool.shutdown()
+
+        final ResizeablePool timingOut = new ResizeablePool(true, 1, 1, 1, 1000L, SaturationPolicy.block(100, TimeUnit.MILLISECONDS))
+        final CountDownLatch blocker = new CountDownLatch(1)
+        timingOut.execute {blocker.await()}
+        timingOut.execute {}
+        shouldFail(IllegalStateException) {
+            timingOut.execute {}
+        }
+        blocker.countDown()
+        timingOut.shutdown()
+    }
+
+    public void testInvalidArguments() {
+        shouldFail(IllegalArgumentException) {
+            new ResizeablePool(true, 4, 2, 10, 10L, SaturationPolicy.reject())
+        }
+        shouldFail(IllegalArgumentException) {
+            new ResizeablePool(true, 1, 2, 0, 10L, SaturationPolicy.reject())
+        }
+        shouldFail(IllegalArgumentException) {
+            new ResizeablePool(true, 1, 2, 10, 10L, null)
+        }
+    }
+}
@@ -0,0 +1,147 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler
+
+import groovyx.gpars.actor.AbstractPooledActor
+import groovyx.gpars.actor.PooledActorGroup
+import groovyx.gpars.util.PoolUtils
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * @author agent
+ */
+public class SchedulerTest extends GroovyTestCase {
+
+    public void testExternalSubmissions() {
+        final Scheduler scheduler = new Scheduler(3)
+        final AtomicInteger counter = new AtomicInteger(0)
+        final CountDownLatch latch = new CountDownLatch(1000)
+        1000.times {
+            scheduler.execute {
+                counter.incrementAndGet()
+                latch.countDown()
+            }
+        }
+        assert latch.await(30, TimeUnit.SECONDS)
+        assertEquals 1000, counter.get()
+        scheduler.shutdown()
+    }
+
+    public void testNestedSubmissions() {
+        final Scheduler scheduler = new Scheduler(2)
+        final CountDownLatch latch = new CountDownLatch(10 * 100)
+        10.times {
+            scheduler.execute {
+                100.times {
+                    scheduler.execute {latch.countDown()}
+                }
+            }
+        }
+        assert latch.await(30, TimeUnit.SECONDS)
+        scheduler.shutdown()
+    }
+
+    public void testCompensationForBlockedWorkers() {
+        final Scheduler scheduler = new Scheduler(2)
+        final CountDownLatch release = new CountDownLatch(1)
+        final CountDownLatch finished = new CountDownLatch(2)
+        final CountDownLatch blocked = new CountDownLatch(2)
+
+        2.times {
+            scheduler.execute {
+                blocked.countDown()
+                release.await()
+                finished.countDown()
+            }
+        }
+        assert blocked.await(30, TimeUnit.SECONDS)
+        Thread.sleep 100
+        scheduler.execute {release.countDown()}
+        assert finished.await(30, TimeUnit.SECONDS)
+        scheduler.shutdown()
+    }
+
+    public void testCompensationForManagedBlocking() {
+        final Scheduler scheduler = new Scheduler(1)
+        final CountDownLatch release = new CountDownLatch(1)
+        final CountDownLatch blocked = new CountDownLatch(1)
+        final CountDownLatch finished = new CountDownLatch(1)
+
+        scheduler.execute {
+            final ManagedBlocking.Compensator compensator = ManagedBlocking.beginBlocking()
+            try {
+                blocked.countDown()
+                release.await()
+            } finally {
+                ManagedBlocking.endBlocking(compensator)
+            }
+            finished.countDown()
+        }
+        assert blocked.await(30, TimeUnit.SECONDS)
+        scheduler.execute {release.countDown()}
+        assert finished.await(30, TimeUnit.SECONDS)
+        scheduler.shutdown()
+    }
+
+    public void testConcurrentSubmittersDoNotOvershoot() {
+        final Scheduler scheduler = new Scheduler()
+        final CountDownLatch latch = new CountDownLatch(8 * 500)
+        final CountDownLatch start = new CountDownLatch(1)
+        final List<Thread> submitters = (1..8).collect {
+            Thread.start {
+                start.await()
+                500.times {
+                    scheduler.execute {
+                        final long end = System.nanoTime() + 100000L
+                        while (System.nanoTime() < end) {}
+                        latch.countDown()
+                    }
+                }
+            }
+        }
+        start.countDown()
+        submitters*.join()
+        assert latch.await(30, TimeUnit.SECONDS)
+        assert scheduler.statistics.poolSize <= PoolUtils.retrieveDefaultPoolSize()
+        scheduler.shutdown()
+    }
+
+    public void testActorsOnScheduler() {
+        final PooledActorGroup group = new PooledActorGroup(new Scheduler(3))
+        final AbstractPooledActor echo = group.reactor {it * 2}
+        final List<AbstractPooledActor> actors = (1..10).collect {index ->
+            group.actor {
+                react {
+                    reply echo.sendAndWait(index)
+                }
+            }
+        }
+        assertEquals((1..10).collect {it * 2}, actors.collect {it.sendAndWait('go')})
+        echo.stop().join()
+        group.shutdown()
+    }
+
+    public void testShutdown() {
+        final Scheduler scheduler = new Scheduler(1)
+        scheduler.shutdown()
+        shouldFail(RuntimeException) {
+            scheduler.execute {}
+        }
+    }
+}
@@ -0,0 +1,71 @@
+//  GPars (formerly GParallelizer)
+//
+//  Copyright © 2008-9  The original author or authors
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//        http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+
+package groovyx.gpars.scheduler
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * @author agent
+ */
+public class WorkStealingDequeTest extends GroovyTestCase {
+
+    public void testOrdering() {
+        final WorkStealingDeque deque = new WorkStealingDeque()
+        final List<Runnable> tasks = (1..200).collect {value -> {-> value} as Runnable}
+        tasks.each {deque.push it}
+        assertEquals 200, deque.size()
+        assertSame tasks[0], deque.steal()
+        assertSame tasks[199], deque.pop()
+        assertSame tasks[1], deque.steal()
+        assertEquals 197, deque.size()
+        197.times {deque.pop()}
+        assert deque.isEmpty()
+        assertNull deque.pop()
+        assertNull deque.steal()
+    }
+
+    public void testEachTaskTakenOnce() {
+        final WorkStealingDeque deque = new WorkStealingDeque()
+        final Map<Runnable, Runnable> taken = new ConcurrentHashMap<Runnable, Runnable>()
+        final AtomicBoolean finished = new AtomicBoolean(false)
+        final List<Integer> duplicates = Collections.synchronizedList([])
+
+        final List<Thread> thieves = (1..4).collect {
+            Thread.start {
+                while (!finished.get() || !deque.isEmpty()) {
+                    final Runnable task = deque.steal()
+                    if (task != null && taken.put(task, task) != null) duplicates << 1
+                }
+            }
+        }
+
+        final int count = 100000
+        for (int i = 0; i < count; i++) {
+            deque.push({->} as Runnable)
+            if (i % 3 == 0) {
+                final Runnable task = deque.pop()
+                if (task != null && taken.put(task, task) != null) duplicates << 1
+            }
+        }
+        finished.set(true)
+        thieves*.join()
+
+        assert duplicates.isEmpty()
+        assertEquals count, taken.size()
+    }
+}